@@ -0,0 +1,12 @@
+package com.example.demo.config;
+
+/**
+ * Compartimentos (bulkheads) de conexiones a la BD
+ * Cada uno tiene su propio pool, tamaño y timeout, para que una exportación
+ * grande o una ráfaga de auditoría no dejen sin conexiones a los logins
+ */
+public enum Bulkhead {
+    INTERACTIVO,    // Requests de usuarios: login, dashboard, gestión de roles
+    AUDITORIA,      // Escritura asíncrona de eventos de auditoría
+    LECTURA_MASIVA  // Exportaciones y estadísticas agregadas
+}
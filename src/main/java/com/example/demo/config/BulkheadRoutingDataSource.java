@@ -0,0 +1,67 @@
+package com.example.demo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * DataSource que rutea cada conexión al pool del bulkhead activo en el hilo
+ * Decide al pedir la conexión: con open-in-view la conexión del primer acceso
+ * del request se reutiliza y el bulkhead abierto después no tiene efecto
+ */
+public class BulkheadRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final Map<Bulkhead, DataSource> pools;
+
+    public BulkheadRoutingDataSource(Map<Bulkhead, DataSource> pools) {
+        this.pools = new EnumMap<>(pools);
+        setTargetDataSources(new LinkedHashMap<>(pools));
+        setDefaultTargetDataSource(pools.get(Bulkhead.INTERACTIVO));
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ContextoBulkhead.actual();
+    }
+
+    /**
+     * Saturación de cada pool: conexiones activas, ociosas y requests esperando
+     */
+    public Map<String, Map<String, Object>> obtenerSaturacion() {
+        Map<String, Map<String, Object>> resultado = new LinkedHashMap<>();
+        pools.forEach((bulkhead, pool) -> resultado.put(bulkhead.name(), saturacion(pool)));
+        return resultado;
+    }
+
+    private Map<String, Object> saturacion(DataSource pool) {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        try {
+            HikariDataSource hikari = pool.unwrap(HikariDataSource.class);
+            datos.put("maximo", hikari.getMaximumPoolSize());
+            datos.put("timeoutMs", hikari.getConnectionTimeout());
+
+            HikariPoolMXBean mx = hikari.getHikariPoolMXBean();
+            if (mx != null) {
+                datos.put("activas", mx.getActiveConnections());
+                datos.put("ociosas", mx.getIdleConnections());
+                datos.put("total", mx.getTotalConnections());
+                datos.put("esperando", mx.getThreadsAwaitingConnection());
+                datos.put("uso", (double) mx.getActiveConnections() / hikari.getMaximumPoolSize());
+            } else {
+                datos.put("estado", "sin iniciar");
+            }
+        } catch (Exception e) {
+            datos.put("error", e.getMessage());
+        }
+
+        if (pool instanceof LimitadorConexionesDataSource limitador) {
+            datos.put("esperandoLimitador", limitador.getEnEspera());
+        }
+        return datos;
+    }
+}
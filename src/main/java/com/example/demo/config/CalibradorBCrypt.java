@@ -0,0 +1,65 @@
+package com.example.demo.config;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Arrays;
+
+/**
+ * Calibrador del costo de BCrypt según el hardware donde corre la aplicación
+ * Mide la mediana (p50) de encode() para cada fuerza y elige la mayor
+ * que no supera la latencia objetivo configurada
+ */
+public final class CalibradorBCrypt {
+
+    private static final String CLAVE_DE_PRUEBA = "calibracion-bcrypt";
+
+    private CalibradorBCrypt() {
+    }
+
+    /**
+     * Calcular la fuerza de BCrypt para una latencia objetivo
+     * @param objetivoMs Latencia p50 objetivo en milisegundos
+     * @param fuerzaMinima Fuerza mínima aceptable (nunca se baja de este valor)
+     * @param fuerzaMaxima Fuerza máxima a probar
+     * @param muestras Cantidad de mediciones por fuerza
+     * @return Fuerza elegida dentro de [fuerzaMinima, fuerzaMaxima]
+     */
+    public static int calibrar(long objetivoMs, int fuerzaMinima, int fuerzaMaxima, int muestras) {
+        int elegida = fuerzaMinima;
+
+        for (int fuerza = fuerzaMinima; fuerza <= fuerzaMaxima; fuerza++) {
+            long medianaNs = medirMediana(fuerza, muestras);
+            long medianaMs = medianaNs / 1_000_000;
+
+            System.out.println("⏱️ BCrypt fuerza " + fuerza + ": p50 = " + medianaMs + " ms");
+
+            if (medianaMs > objetivoMs) {
+                break;
+            }
+            elegida = fuerza;
+
+            // Cada punto de fuerza duplica el costo: si el siguiente ya se pasa, no medirlo
+            if (medianaMs * 2 > objetivoMs) {
+                break;
+            }
+        }
+
+        System.out.println("✓ BCrypt calibrado: fuerza " + elegida + " (objetivo " + objetivoMs + " ms)");
+        return elegida;
+    }
+
+    private static long medirMediana(int fuerza, int muestras) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(fuerza);
+        encoder.encode(CLAVE_DE_PRUEBA); // Calentamiento
+
+        long[] tiempos = new long[Math.max(1, muestras)];
+        for (int i = 0; i < tiempos.length; i++) {
+            long inicio = System.nanoTime();
+            encoder.encode(CLAVE_DE_PRUEBA);
+            tiempos[i] = System.nanoTime() - inicio;
+        }
+
+        Arrays.sort(tiempos);
+        return tiempos[tiempos.length / 2];
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.demo.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Bulkhead activo para el hilo actual
+ * El ruteo se decide al pedir la conexión, por eso el contexto debe
+ * fijarse ANTES de abrir la transacción o de la primera consulta
+ */
+public final class ContextoBulkhead {
+
+    private static final ThreadLocal<Bulkhead> ACTUAL = new ThreadLocal<>();
+
+    private ContextoBulkhead() {
+    }
+
+    /**
+     * Bulkhead actual (null = INTERACTIVO, el pool por defecto)
+     */
+    public static Bulkhead actual() {
+        return ACTUAL.get();
+    }
+
+    /**
+     * Ejecutar una operación dentro de un bulkhead y restaurar el anterior al terminar
+     */
+    public static <T> T ejecutar(Bulkhead bulkhead, Supplier<T> operacion) {
+        try (Ambito ambito = abrir(bulkhead)) {
+            return operacion.get();
+        }
+    }
+
+    /**
+     * Abrir un ámbito para usar con try-with-resources
+     */
+    public static Ambito abrir(Bulkhead bulkhead) {
+        Bulkhead anterior = ACTUAL.get();
+        ACTUAL.set(bulkhead);
+        return new Ambito(anterior);
+    }
+
+    public static final class Ambito implements AutoCloseable {
+
+        private final Bulkhead anterior;
+
+        private Ambito(Bulkhead anterior) {
+            this.anterior = anterior;
+        }
+
+        @Override
+        public void close() {
+            if (anterior == null) {
+                ACTUAL.remove();
+            } else {
+                ACTUAL.set(anterior);
+            }
+        }
+    }
+}
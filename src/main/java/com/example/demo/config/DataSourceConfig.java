@@ -0,0 +1,117 @@
+package com.example.demo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Configuración de DataSources con bulkheads
+ * Un pool Hikari por bulkhead (tamaño y timeout en bulkheads.*) sobre la misma BD,
+ * expuestos a JPA y JdbcTemplate detrás de un único DataSource de ruteo.
+ * Con replica.habilitada=true las transacciones de solo lectura van a la réplica
+ * El ruteo se decide por conexión: requiere spring.jpa.open-in-view=false
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("bulkheads.interactivo")
+    public HikariDataSource poolInteractivo(DataSourceProperties properties) {
+        return crearPool(properties, "interactivo");
+    }
+
+    @Bean
+    @ConfigurationProperties("bulkheads.auditoria")
+    public HikariDataSource poolAuditoria(DataSourceProperties properties) {
+        return crearPool(properties, "auditoria");
+    }
+
+    @Bean
+    @ConfigurationProperties("bulkheads.lectura-masiva")
+    public HikariDataSource poolLecturaMasiva(DataSourceProperties properties) {
+        return crearPool(properties, "lectura-masiva");
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "replica.habilitada", havingValue = "true")
+    @ConfigurationProperties("replica.pool")
+    public HikariDataSource poolReplica() {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName("replica");
+        pool.setReadOnly(true);
+        return pool;
+    }
+
+    @Bean
+    public GuardiaLecturaPropia guardiaLecturaPropia(
+            @Value("${replica.ventana-lectura-propia-ms:2000}") long ventanaMs) {
+        return new GuardiaLecturaPropia(Duration.ofMillis(ventanaMs));
+    }
+
+    @Bean
+    public BulkheadRoutingDataSource bulkheadRoutingDataSource(
+            @Qualifier("poolInteractivo") DataSource interactivo,
+            @Qualifier("poolAuditoria") DataSource auditoria,
+            @Qualifier("poolLecturaMasiva") DataSource lecturaMasiva) {
+        Map<Bulkhead, DataSource> pools = new EnumMap<>(Bulkhead.class);
+        pools.put(Bulkhead.INTERACTIVO, interactivo);
+        pools.put(Bulkhead.AUDITORIA, auditoria);
+        pools.put(Bulkhead.LECTURA_MASIVA, lecturaMasiva);
+        return new BulkheadRoutingDataSource(pools);
+    }
+
+    /**
+     * DataSource que usan JPA y JdbcTemplate
+     * La conexión real se pide recién en la primera sentencia (LazyConnectionDataSourceProxy),
+     * cuando ya se conocen el bulkhead y el flag readOnly de la transacción
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(BulkheadRoutingDataSource bulkheads,
+                                 @Qualifier("poolReplica") ObjectProvider<DataSource> replica,
+                                 GuardiaLecturaPropia guardia,
+                                 @Value("${spring.jpa.open-in-view:true}") boolean openInView) {
+        // Con open-in-view la primera conexión del request queda tomada hasta el final:
+        // las lecturas masivas posteriores no pasarían a su bulkhead
+        if (openInView) {
+            System.err.println("⚠️ spring.jpa.open-in-view=true: los bulkheads solo se aplican a la "
+                + "primera conexión de cada request");
+        }
+
+        DataSource replicaDs = replica.getIfAvailable();
+        if (replicaDs == null) {
+            return new LazyConnectionDataSourceProxy(bulkheads);
+        }
+
+        // Con open-in-view una lectura al principio del request dejaría la conexión de la
+        // réplica tomada y las escrituras siguientes del mismo request irían a la réplica
+        if (openInView) {
+            throw new IllegalStateException("replica.habilitada=true requiere spring.jpa.open-in-view=false");
+        }
+        LecturaEscrituraRoutingDataSource routing = new LecturaEscrituraRoutingDataSource(bulkheads, replicaDs, guardia);
+        routing.afterPropertiesSet();
+        System.out.println("✓ Réplica de lectura habilitada");
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    private HikariDataSource crearPool(DataSourceProperties properties, String nombre) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder()
+            .type(HikariDataSource.class)
+            .build();
+        pool.setPoolName("bulkhead-" + nombre);
+        return pool;
+    }
+}
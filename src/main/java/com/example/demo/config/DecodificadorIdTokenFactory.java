@@ -0,0 +1,67 @@
+package com.example.demo.config;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.security.oauth2.client.oidc.authentication.OidcIdTokenDecoderFactory;
+import org.springframework.security.oauth2.client.oidc.authentication.OidcIdTokenValidator;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.converter.ClaimTypeConverter;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.jwt.JwtClaimValidator;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtDecoderFactory;
+import org.springframework.security.oauth2.jwt.JwtTimestampValidator;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.util.StringUtils;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decodificadores de ID tokens (OIDC) con las claves del proveedor (JWKS) en memoria
+ * Las claves se descargan una vez por jwk-set-uri y se reutilizan en todos los logins;
+ * solo se vuelven a pedir si llega un token firmado con una clave desconocida
+ * (rotación de claves del proveedor). Valida firma, expiración y audiencia igual que
+ * OidcIdTokenDecoderFactory, y además el emisor: el issuer-uri del proveedor si está
+ * configurado, si no los emisores dados (seguridad.oidc.emisores)
+ */
+public class DecodificadorIdTokenFactory implements JwtDecoderFactory<ClientRegistration> {
+
+    // jwk-set-uri -> JWKS descargado
+    private final Cache claves = new ConcurrentMapCache("jwks");
+    // registrationId -> decodificador
+    private final Map<String, JwtDecoder> decodificadores = new ConcurrentHashMap<>();
+    private final Set<String> emisores;
+
+    public DecodificadorIdTokenFactory(Collection<String> emisores) {
+        this.emisores = Set.copyOf(emisores);
+    }
+
+    @Override
+    public JwtDecoder createDecoder(ClientRegistration registro) {
+        return decodificadores.computeIfAbsent(registro.getRegistrationId(), id -> crear(registro));
+    }
+
+    private JwtDecoder crear(ClientRegistration registro) {
+        String jwkSetUri = registro.getProviderDetails().getJwkSetUri();
+        if (!StringUtils.hasText(jwkSetUri)) {
+            throw new OAuth2AuthenticationException(new OAuth2Error("missing_signature_verifier",
+                "Falta jwk-set-uri para el proveedor " + registro.getRegistrationId(), null));
+        }
+
+        NimbusJwtDecoder decodificador = NimbusJwtDecoder.withJwkSetUri(jwkSetUri).cache(claves).build();
+        String issuerUri = registro.getProviderDetails().getIssuerUri();
+        Set<String> validos = StringUtils.hasText(issuerUri) ? Set.of(issuerUri) : emisores;
+        decodificador.setJwtValidator(new DelegatingOAuth2TokenValidator<>(
+            new JwtTimestampValidator(), new OidcIdTokenValidator(registro),
+            new JwtClaimValidator<Object>(JwtClaimNames.ISS, iss -> iss != null && validos.contains(iss.toString()))));
+        decodificador.setClaimSetConverter(
+            new ClaimTypeConverter(OidcIdTokenDecoderFactory.createDefaultClaimTypeConverters()));
+        return decodificador;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.demo.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Diagnóstico de pinning de hilos virtuales
+ * Escucha el evento JFR jdk.VirtualThreadPinned (un hilo virtual bloqueado
+ * dentro de un synchronized o código nativo, que retiene su hilo portador)
+ * y lo reporta con las primeras líneas del stack para ubicar el bloque
+ */
+public class DiagnosticoPinning {
+
+    private static final int FRAMES_A_MOSTRAR = 8;
+
+    private final long umbralMs;
+    private final AtomicLong eventos = new AtomicLong();
+    private RecordingStream stream;
+
+    public DiagnosticoPinning(long umbralMs) {
+        this.umbralMs = umbralMs;
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        stream = new RecordingStream();
+        stream.enable("jdk.VirtualThreadPinned")
+            .withThreshold(Duration.ofMillis(umbralMs))
+            .withStackTrace();
+        stream.onEvent("jdk.VirtualThreadPinned", this::reportar);
+        stream.startAsync();
+        System.out.println("🧵 Diagnóstico de pinning activo (umbral " + umbralMs + " ms)");
+    }
+
+    @PreDestroy
+    public void detener() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    /**
+     * Cantidad de eventos de pinning detectados desde el arranque
+     */
+    public long getEventos() {
+        return eventos.get();
+    }
+
+    private void reportar(RecordedEvent evento) {
+        eventos.incrementAndGet();
+        StringBuilder sb = new StringBuilder();
+        sb.append("⚠️ Hilo virtual PINNED durante ")
+          .append(evento.getDuration().toMillis()).append(" ms");
+
+        if (evento.getStackTrace() != null) {
+            int mostrados = 0;
+            for (RecordedFrame frame : evento.getStackTrace().getFrames()) {
+                if (mostrados++ >= FRAMES_A_MOSTRAR) {
+                    break;
+                }
+                sb.append("\n      at ")
+                  .append(frame.getMethod().getType().getName()).append('.')
+                  .append(frame.getMethod().getName())
+                  .append(':').append(frame.getLineNumber());
+            }
+        }
+        System.err.println(sb);
+    }
+}
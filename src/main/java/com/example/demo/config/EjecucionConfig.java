@@ -0,0 +1,53 @@
+package com.example.demo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+/**
+ * Configuración del modo de ejecución
+ * Con spring.threads.virtual.enabled=true Spring Boot atiende los requests de
+ * Tomcat, las tareas @Async (escritura de auditoría) y @Scheduled en hilos virtuales.
+ * En ese modo la concurrencia hacia la BD se limita con un semáforo del tamaño del pool
+ */
+@Configuration
+@EnableAsync
+public class EjecucionConfig {
+
+    /**
+     * Limitar la concurrencia de BD al tamaño del pool (solo en modo virtual)
+     * Miles de hilos virtuales esperan en un semáforo justo en vez de
+     * competir dentro de Hikari hasta el connection-timeout
+     */
+    @Bean
+    @ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+    public static BeanPostProcessor limitadorConexionesPostProcessor(
+            @Value("${ejecucion.virtual.espera-conexion-ms:20000}") long esperaMs) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                if (bean instanceof HikariDataSource hikari) {
+                    System.out.println("🧵 Limitador de conexiones para '" + beanName + "': "
+                        + hikari.getMaximumPoolSize() + " permisos");
+                    return new LimitadorConexionesDataSource(hikari, hikari.getMaximumPoolSize(), esperaMs);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Diagnóstico de pinning de hilos virtuales (bloques synchronized, código nativo)
+     */
+    @Bean
+    @ConditionalOnProperty(name = "ejecucion.virtual.diagnostico-pinning", havingValue = "true")
+    public DiagnosticoPinning diagnosticoPinning(
+            @Value("${ejecucion.virtual.umbral-pinning-ms:20}") long umbralMs) {
+        return new DiagnosticoPinning(umbralMs);
+    }
+}
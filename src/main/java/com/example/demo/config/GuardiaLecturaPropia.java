@@ -0,0 +1,56 @@
+package com.example.demo.config;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Guardia de consistencia "read-your-writes" para la réplica
+ * Después de que un usuario confirma una escritura, sus lecturas van a la
+ * primaria durante una ventana corta (mayor al retraso de replicación esperado)
+ */
+public class GuardiaLecturaPropia {
+
+    private final long ventanaNs;
+
+    // nombreUsuario -> instante (nanoTime) hasta el que debe leer de la primaria
+    private final Map<String, Long> pegadosAPrimaria = new ConcurrentHashMap<>();
+
+    public GuardiaLecturaPropia(Duration ventana) {
+        this.ventanaNs = ventana.toNanos();
+    }
+
+    /**
+     * Registrar que el usuario acaba de confirmar una escritura
+     */
+    public void registrarEscritura(String nombreUsuario) {
+        if (nombreUsuario != null && ventanaNs > 0) {
+            pegadosAPrimaria.put(nombreUsuario, System.nanoTime() + ventanaNs);
+        }
+    }
+
+    /**
+     * Verificar si las lecturas del usuario todavía deben ir a la primaria
+     */
+    public boolean debeLeerDePrimaria(String nombreUsuario) {
+        if (nombreUsuario == null) {
+            return false;
+        }
+        Long hasta = pegadosAPrimaria.get(nombreUsuario);
+        if (hasta == null) {
+            return false;
+        }
+        if (System.nanoTime() - hasta < 0) {
+            return true;
+        }
+        pegadosAPrimaria.remove(nombreUsuario, hasta);
+        return false;
+    }
+
+    /**
+     * Usuarios actualmente pegados a la primaria
+     */
+    public int getUsuariosPegados() {
+        return pegadosAPrimaria.size();
+    }
+}
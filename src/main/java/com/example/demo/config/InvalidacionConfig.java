@@ -0,0 +1,40 @@
+package com.example.demo.config;
+
+import com.example.demo.service.TransporteInvalidacion;
+import com.example.demo.service.TransporteLoopback;
+import com.example.demo.service.TransporteTablaCambios;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+
+/**
+ * Transporte del bus de invalidación entre nodos (invalidacion.transporte)
+ * - tabla: tabla cambios_cache en la BD compartida (varios nodos)
+ * - loopback: en memoria (un solo nodo o tests)
+ */
+@Configuration
+public class InvalidacionConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "invalidacion.transporte", havingValue = "tabla")
+    public TransporteInvalidacion transporteTablaCambios(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${invalidacion.tabla.lote:500}") int lote,
+            @Value("${invalidacion.tabla.margen-ids:100}") int margen,
+            @Value("${invalidacion.tabla.retencion-minutos:60}") long retencionMinutos) {
+        return new TransporteTablaCambios(jdbcTemplate, transactionManager, lote, margen,
+            Duration.ofMinutes(retencionMinutos));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "invalidacion.transporte", havingValue = "loopback", matchIfMissing = true)
+    public TransporteInvalidacion transporteLoopback() {
+        return new TransporteLoopback();
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.demo.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * DataSource que envía las transacciones de solo lectura a la réplica
+ * y todo lo demás a la primaria
+ * Debe usarse detrás de un LazyConnectionDataSourceProxy: así la conexión real
+ * se pide en la primera sentencia, cuando el flag readOnly ya está publicado
+ */
+public class LecturaEscrituraRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARIA = "PRIMARIA";
+    public static final String REPLICA = "REPLICA";
+
+    private final GuardiaLecturaPropia guardia;
+    private final AtomicLong lecturasReplica = new AtomicLong();
+    private final AtomicLong lecturasPrimaria = new AtomicLong();
+
+    public LecturaEscrituraRoutingDataSource(DataSource primaria, DataSource replica,
+                                             GuardiaLecturaPropia guardia) {
+        this.guardia = guardia;
+        Map<Object, Object> destinos = new HashMap<>();
+        destinos.put(PRIMARIA, primaria);
+        destinos.put(REPLICA, replica);
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(primaria);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String usuario = usuarioActual();
+
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (guardia.debeLeerDePrimaria(usuario)) {
+                lecturasPrimaria.incrementAndGet();
+                return PRIMARIA;
+            }
+            lecturasReplica.incrementAndGet();
+            return REPLICA;
+        }
+
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            registrarEscrituraAlConfirmar(usuario);
+        }
+        return PRIMARIA;
+    }
+
+    /**
+     * Lecturas de solo lectura servidas por la réplica
+     */
+    public long getLecturasReplica() {
+        return lecturasReplica.get();
+    }
+
+    /**
+     * Lecturas de solo lectura forzadas a la primaria por la guardia
+     */
+    public long getLecturasPrimaria() {
+        return lecturasPrimaria.get();
+    }
+
+    private void registrarEscrituraAlConfirmar(String usuario) {
+        if (usuario == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    guardia.registrarEscritura(usuario);
+                }
+            });
+        } else {
+            guardia.registrarEscritura(usuario);
+        }
+    }
+
+    private String usuarioActual() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : null;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.demo.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * DataSource que limita la cantidad de conexiones en uso con un semáforo justo
+ * El permiso se toma en getConnection() y se libera en Connection.close()
+ */
+public class LimitadorConexionesDataSource extends DelegatingDataSource {
+
+    private final Semaphore permisos;
+    private final int maximo;
+    private final long esperaMs;
+
+    public LimitadorConexionesDataSource(DataSource destino, int maximo, long esperaMs) {
+        super(destino);
+        this.permisos = new Semaphore(maximo, true);
+        this.maximo = maximo;
+        this.esperaMs = esperaMs;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        adquirir();
+        try {
+            return envolver(obtainTargetDataSource().getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        adquirir();
+        try {
+            return envolver(obtainTargetDataSource().getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Conexiones en uso (permisos tomados)
+     */
+    public int getEnUso() {
+        return maximo - permisos.availablePermits();
+    }
+
+    /**
+     * Hilos esperando un permiso
+     */
+    public int getEnEspera() {
+        return permisos.getQueueLength();
+    }
+
+    public int getMaximo() {
+        return maximo;
+    }
+
+    private void adquirir() throws SQLException {
+        try {
+            if (!permisos.tryAcquire(esperaMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException(
+                    "Sin conexiones disponibles después de " + esperaMs + " ms (" + maximo + " en uso)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrumpido esperando una conexión", e);
+        }
+    }
+
+    private Connection envolver(Connection conexion) {
+        AtomicBoolean liberada = new AtomicBoolean(false);
+        InvocationHandler handler = (proxy, method, args) -> invocar(conexion, liberada, method, args);
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, handler);
+    }
+
+    private Object invocar(Connection conexion, AtomicBoolean liberada, Method method, Object[] args)
+            throws Throwable {
+        if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+            try {
+                conexion.close();
+            } finally {
+                if (liberada.compareAndSet(false, true)) {
+                    permisos.release();
+                }
+            }
+            return null;
+        }
+        try {
+            return method.invoke(conexion, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
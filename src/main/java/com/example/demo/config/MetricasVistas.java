@@ -0,0 +1,77 @@
+package com.example.demo.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tiempo de renderizado por vista (Thymeleaf)
+ * postHandle corre antes de renderizar y afterCompletion después: la diferencia es
+ * el renderizado, sin contar el controller. Redirecciones y respuestas REST no cuentan.
+ * Ver /admin/metricas/vistas
+ */
+@Component
+public class MetricasVistas implements HandlerInterceptor {
+
+    private static final String INICIO = MetricasVistas.class.getName() + ".inicio";
+    private static final String VISTA = MetricasVistas.class.getName() + ".vista";
+
+    private final Map<String, Acumulado> porVista = new ConcurrentHashMap<>();
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        if (modelAndView == null || modelAndView.getViewName() == null
+                || modelAndView.getViewName().startsWith("redirect:")
+                || modelAndView.getViewName().startsWith("forward:")) {
+            return;
+        }
+        request.setAttribute(VISTA, modelAndView.getViewName());
+        request.setAttribute(INICIO, System.nanoTime());
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(INICIO) instanceof Long inicio && request.getAttribute(VISTA) instanceof String vista) {
+            porVista.computeIfAbsent(vista, v -> new Acumulado()).registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    /**
+     * Renderizados, tiempo medio y máximo por vista
+     */
+    public Map<String, Map<String, Object>> obtenerEstadisticas() {
+        Map<String, Map<String, Object>> estadisticas = new TreeMap<>();
+        porVista.forEach((vista, acumulado) -> estadisticas.put(vista, acumulado.resumen()));
+        return estadisticas;
+    }
+
+    private static final class Acumulado {
+        private final LongAdder renderizados = new LongAdder();
+        private final LongAdder nanosTotales = new LongAdder();
+        private final AtomicLong nanosMaximo = new AtomicLong();
+
+        private void registrar(long nanos) {
+            renderizados.increment();
+            nanosTotales.add(nanos);
+            nanosMaximo.accumulateAndGet(nanos, Math::max);
+        }
+
+        private Map<String, Object> resumen() {
+            long cantidad = renderizados.sum();
+            return Map.of(
+                "renderizados", cantidad,
+                "msPromedio", cantidad == 0 ? 0.0 : nanosTotales.sum() / 1_000_000.0 / cantidad,
+                "msMaximo", nanosMaximo.get() / 1_000_000.0);
+        }
+    }
+}
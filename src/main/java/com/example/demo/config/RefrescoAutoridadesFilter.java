@@ -0,0 +1,52 @@
+package com.example.demo.config;
+
+import com.example.demo.dto.PrincipalSesion;
+import com.example.demo.service.AutoridadesService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Refresca las autoridades de sesiones ya abiertas cuando cambian permisos o roles
+ * El camino normal es una comparación de la versión sellada en el principal contra
+ * la vigente; solo si quedó vieja se reconstruye la autenticación desde el catálogo
+ * en memoria y se guarda en la sesión. Va antes de la autorización del request
+ */
+public class RefrescoAutoridadesFilter extends OncePerRequestFilter {
+
+    private final AutoridadesService autoridadesService;
+    private final SecurityContextRepository repositorio = new HttpSessionSecurityContextRepository();
+
+    public RefrescoAutoridadesFilter(AutoridadesService autoridadesService) {
+        this.autoridadesService = autoridadesService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Authentication autenticacion = SecurityContextHolder.getContext().getAuthentication();
+        if (autenticacion != null && autenticacion.getPrincipal() instanceof PrincipalSesion principal
+                && principal.getVersionAutoridades() != autoridadesService.versionActual()) {
+            Authentication refrescada = autoridadesService.refrescar(autenticacion);
+            SecurityContext contexto = SecurityContextHolder.createEmptyContext();
+            contexto.setAuthentication(refrescada);
+            SecurityContextHolder.setContext(contexto);
+            repositorio.saveContext(contexto, request, response);
+
+            if (!refrescada.getAuthorities().equals(autenticacion.getAuthorities())) {
+                System.out.println("🔄 Autoridades actualizadas para " + refrescada.getName()
+                    + ": " + refrescada.getAuthorities());
+            }
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -1,28 +1,33 @@
 package com.example.demo.config;
 
 import com.example.demo.service.AuditoriaService;
+import com.example.demo.service.AutoridadesService;
 import com.example.demo.service.CustomOAuth2UserService;
+import com.example.demo.service.CustomOidcUserService;
 import com.example.demo.service.CustomUserDetailsService;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.jwt.JwtDecoderFactory;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
 import org.springframework.security.web.authentication.AuthenticationFailureHandler;
 import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
 import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Configuración de Spring Security con OAuth2 y Sistema de Auditoría
@@ -37,19 +42,47 @@ public class SecurityConfig {
     @Autowired
     private CustomOAuth2UserService customOAuth2UserService;
 
+    @Autowired
+    private CustomOidcUserService customOidcUserService;
+
     @Autowired
     private CustomUserDetailsService customUserDetailsService;
 
     @Autowired
     private AuditoriaService auditoriaService;
 
+    @Autowired
+    private AutoridadesService autoridadesService;
+
+    /**
+     * Decodificador de ID tokens OIDC con las claves JWKS del proveedor en memoria
+     * Google firma con "https://accounts.google.com" o "accounts.google.com" como emisor
+     */
+    @Bean
+    public JwtDecoderFactory<ClientRegistration> idTokenDecoderFactory(
+            @Value("${seguridad.oidc.emisores:https://accounts.google.com,accounts.google.com}") List<String> emisores) {
+        return new DecodificadorIdTokenFactory(emisores);
+    }
+
+    /**
+     * Encoder BCrypt con fuerza calibrada al arrancar según la latencia objetivo
+     * Los hashes guardados con menor fuerza se re-hashean en el próximo login
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${seguridad.bcrypt.calibrar:true}") boolean calibrar,
+            @Value("${seguridad.bcrypt.latencia-objetivo-ms:50}") long latenciaObjetivoMs,
+            @Value("${seguridad.bcrypt.fuerza-minima:10}") int fuerzaMinima,
+            @Value("${seguridad.bcrypt.fuerza-maxima:16}") int fuerzaMaxima,
+            @Value("${seguridad.bcrypt.muestras:5}") int muestras) {
+        int fuerza = calibrar
+            ? CalibradorBCrypt.calibrar(latenciaObjetivoMs, fuerzaMinima, fuerzaMaxima, muestras)
+            : fuerzaMinima;
+        return new BCryptPasswordEncoder(fuerza);
     }
 
     /**
-     * Handler para login exitoso - Registra en auditoría
+     * Handler para login exitoso
      */
     @Bean
     public AuthenticationSuccessHandler authenticationSuccessHandler() {
@@ -64,15 +97,7 @@ public class SecurityConfig {
                 System.out.println("🔐 LOGIN EXITOSO");
                 System.out.println("   Usuario: " + authentication.getName());
                 System.out.println("   Authorities: " + authentication.getAuthorities());
-                                            
-                // Registrar login exitoso en auditoría
-                String username = authentication.getName();
-                try {
-                    auditoriaService.registrarLoginExitoso(username, request);
-                    System.out.println("✓ LOGIN EXITOSO: " + username + " desde " + request.getRemoteAddr());
-                } catch (Exception e) {
-                    System.err.println("⚠️ Error al registrar auditoría de login: " + e.getMessage());
-                }
+                // La auditoría la registra AuditoriaLoginListener
                 
                 // Redirigir al dashboard
                 response.sendRedirect("/dashboard");
@@ -81,38 +106,16 @@ public class SecurityConfig {
     }
 
     /**
-     * Handler para login fallido - Registra en auditoría
+     * Handler para login fallido
      */
     @Bean
     public AuthenticationFailureHandler customAuthenticationFailureHandler() {
-        return new SimpleUrlAuthenticationFailureHandler("/login?error=true") {
-            @Override
-            public void onAuthenticationFailure(HttpServletRequest request, 
-                                               HttpServletResponse response, 
-                                               AuthenticationException exception) 
-                                               throws IOException, ServletException {
-                
-                // Obtener username del intento fallido
-                String username = request.getParameter("nombre");
-                
-                if (username != null && !username.isEmpty()) {
-                    try {
-                        String motivo = exception.getMessage() != null ? exception.getMessage() : "Credenciales incorrectas";
-                        auditoriaService.registrarLoginFallido(username, request, motivo);
-                        System.out.println("✗ LOGIN FALLIDO: " + username + " - Motivo: " + motivo);
-                    } catch (Exception e) {
-                        System.err.println("⚠️ Error al registrar auditoría de login fallido: " + e.getMessage());
-                    }
-                }
-                
-                // Continuar con el flujo normal
-                super.onAuthenticationFailure(request, response, exception);
-            }
-        };
+        // La auditoría del intento la registra AuditoriaLoginListener (evento de fallo de autenticación)
+        return new SimpleUrlAuthenticationFailureHandler("/login?error=true");
     }
 
     /**
-     * Handler para OAuth2 login exitoso - Registra en auditoría
+     * Handler para OAuth2 login exitoso
      */
     @Bean
     public AuthenticationSuccessHandler oauth2AuthenticationSuccessHandler() {
@@ -123,47 +126,8 @@ public class SecurityConfig {
                                                Authentication authentication) 
                                                throws IOException, ServletException {
                                             
-                // ✅ CORREGIR: Obtener el username correcto desde la BD
-                String oauthName = authentication.getName(); // Este es el "sub" o ID de Google
-                System.out.println("🔍 OAuth2 Success Handler:");
-                System.out.println("   authentication.getName(): " + oauthName);
-                System.out.println("   authentication.getPrincipal(): " + authentication.getPrincipal().getClass());
-                                            
-                // Obtener el email u otra info del principal
-                String username = oauthName;
-                                            
-                if (authentication.getPrincipal() instanceof OAuth2User) {
-                    OAuth2User oauth2User = (OAuth2User) authentication.getPrincipal();
-                    String email = oauth2User.getAttribute("email");
-                    String login = oauth2User.getAttribute("login");
-                    
-                    System.out.println("   Email: " + email);
-                    System.out.println("   Login: " + login);
-                    
-                    // ✅ Reconstruir el username como lo hicimos en CustomOAuth2UserService
-                    // Detectar provider (Google o GitHub)
-                    String provider = "google"; // default
-                    if (login != null && email == null) {
-                        provider = "github";
-                    }
-                    
-                    if ("google".equals(provider) && email != null) {
-                        username = "google_" + email;
-                    } else if ("github".equals(provider) && login != null) {
-                        username = "github_" + login;
-                    }
-                }
-                
-                System.out.println("   ✅ Username final para auditoría: " + username);
-                
-                // Registrar login OAuth2 exitoso
-                try {
-                    auditoriaService.registrarLoginOAuth2(username, "OAuth2", request);
-                    System.out.println("✓ OAUTH2 LOGIN EXITOSO: " + username + " desde " + request.getRemoteAddr());
-                } catch (Exception e) {
-                    System.err.println("⚠️ Error al registrar auditoría OAuth2: " + e.getMessage());
-                    e.printStackTrace();
-                }
+                // Un único registro OAUTH2_LOGIN por login: lo escribe AuditoriaLoginListener
+                System.out.println("🔍 OAuth2 Success Handler: " + authentication.getName());
                 
                 // Redirigir al dashboard
                 response.sendRedirect("/dashboard");
@@ -179,6 +143,9 @@ public class SecurityConfig {
         http
             // Configurar el UserDetailsService personalizado
             .userDetailsService(customUserDetailsService)
+
+            // Sesiones abiertas con permisos o rol viejos se refrescan antes de autorizar
+            .addFilterBefore(new RefrescoAutoridadesFilter(autoridadesService), AuthorizationFilter.class)
             
             // Configuración de autorización
             .authorizeHttpRequests(auth -> auth
@@ -204,11 +171,18 @@ public class SecurityConfig {
                 .loginPage("/login")
                 .userInfoEndpoint(userInfo -> userInfo
                     .userService(customOAuth2UserService)
+                    .oidcUserService(customOidcUserService) // ID token sin round-trip a user-info
                 )
                 .successHandler(oauth2AuthenticationSuccessHandler())
                 .failureUrl("/login?error=oauth")
             )
             
+            // Sesión en el almacén externo (SesionesConfig): al autenticarse se renueva
+            // el id y se conservan los atributos, igual con formulario que con OAuth2
+            .sessionManagement(sesiones -> sesiones
+                .sessionFixation(fijacion -> fijacion.changeSessionId())
+            )
+
             // Configuración de logout CON AUDITORÍA
             .logout(logout -> logout
                 .logoutUrl("/logout")
@@ -227,7 +201,7 @@ public class SecurityConfig {
                 })
                 .invalidateHttpSession(true)
                 .clearAuthentication(true)
-                .deleteCookies("JSESSIONID")
+                .deleteCookies("SESSION") // cookie de Spring Session (ver SesionesConfig)
                 .permitAll()
             )
             
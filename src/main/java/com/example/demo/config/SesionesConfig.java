@@ -0,0 +1,47 @@
+package com.example.demo.config;
+
+import com.example.demo.service.RepositorioSesionesJdbc;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.session.MapSessionRepository;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Almacén de sesiones HTTP (sesiones.almacen), fuera del contenedor de servlets
+ * - jdbc: tablas sesiones/sesion_atributos en la BD compartida (varios nodos, sobrevive reinicios)
+ * - memoria: mapa en el heap del nodo (un solo nodo o tests)
+ * El login con formulario y OAuth2 guardan su estado (contexto de seguridad, pedido
+ * de autorización OAuth2, request guardado) como atributos de esta sesión
+ */
+@Configuration
+@EnableSpringHttpSession
+public class SesionesConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "sesiones.almacen", havingValue = "jdbc")
+    public RepositorioSesionesJdbc repositorioSesionesJdbc(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${server.servlet.session.timeout:30m}") Duration inactividadMaxima,
+            @Value("${sesiones.escritura-acceso-ms:10000}") long escrituraAccesoMs,
+            @Value("${sesiones.barrido-lote:500}") int loteBarrido) {
+        return new RepositorioSesionesJdbc(jdbcTemplate, transactionManager, inactividadMaxima,
+            Duration.ofMillis(escrituraAccesoMs), loteBarrido, getClass().getClassLoader());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "sesiones.almacen", havingValue = "memoria", matchIfMissing = true)
+    public MapSessionRepository repositorioSesionesMemoria(
+            @Value("${server.servlet.session.timeout:30m}") Duration inactividadMaxima) {
+        MapSessionRepository repositorio = new MapSessionRepository(new ConcurrentHashMap<>());
+        repositorio.setDefaultMaxInactiveInterval(inactividadMaxima);
+        return repositorio;
+    }
+}
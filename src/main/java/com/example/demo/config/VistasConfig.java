@@ -0,0 +1,22 @@
+package com.example.demo.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Configuración de las vistas: métricas de renderizado por vista (MetricasVistas)
+ * La caché de plantillas es spring.thymeleaf.cache; los fragmentos por rol, CacheFragmentosRol
+ */
+@Configuration
+public class VistasConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private MetricasVistas metricasVistas;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(metricasVistas);
+    }
+}
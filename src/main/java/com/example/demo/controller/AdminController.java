@@ -1,30 +1,54 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.PaginaUsuariosDTO;
+import com.example.demo.dto.ReasignacionMasivaDTO;
+import com.example.demo.dto.ResultadoImportacionDTO;
+import com.example.demo.dto.ResultadoReasignacionDTO;
 import com.example.demo.model.Rol;
 import com.example.demo.model.Usuario;
 import com.example.demo.service.AuditoriaService;
+import com.example.demo.service.ImportacionUsuariosService;
+import com.example.demo.service.IndiceNombresUsuario;
+import com.example.demo.service.ReasignacionRolesService;
 import com.example.demo.service.SistemaLogin;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 @Controller
 public class AdminController {
 
+    private static final int TAMANIO_SUGERENCIAS_MAXIMO = 50;
+
     @Autowired
     private SistemaLogin sistemaLogin;
 
     @Autowired
     private AuditoriaService auditoriaService;
 
+    @Autowired
+    private ReasignacionRolesService reasignacionRolesService;
+
+    @Autowired
+    private ImportacionUsuariosService importacionUsuariosService;
+
+    @Autowired
+    private IndiceNombresUsuario indiceNombresUsuario;
+
     /**
      * Endpoint para actualizar roles de usuarios
      * Solo accesible por administradores
@@ -40,13 +64,7 @@ public class AdminController {
 
         try {
             // Buscar el usuario a modificar
-            Optional<Usuario> usuarioOpt = sistemaLogin.obtenerUsuarioPorNombre(
-                    sistemaLogin.obtenerTodosLosUsuarios().stream()
-                            .filter(u -> u.getId().equals(userId))
-                            .findFirst()
-                            .orElseThrow()
-                            .getNombreUsuario()
-            );
+            Optional<Usuario> usuarioOpt = sistemaLogin.obtenerUsuarioPorId(userId);
 
             if (usuarioOpt.isEmpty()) {
                 redirectAttributes.addFlashAttribute("error", "Usuario no encontrado");
@@ -71,11 +89,8 @@ public class AdminController {
             boolean actualizado = sistemaLogin.actualizarRolUsuario(userId, nuevoRolId);
 
             if (actualizado) {
-                // Obtener el nuevo rol (usando variable final)
-                final Long rolIdFinal = nuevoRolId;
-                Optional<Rol> nuevoRolOpt = sistemaLogin.obtenerTodosLosRoles().stream()
-                        .filter(r -> r.getId().equals(rolIdFinal))
-                        .findFirst();
+                // Obtener el nuevo rol
+                Optional<Rol> nuevoRolOpt = sistemaLogin.obtenerRolPorId(nuevoRolId);
 
                 String rolNuevo = nuevoRolOpt.map(r -> r.nombre).orElse("Desconocido");
 
@@ -112,4 +127,114 @@ public class AdminController {
 
         return "redirect:/dashboard";
     }
+
+    /**
+     * API REST: Directorio de usuarios paginado (lo carga el dashboard de a páginas)
+     * Paginación por clave: la próxima página se pide con despuesDe = siguiente
+     */
+    @GetMapping("/admin/usuarios")
+    @PreAuthorize("hasRole('ADMIN')")
+    @ResponseBody
+    public ResponseEntity<?> listarUsuarios(
+            @RequestParam(required = false) String despuesDe,
+            @RequestParam(required = false) Long rolId,
+            @RequestParam(defaultValue = "asc") String orden,
+            @RequestParam(defaultValue = "50") int tamanio) {
+
+        try {
+            PaginaUsuariosDTO pagina = sistemaLogin.obtenerPaginaUsuarios(despuesDe, rolId, orden, tamanio);
+            return ResponseEntity.ok(pagina);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * API REST: Autocompletar nombres de usuario por prefijo (índice en memoria)
+     * No distingue mayúsculas ni acentos
+     */
+    @GetMapping("/admin/usuarios/sugerir")
+    @PreAuthorize("hasRole('ADMIN')")
+    @ResponseBody
+    public ResponseEntity<?> sugerirUsuarios(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limite) {
+
+        if (limite < 1 || limite > TAMANIO_SUGERENCIAS_MAXIMO) {
+            return ResponseEntity.badRequest().body(Map.of("error",
+                "El límite debe estar entre 1 y " + TAMANIO_SUGERENCIAS_MAXIMO));
+        }
+        if (q.isBlank()) {
+            return ResponseEntity.ok(List.of());
+        }
+        return ResponseEntity.ok(indiceNombresUsuario.sugerir(q.strip(), limite));
+    }
+
+    /**
+     * API REST: Reasignación masiva de roles
+     * Acepta pares (usuarioId, rolId) o un filtro rolOrigenId → rolDestinoId
+     * y aplica todo en una sola transacción
+     */
+    @PostMapping("/admin/usuarios/roles/masivo")
+    @PreAuthorize("hasRole('ADMIN')")
+    @ResponseBody
+    public ResponseEntity<?> reasignarRolesMasivo(
+            @RequestBody ReasignacionMasivaDTO solicitud,
+            Authentication authentication,
+            HttpServletRequest request) {
+
+        String ip = auditoriaService.obtenerIPReal(request);
+        String userAgent = request.getHeader("User-Agent");
+
+        try {
+            ResultadoReasignacionDTO resultado;
+            if (solicitud.esPorFiltro()) {
+                resultado = reasignacionRolesService.reasignarPorRol(
+                        solicitud.getRolOrigenId(), solicitud.getRolDestinoId(),
+                        authentication.getName(), ip, userAgent);
+            } else {
+                resultado = reasignacionRolesService.reasignar(
+                        solicitud.getAsignaciones(), authentication.getName(), ip, userAgent);
+            }
+            return ResponseEntity.ok(resultado);
+
+        } catch (IllegalArgumentException e) {
+            auditoriaService.registrarEvento(
+                    authentication.getName(),
+                    "CAMBIO_ROL_FALLIDO",
+                    "/admin/usuarios/roles/masivo",
+                    request,
+                    com.example.demo.model.Auditoria.Resultado.FALLIDO,
+                    "Error: " + e.getMessage()
+            );
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * API REST: Importación masiva de usuarios
+     * El cuerpo del request es el archivo (CSV o NDJSON) y se procesa en streaming
+     */
+    @PostMapping("/admin/usuarios/importar")
+    @PreAuthorize("hasRole('ADMIN')")
+    @ResponseBody
+    public ResultadoImportacionDTO importarUsuarios(
+            @RequestParam(defaultValue = "csv") String formato,
+            Authentication authentication,
+            HttpServletRequest request) throws IOException {
+
+        ResultadoImportacionDTO resultado = importacionUsuariosService.importar(request.getInputStream(), formato);
+
+        auditoriaService.registrarEvento(
+                authentication.getName(),
+                "IMPORTAR_USUARIOS",
+                "/admin/usuarios/importar?formato=" + formato,
+                request,
+                com.example.demo.model.Auditoria.Resultado.EXITOSO,
+                String.format("Importados: %d, errores: %d, %.1f filas/s",
+                        resultado.getImportados(), resultado.getTotalErrores(), resultado.getFilasPorSegundo())
+        );
+
+        return resultado;
+    }
 }
@@ -1,5 +1,7 @@
 package com.example.demo.controller;
 
+import com.example.demo.config.Bulkhead;
+import com.example.demo.config.ContextoBulkhead;
 import com.example.demo.model.Auditoria;
 import com.example.demo.model.Usuario;
 import com.example.demo.service.AuditoriaService;
@@ -125,49 +127,52 @@ public class AuditoriaController {
             request
         );
 
-        // Obtener eventos con filtros aplicados
-        Page<Auditoria> eventos;
-        int maxRegistros = 10000; // Límite de registros para exportación
+        // La exportación usa su propio pool para no competir con los logins
+        try (ContextoBulkhead.Ambito ambito = ContextoBulkhead.abrir(Bulkhead.LECTURA_MASIVA)) {
+            // Obtener eventos con filtros aplicados
+            Page<Auditoria> eventos;
+            int maxRegistros = 10000; // Límite de registros para exportación
         
-        if (filtroUsuario != null && !filtroUsuario.isEmpty()) {
-            eventos = auditoriaService.buscarPorUsuario(filtroUsuario, 0, maxRegistros);
-        } else if (filtroAccion != null && !filtroAccion.isEmpty()) {
-            eventos = auditoriaService.buscarPorAccion(filtroAccion, 0, maxRegistros);
-        } else if (filtroResultado != null && !filtroResultado.isEmpty()) {
-            Auditoria.Resultado resultado = Auditoria.Resultado.valueOf(filtroResultado);
-            eventos = auditoriaService.buscarPorResultado(resultado, 0, maxRegistros);
-        } else {
-            eventos = auditoriaService.obtenerTodosLosEventos(0, maxRegistros);
-        }
+            if (filtroUsuario != null && !filtroUsuario.isEmpty()) {
+                eventos = auditoriaService.buscarPorUsuario(filtroUsuario, 0, maxRegistros);
+            } else if (filtroAccion != null && !filtroAccion.isEmpty()) {
+                eventos = auditoriaService.buscarPorAccion(filtroAccion, 0, maxRegistros);
+            } else if (filtroResultado != null && !filtroResultado.isEmpty()) {
+                Auditoria.Resultado resultado = Auditoria.Resultado.valueOf(filtroResultado);
+                eventos = auditoriaService.buscarPorResultado(resultado, 0, maxRegistros);
+            } else {
+                eventos = auditoriaService.obtenerTodosLosEventos(0, maxRegistros);
+            }
 
-        // Configurar respuesta HTTP para descarga
-        String filename = "auditoria_" + java.time.LocalDateTime.now().format(FILENAME_FORMATTER) + ".csv";
+            // Configurar respuesta HTTP para descarga
+            String filename = "auditoria_" + java.time.LocalDateTime.now().format(FILENAME_FORMATTER) + ".csv";
         
-        response.setContentType("text/csv; charset=UTF-8");
-        response.setHeader("Content-Disposition", "attachment; filename=\"" + filename + "\"");
+            response.setContentType("text/csv; charset=UTF-8");
+            response.setHeader("Content-Disposition", "attachment; filename=\"" + filename + "\"");
         
-        // Agregar BOM para UTF-8 (para que Excel lo detecte correctamente)
-        response.getWriter().write('\ufeff');
+            // Agregar BOM para UTF-8 (para que Excel lo detecte correctamente)
+            response.getWriter().write('\ufeff');
         
-        // Escribir CSV
-        try (PrintWriter writer = response.getWriter()) {
-            // Encabezados CSV
-            writer.println("ID,Fecha,Hora,Usuario,Rol,Acción,Recurso,IP,Resultado,Detalles");
+            // Escribir CSV
+            try (PrintWriter writer = response.getWriter()) {
+                // Encabezados CSV
+                writer.println("ID,Fecha,Hora,Usuario,Rol,Acción,Recurso,IP,Resultado,Detalles");
             
-            // Datos
-            for (Auditoria evento : eventos.getContent()) {
-                writer.printf("%d,%s,%s,%s,%s,%s,%s,%s,%s,%s%n",
-                    evento.getId(),
-                    evento.getFechaHora().format(DATE_FORMATTER),
-                    evento.getFechaHora().format(TIME_FORMATTER),
-                    escapeCsv(evento.getUsuario().getNombreUsuario()),
-                    escapeCsv(evento.getUsuario().getRol().getNombre()),
-                    escapeCsv(evento.getAccion()),
-                    escapeCsv(evento.getRecurso()),
-                    escapeCsv(evento.getIpAddress()),
-                    evento.getResultado().name(),
-                    escapeCsv(evento.getDetalles())
-                );
+                // Datos
+                for (Auditoria evento : eventos.getContent()) {
+                    writer.printf("%d,%s,%s,%s,%s,%s,%s,%s,%s,%s%n",
+                        evento.getId(),
+                        evento.getFechaHora().format(DATE_FORMATTER),
+                        evento.getFechaHora().format(TIME_FORMATTER),
+                        escapeCsv(evento.getUsuario().getNombreUsuario()),
+                        escapeCsv(evento.getUsuario().getRol().getNombre()),
+                        escapeCsv(evento.getAccion()),
+                        escapeCsv(evento.getRecurso()),
+                        escapeCsv(evento.getIpAddress()),
+                        evento.getResultado().name(),
+                        escapeCsv(evento.getDetalles())
+                    );
+                }
             }
         }
     }
@@ -233,7 +238,7 @@ public class AuditoriaController {
             request
         );
 
-        return auditoriaService.obtenerTodosLosEventos(page, size);
+        return auditoriaService.obtenerEventosParaApi(page, size);
     }
 
     /**
@@ -159,7 +159,7 @@ public class AuthController {
             rolNombre = "Personal";
         }
         
-        Optional<Rol> rolOpt = sistema.obtenerRolPorNombre(rolNombre);
+        Optional<Rol> rolOpt = sistema.obtenerRolPorDefecto(rolNombre);
         
         if (rolOpt.isEmpty()) {
             model.addAttribute("error", "Error en la asignación de rol");
@@ -1,9 +1,11 @@
 package com.example.demo.controller;
 
-import com.example.demo.model.Auditoria;
-import com.example.demo.model.Rol;
+import com.example.demo.dto.EstadisticasDashboardDTO;
+import com.example.demo.dto.RolDTO;
 import com.example.demo.model.Usuario;
 import com.example.demo.service.AuditoriaService;
+import com.example.demo.service.EstadisticasDashboardService;
+import com.example.demo.service.RolCatalog;
 import com.example.demo.service.SistemaLogin;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,7 +16,6 @@ import org.springframework.web.bind.annotation.GetMapping;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Controller
 public class DashboardController {
@@ -25,6 +26,12 @@ public class DashboardController {
     @Autowired
     private AuditoriaService auditoriaService;
 
+    @Autowired
+    private RolCatalog rolCatalog;
+
+    @Autowired
+    private EstadisticasDashboardService estadisticasDashboardService;
+
     @GetMapping("/dashboard")
     public String mostrarDashboard(Authentication authentication, Model model, HttpServletRequest request) {
         String nombreUsuario = authentication.getName();
@@ -50,41 +57,26 @@ public class DashboardController {
         model.addAttribute("usuario", usuario);
         model.addAttribute("nombreRol", usuario.getRol().nombre);
         
-        // Obtener permisos del usuario
-        List<String> permisos = usuario.getRol().permisos != null
-            ? usuario.getRol().permisos.stream()
-                .map(p -> p.nombre)
-                .collect(Collectors.toList())
-            : List.of();
-        model.addAttribute("permisos", permisos);
-        
-        // Autorización
-        String autorizacion = sistemaLogin.autorizar(usuario);
-        model.addAttribute("autorizacion", autorizacion);
+        // Autorización: solo la línea del usuario; permisos, texto del rol y funcionalidades
+        // salen de fragmentos cacheados por rol y versión del catálogo (ver CacheFragmentosRol)
+        model.addAttribute("autorizacion", sistemaLogin.encabezadoAutorizacion(usuario));
         
         // DATOS PARA ADMINISTRADORES Y SUPERVISORES
         String nombreRol = usuario.getRol().nombre;
         if (nombreRol.equals("Administrador del Sistema") || nombreRol.equals("Supervisor")) {
             
-            // Obtener últimos 10 eventos del sistema
-            List<Auditoria> ultimosEventos = auditoriaService.obtenerEventosDeHoy();
-            if (ultimosEventos.size() > 10) {
-                ultimosEventos = ultimosEventos.subList(0, 10);
-            }
-            model.addAttribute("ultimosEventos", ultimosEventos);
-            
-            // Estadísticas
-            model.addAttribute("eventosHoy", auditoriaService.obtenerEventosDeHoy().size());
-            model.addAttribute("totalEventos", auditoriaService.obtenerTodosLosEventos(0, 1).getTotalElements());
-            model.addAttribute("usuariosActivos", sistemaLogin.obtenerTodosLosUsuarios().size());
+            // Últimos eventos y estadísticas: una consulta, compartida por unos segundos
+            EstadisticasDashboardDTO estadisticas = estadisticasDashboardService.obtener();
+            model.addAttribute("ultimosEventos", estadisticas.getUltimosEventos());
+            model.addAttribute("eventosHoy", estadisticas.getEventosHoy());
+            model.addAttribute("totalEventos", estadisticas.getTotalEventos());
+            model.addAttribute("usuariosActivos", estadisticas.getUsuarios());
         }
         
         // DATOS SOLO PARA ADMINISTRADORES
+        // Los usuarios no se cargan acá: la tabla pide páginas a /admin/usuarios
         if (nombreRol.equals("Administrador del Sistema")) {
-            List<Usuario> todosLosUsuarios = sistemaLogin.obtenerTodosLosUsuarios();
-            List<Rol> todosLosRoles = sistemaLogin.obtenerTodosLosRoles();
-            
-            model.addAttribute("todosLosUsuarios", todosLosUsuarios);
+            List<RolDTO> todosLosRoles = rolCatalog.actual().getRoles();
             model.addAttribute("todosLosRoles", todosLosRoles);
         }
         
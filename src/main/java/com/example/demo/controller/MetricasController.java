@@ -0,0 +1,127 @@
+package com.example.demo.controller;
+
+import com.example.demo.config.BulkheadRoutingDataSource;
+import com.example.demo.config.MetricasVistas;
+import com.example.demo.service.BusInvalidacion;
+import com.example.demo.service.CacheFragmentosRol;
+import com.example.demo.service.CacheCatalogoService;
+import com.example.demo.service.CustomOidcUserService;
+import com.example.demo.service.EstadisticasDashboardService;
+import com.example.demo.service.FiltroNombresUsuario;
+import com.example.demo.service.IndiceNombresUsuario;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * API REST de métricas internas de rendimiento
+ * Solo accesible por Administradores del Sistema
+ */
+@RestController
+@RequestMapping("/admin/metricas")
+@PreAuthorize("hasRole('ADMIN')")
+public class MetricasController {
+
+    @Autowired
+    private BulkheadRoutingDataSource bulkheadRoutingDataSource;
+
+    @Autowired
+    private CacheCatalogoService cacheCatalogoService;
+
+    @Autowired
+    private BusInvalidacion busInvalidacion;
+
+    @Autowired
+    private CustomOidcUserService customOidcUserService;
+
+    @Autowired
+    private FiltroNombresUsuario filtroNombresUsuario;
+
+    @Autowired
+    private IndiceNombresUsuario indiceNombresUsuario;
+
+    @Autowired
+    private EstadisticasDashboardService estadisticasDashboardService;
+
+    @Autowired
+    private MetricasVistas metricasVistas;
+
+    @Autowired
+    private CacheFragmentosRol cacheFragmentosRol;
+
+    /**
+     * Saturación de cada pool de conexiones (bulkhead)
+     */
+    @GetMapping("/bulkheads")
+    public Map<String, Map<String, Object>> obtenerSaturacionBulkheads() {
+        return bulkheadRoutingDataSource.obtenerSaturacion();
+    }
+
+    /**
+     * Tasa de aciertos de la caché de segundo nivel por región
+     */
+    @GetMapping("/cache")
+    public Map<String, Map<String, Object>> obtenerEstadisticasCache() {
+        return cacheCatalogoService.obtenerEstadisticas();
+    }
+
+    /**
+     * Eventos publicados y aplicados por el bus de invalidación entre nodos
+     */
+    @GetMapping("/invalidacion")
+    public Map<String, Object> obtenerEstadisticasInvalidacion() {
+        return busInvalidacion.obtenerEstadisticas();
+    }
+
+    /**
+     * Logins OIDC resueltos con el ID token y los que necesitaron consultar user-info
+     */
+    @GetMapping("/oidc")
+    public Map<String, Object> obtenerEstadisticasOidc() {
+        return customOidcUserService.obtenerEstadisticas();
+    }
+
+    /**
+     * Filtro de nombres de usuario: memoria, tasa de falsos positivos y consultas evitadas
+     */
+    @GetMapping("/filtro-usuarios")
+    public Map<String, Object> obtenerEstadisticasFiltroUsuarios() {
+        return filtroNombresUsuario.obtenerEstadisticas();
+    }
+
+    /**
+     * Índice de prefijos de nombres: tamaño, memoria y tiempo medio de búsqueda
+     */
+    @GetMapping("/indice-usuarios")
+    public Map<String, Object> obtenerEstadisticasIndiceUsuarios() {
+        return indiceNombresUsuario.obtenerEstadisticas();
+    }
+
+    /**
+     * Estadísticas del dashboard: aciertos de la caché y recálculos compartidos
+     */
+    @GetMapping("/dashboard")
+    public Map<String, Object> obtenerEstadisticasDashboard() {
+        return estadisticasDashboardService.obtenerEstadisticas();
+    }
+
+    /**
+     * Tiempo de renderizado por vista
+     */
+    @GetMapping("/vistas")
+    public Map<String, Map<String, Object>> obtenerEstadisticasVistas() {
+        return metricasVistas.obtenerEstadisticas();
+    }
+
+    /**
+     * Fragmentos cacheados por rol: aciertos y renderizados
+     */
+    @GetMapping("/fragmentos")
+    public Map<String, Object> obtenerEstadisticasFragmentos() {
+        return cacheFragmentosRol.obtenerEstadisticas();
+    }
+}
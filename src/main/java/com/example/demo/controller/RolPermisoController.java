@@ -5,19 +5,26 @@ import com.example.demo.model.Permiso;
 import com.example.demo.model.Rol;
 import com.example.demo.model.Usuario;
 import com.example.demo.service.AuditoriaService;
+import com.example.demo.service.RolCatalog;
 import com.example.demo.service.RolPermisoService;
 import com.example.demo.service.SistemaLogin;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -42,11 +49,17 @@ public class RolPermisoController {
     @Autowired
     private AuditoriaService auditoriaService;
 
+    @Autowired
+    private RolCatalog rolCatalog;
+
     /**
      * Vista principal de gestión
+     * Roles y permisos salen de la instantánea del catálogo; su versión y la sesión
+     * viajan como ETag para que el navegador revalide con 304 mientras no cambien
     */
     @GetMapping
-    public String verGestion(Authentication authentication, Model model, HttpServletRequest request) {
+    public String verGestion(Authentication authentication, Model model, HttpServletRequest request,
+                             HttpServletResponse response, WebRequest webRequest) {
         try {
             auditoriaService.registrarEvento(
                 authentication.getName(),
@@ -54,6 +67,19 @@ public class RolPermisoController {
                 "/admin/roles-permisos",
                 request
             );
+
+            RolCatalog.Instantanea catalogo = rolCatalog.actual();
+
+            // Con mensajes flash la página no es la misma aunque el catálogo no cambie
+            boolean hayMensajes = model.containsAttribute("mensaje") || model.containsAttribute("error");
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+            // La página lleva el token CSRF de la sesión: con otra sesión (nuevo login) el
+            // ETag cambia y el navegador no reutiliza formularios con un token vencido
+            String sesion = request.getSession().getId();
+            String etag = catalogo.etagPara(Integer.toHexString((authentication.getName() + "|" + sesion).hashCode()));
+            if (!hayMensajes && webRequest.checkNotModified(etag)) {
+                return null; // 304 Not Modified
+            }
         
             Optional<Usuario> usuarioOpt = sistemaLogin.obtenerUsuarioPorNombre(authentication.getName());
             if (usuarioOpt.isEmpty()) {
@@ -61,27 +87,39 @@ public class RolPermisoController {
             }
         
             Usuario usuario = usuarioOpt.get();
-            
-            // Obtener DTOs y datos necesarios
-            List<RolDTO> rolesDTO = rolPermisoService.obtenerTodosLosRolesDTO();
-            List<Permiso> permisos = rolPermisoService.obtenerTodosLosPermisos();
-        
+
             model.addAttribute("usuario", usuario);
             model.addAttribute("nombreRol", usuario.getRol().nombre);
-            model.addAttribute("roles", rolesDTO); // ← CAMBIAR: Ya no es "rolesDTO", es "roles"
-            model.addAttribute("permisos", permisos);
+            model.addAttribute("roles", catalogo.getRoles());
+            model.addAttribute("permisos", catalogo.getPermisos());
         
             return "roles-permisos";
             
         } catch (Exception e) {
             e.printStackTrace();
             System.err.println("❌ ERROR: " + e.getMessage());
-            e.printStackTrace();
             model.addAttribute("error", "Error al cargar roles: " + e.getMessage());
             return "redirect:/dashboard?error=No se pudo cargar la gestión de roles";
         }
     }
 
+    /**
+     * API REST: Cantidad de usuarios por rol (desde la instantánea del catálogo)
+     */
+    @GetMapping("/api/uso")
+    @ResponseBody
+    public List<Map<String, Object>> obtenerUsoDeRoles() {
+        List<Map<String, Object>> resumen = new ArrayList<>();
+        for (RolDTO rol : rolCatalog.actual().getRoles()) {
+            Map<String, Object> fila = new LinkedHashMap<>();
+            fila.put("rolId", rol.getId());
+            fila.put("nombre", rol.getNombre());
+            fila.put("usuarios", rol.getCantidadUsuarios());
+            resumen.add(fila);
+        }
+        return resumen;
+    }
+
     // ==================== ROLES ====================
 
     /**
@@ -205,6 +243,86 @@ public class RolPermisoController {
         return "redirect:/admin/roles-permisos";
     }
 
+    /**
+     * Hacer que un rol herede los permisos de otro
+     */
+    @PostMapping("/roles/{rolId}/herencia")
+    public String agregarHerencia(
+            @PathVariable Long rolId,
+            @RequestParam Long padreId,
+            Authentication authentication,
+            HttpServletRequest request,
+            RedirectAttributes redirectAttributes) {
+
+        try {
+            rolPermisoService.agregarHerencia(rolId, padreId);
+
+            auditoriaService.registrarEvento(
+                authentication.getName(),
+                "AGREGAR_HERENCIA_ROL",
+                "/admin/roles-permisos/roles/" + rolId + "/herencia",
+                request,
+                com.example.demo.model.Auditoria.Resultado.EXITOSO,
+                "Rol " + rolId + " hereda de " + padreId
+            );
+
+            redirectAttributes.addFlashAttribute("mensaje", "Herencia agregada exitosamente");
+        } catch (Exception e) {
+            auditoriaService.registrarEvento(
+                authentication.getName(),
+                "AGREGAR_HERENCIA_ROL",
+                "/admin/roles-permisos/roles/" + rolId + "/herencia",
+                request,
+                com.example.demo.model.Auditoria.Resultado.FALLIDO,
+                "Error: " + e.getMessage()
+            );
+
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+
+        return "redirect:/admin/roles-permisos";
+    }
+
+    /**
+     * Quitar la herencia directa de un rol sobre otro
+     */
+    @PostMapping("/roles/{rolId}/herencia/eliminar")
+    public String quitarHerencia(
+            @PathVariable Long rolId,
+            @RequestParam Long padreId,
+            Authentication authentication,
+            HttpServletRequest request,
+            RedirectAttributes redirectAttributes) {
+
+        try {
+            rolPermisoService.quitarHerencia(rolId, padreId);
+
+            auditoriaService.registrarEvento(
+                authentication.getName(),
+                "QUITAR_HERENCIA_ROL",
+                "/admin/roles-permisos/roles/" + rolId + "/herencia/eliminar",
+                request,
+                com.example.demo.model.Auditoria.Resultado.EXITOSO,
+                "Rol " + rolId + " ya no hereda de " + padreId
+            );
+
+            redirectAttributes.addFlashAttribute("mensaje", "Herencia quitada exitosamente");
+        } catch (Exception e) {
+            auditoriaService.registrarEvento(
+                authentication.getName(),
+                "QUITAR_HERENCIA_ROL",
+                "/admin/roles-permisos/roles/" + rolId + "/herencia/eliminar",
+                request,
+                com.example.demo.model.Auditoria.Resultado.FALLIDO,
+                "Error: " + e.getMessage()
+            );
+
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+
+        return "redirect:/admin/roles-permisos";
+    }
+
     // ==================== PERMISOS ====================
 
     /**
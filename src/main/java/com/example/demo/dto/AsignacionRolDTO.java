@@ -0,0 +1,24 @@
+package com.example.demo.dto;
+
+/**
+ * Par (usuario, rol) para la reasignación masiva de roles
+ */
+public class AsignacionRolDTO {
+    private Long usuarioId;
+    private Long rolId;
+
+    public AsignacionRolDTO() {
+    }
+
+    public AsignacionRolDTO(Long usuarioId, Long rolId) {
+        this.usuarioId = usuarioId;
+        this.rolId = rolId;
+    }
+
+    // Getters y setters
+    public Long getUsuarioId() { return usuarioId; }
+    public void setUsuarioId(Long usuarioId) { this.usuarioId = usuarioId; }
+
+    public Long getRolId() { return rolId; }
+    public void setRolId(Long rolId) { this.rolId = rolId; }
+}
@@ -0,0 +1,21 @@
+package com.example.demo.dto;
+
+/**
+ * Error de una fila durante la importación masiva de usuarios
+ */
+public class ErrorFilaDTO {
+    private long linea;
+    private String nombreUsuario;
+    private String motivo;
+
+    public ErrorFilaDTO(long linea, String nombreUsuario, String motivo) {
+        this.linea = linea;
+        this.nombreUsuario = nombreUsuario;
+        this.motivo = motivo;
+    }
+
+    // Getters
+    public long getLinea() { return linea; }
+    public String getNombreUsuario() { return nombreUsuario; }
+    public String getMotivo() { return motivo; }
+}
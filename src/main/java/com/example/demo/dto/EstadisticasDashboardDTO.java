@@ -0,0 +1,32 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Estadísticas del dashboard de Administradores y Supervisores, calculadas juntas
+ * calculadoEn: momento de la consulta (las cifras pueden tener unos segundos)
+ */
+public class EstadisticasDashboardDTO {
+    private final long eventosHoy;
+    private final long totalEventos;
+    private final long usuarios;
+    private final List<EventoRecienteDTO> ultimosEventos;
+    private final LocalDateTime calculadoEn;
+
+    public EstadisticasDashboardDTO(long eventosHoy, long totalEventos, long usuarios,
+                                    List<EventoRecienteDTO> ultimosEventos, LocalDateTime calculadoEn) {
+        this.eventosHoy = eventosHoy;
+        this.totalEventos = totalEventos;
+        this.usuarios = usuarios;
+        this.ultimosEventos = ultimosEventos;
+        this.calculadoEn = calculadoEn;
+    }
+
+    // Getters
+    public long getEventosHoy() { return eventosHoy; }
+    public long getTotalEventos() { return totalEventos; }
+    public long getUsuarios() { return usuarios; }
+    public List<EventoRecienteDTO> getUltimosEventos() { return ultimosEventos; }
+    public LocalDateTime getCalculadoEn() { return calculadoEn; }
+}
@@ -0,0 +1,38 @@
+package com.example.demo.dto;
+
+/**
+ * Cambio que los demás nodos deben aplicar a sus cachés en memoria
+ * Viaja por el bus de invalidación (ver BusInvalidacion)
+ */
+public class EventoInvalidacion {
+
+    public enum Tipo {
+        CATALOGO,    // roles, permisos o jerarquía (entidadId = rol afectado, null = todo el catálogo)
+        USUARIO,     // altas de usuarios y cambios de rol: cambia el conteo por rol
+        ROL_USUARIO, // usuario que cambió de rol (entidadId = usuario, null = varios)
+        ALTA_USUARIO // usuarios nuevos: los nodos leen los nombres por id (filtro de nombres)
+    }
+
+    private final Tipo tipo;
+    private final Long entidadId;
+    private final long version;
+    private final String nodo;
+
+    public EventoInvalidacion(Tipo tipo, Long entidadId, long version, String nodo) {
+        this.tipo = tipo;
+        this.entidadId = entidadId;
+        this.version = version;
+        this.nodo = nodo;
+    }
+
+    // Getters
+    public Tipo getTipo() { return tipo; }
+    public Long getEntidadId() { return entidadId; }
+    public long getVersion() { return version; }
+    public String getNodo() { return nodo; }
+
+    @Override
+    public String toString() {
+        return tipo + (entidadId != null ? "#" + entidadId : "") + " v" + version + " (" + nodo + ")";
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento de auditoría para la actividad reciente del dashboard
+ * Trae el nombre de usuario ya resuelto (sin la entidad Usuario): se puede cachear
+ */
+public class EventoRecienteDTO {
+    private final Long id;
+    private final LocalDateTime fechaHora;
+    private final Long usuarioId;
+    private final String nombreUsuario;
+    private final String accion;
+    private final String recurso;
+    private final String ipAddress;
+    private final String resultado;
+
+    public EventoRecienteDTO(Long id, LocalDateTime fechaHora, Long usuarioId, String nombreUsuario,
+                             String accion, String recurso, String ipAddress, String resultado) {
+        this.id = id;
+        this.fechaHora = fechaHora;
+        this.usuarioId = usuarioId;
+        this.nombreUsuario = nombreUsuario;
+        this.accion = accion;
+        this.recurso = recurso;
+        this.ipAddress = ipAddress;
+        this.resultado = resultado;
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public LocalDateTime getFechaHora() { return fechaHora; }
+    public Long getUsuarioId() { return usuarioId; }
+    public String getNombreUsuario() { return nombreUsuario; }
+    public String getAccion() { return accion; }
+    public String getRecurso() { return recurso; }
+    public String getIpAddress() { return ipAddress; }
+    public String getResultado() { return resultado; }
+}
@@ -0,0 +1,22 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+/**
+ * Página del directorio de usuarios (paginación por clave)
+ * siguiente: nombre de usuario desde el que pedir la próxima página (null si no hay más)
+ */
+public class PaginaUsuariosDTO {
+    private final List<UsuarioFilaDTO> usuarios;
+    private final String siguiente;
+
+    public PaginaUsuariosDTO(List<UsuarioFilaDTO> usuarios, String siguiente) {
+        this.usuarios = usuarios;
+        this.siguiente = siguiente;
+    }
+
+    // Getters
+    public List<UsuarioFilaDTO> getUsuarios() { return usuarios; }
+    public String getSiguiente() { return siguiente; }
+    public boolean isHayMas() { return siguiente != null; }
+}
@@ -0,0 +1,20 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.Permiso;
+
+/**
+ * DTO inmutable de Permiso para las vistas
+ */
+public class PermisoDTO {
+    private final Long id;
+    private final String nombre;
+
+    public PermisoDTO(Permiso permiso) {
+        this.id = permiso.getId();
+        this.nombre = permiso.getNombre();
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public String getNombre() { return nombre; }
+}
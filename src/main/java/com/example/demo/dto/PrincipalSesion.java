@@ -0,0 +1,218 @@
+package com.example.demo.dto;
+
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.OidcUserInfo;
+import org.springframework.security.oauth2.core.oidc.StandardClaimNames;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serial;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Principal compacto de sesión, igual para login con contraseña, OAuth2 y OIDC
+ * Guarda solo id, nombre de usuario, rol y la versión de autoridades con la que se
+ * construyó (ver RefrescoAutoridadesFilter). Del proveedor guarda solo sub, email y
+ * name (getSubject/getEmail/getFullName de OidcUser), no el resto de los atributos
+ * ni el ID token.
+ * Las autoridades son una lista internada: todas las sesiones con el mismo conjunto
+ * comparten la misma instancia, también después de deserializarse
+ */
+public final class PrincipalSesion implements UserDetails, OidcUser, CredentialsContainer {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    // Conjuntos distintos de autoridades; si se llena (muchas versiones viejas) se vacía
+    private static final int MAXIMO_INTERNADAS = 1024;
+    private static final Map<List<String>, List<GrantedAuthority>> INTERNADAS = new ConcurrentHashMap<>();
+
+    private final long usuarioId;
+    private final String nombreUsuario;
+    private final long rolId;
+    private final long versionAutoridades;
+    // Claims mínimos del proveedor (null en logins con contraseña)
+    private final String sujeto;
+    private final String email;
+    private final String nombreCompleto;
+    // Solo hasta terminar el login (Spring Security la borra con eraseCredentials)
+    private String clave;
+    private transient List<GrantedAuthority> autoridades;
+
+    public PrincipalSesion(Long usuarioId, String nombreUsuario, Long rolId, long versionAutoridades,
+                           List<GrantedAuthority> autoridades, String clave) {
+        this(usuarioId, nombreUsuario, rolId, versionAutoridades, autoridades, clave, null, null, null);
+    }
+
+    /**
+     * Login OAuth2/OIDC: conserva sub, email y name de los atributos del proveedor
+     */
+    public static PrincipalSesion deProveedor(Long usuarioId, String nombreUsuario, Long rolId, long versionAutoridades,
+                                              List<GrantedAuthority> autoridades, Map<String, Object> atributos) {
+        return new PrincipalSesion(usuarioId, nombreUsuario, rolId, versionAutoridades, autoridades, null,
+            texto(atributos.get(StandardClaimNames.SUB)), texto(atributos.get(StandardClaimNames.EMAIL)),
+            texto(atributos.get(StandardClaimNames.NAME)));
+    }
+
+    private PrincipalSesion(Long usuarioId, String nombreUsuario, Long rolId, long versionAutoridades,
+                            List<GrantedAuthority> autoridades, String clave,
+                            String sujeto, String email, String nombreCompleto) {
+        this.usuarioId = usuarioId;
+        this.nombreUsuario = nombreUsuario;
+        this.rolId = rolId;
+        this.versionAutoridades = versionAutoridades;
+        this.autoridades = autoridades;
+        this.clave = clave;
+        this.sujeto = sujeto;
+        this.email = email;
+        this.nombreCompleto = nombreCompleto;
+    }
+
+    /**
+     * Lista compartida e inmutable de autoridades con esos nombres (en ese orden)
+     */
+    public static List<GrantedAuthority> internar(List<String> nombres) {
+        List<GrantedAuthority> internada = INTERNADAS.get(nombres);
+        if (internada != null) {
+            return internada;
+        }
+        if (INTERNADAS.size() >= MAXIMO_INTERNADAS) {
+            INTERNADAS.clear();
+        }
+        List<GrantedAuthority> nueva = nombres.stream()
+            .map(nombre -> (GrantedAuthority) new SimpleGrantedAuthority(nombre.intern()))
+            .toList();
+        internada = INTERNADAS.putIfAbsent(List.copyOf(nombres), nueva);
+        return internada != null ? internada : nueva;
+    }
+
+    /**
+     * Copia con otra contraseña (re-hash después del login)
+     */
+    public PrincipalSesion conClave(String nuevaClave) {
+        return new PrincipalSesion(usuarioId, nombreUsuario, rolId, versionAutoridades, autoridades, nuevaClave,
+            sujeto, email, nombreCompleto);
+    }
+
+    /**
+     * Copia con otro rol y autoridades (refresco de sesión), con los mismos claims
+     */
+    public PrincipalSesion conRol(Long nuevoRolId, long version, List<GrantedAuthority> nuevasAutoridades) {
+        return new PrincipalSesion(usuarioId, nombreUsuario, nuevoRolId, version, nuevasAutoridades, null,
+            sujeto, email, nombreCompleto);
+    }
+
+    public Long getUsuarioId() { return usuarioId; }
+    public Long getRolId() { return rolId; }
+    public long getVersionAutoridades() { return versionAutoridades; }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() { return autoridades; }
+
+    @Override
+    public String getPassword() { return clave; }
+
+    @Override
+    public String getUsername() { return nombreUsuario; }
+
+    @Override
+    public boolean isAccountNonExpired() { return true; }
+
+    @Override
+    public boolean isAccountNonLocked() { return true; }
+
+    @Override
+    public boolean isCredentialsNonExpired() { return true; }
+
+    @Override
+    public boolean isEnabled() { return true; }
+
+    /**
+     * Nombre del principal: el nombre de usuario de la BD (también para OAuth2)
+     */
+    @Override
+    public String getName() { return nombreUsuario; }
+
+    /**
+     * Solo sub, email y name del proveedor (vacío en logins con contraseña)
+     */
+    @Override
+    public Map<String, Object> getAttributes() { return getClaims(); }
+
+    @Override
+    public Map<String, Object> getClaims() {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        if (sujeto != null) {
+            claims.put(StandardClaimNames.SUB, sujeto);
+        }
+        if (email != null) {
+            claims.put(StandardClaimNames.EMAIL, email);
+        }
+        if (nombreCompleto != null) {
+            claims.put(StandardClaimNames.NAME, nombreCompleto);
+        }
+        return claims;
+    }
+
+    /**
+     * user-info no se guarda: los claims que se usan están en getClaims()
+     */
+    @Override
+    public OidcUserInfo getUserInfo() { return null; }
+
+    /**
+     * El ID token (firmado, ~1 KB) no se guarda en la sesión: ya se validó en el login
+     */
+    @Override
+    public OidcIdToken getIdToken() { return null; }
+
+    private static String texto(Object valor) {
+        return valor != null ? valor.toString() : null;
+    }
+
+    @Override
+    public void eraseCredentials() {
+        clave = null;
+    }
+
+    @Serial
+    private void writeObject(ObjectOutputStream salida) throws IOException {
+        salida.defaultWriteObject();
+        String[] nombres = new String[autoridades.size()];
+        for (int i = 0; i < nombres.length; i++) {
+            nombres[i] = autoridades.get(i).getAuthority();
+        }
+        salida.writeObject(nombres);
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream entrada) throws IOException, ClassNotFoundException {
+        entrada.defaultReadObject();
+        autoridades = internar(List.of((String[]) entrada.readObject()));
+    }
+
+    @Override
+    public boolean equals(Object otro) {
+        return otro instanceof PrincipalSesion principal && nombreUsuario.equals(principal.nombreUsuario);
+    }
+
+    @Override
+    public int hashCode() {
+        return nombreUsuario.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return nombreUsuario + " (usuario " + usuarioId + ", rol " + rolId + ", v" + versionAutoridades + ")";
+    }
+}
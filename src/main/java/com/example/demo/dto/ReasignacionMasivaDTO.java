@@ -0,0 +1,30 @@
+package com.example.demo.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Solicitud de reasignación masiva de roles
+ * Se usa una de dos formas:
+ * - asignaciones: lista de pares (usuarioId, rolId)
+ * - filtro: todos los usuarios con rolOrigenId pasan a rolDestinoId
+ */
+public class ReasignacionMasivaDTO {
+    private List<AsignacionRolDTO> asignaciones = new ArrayList<>();
+    private Long rolOrigenId;
+    private Long rolDestinoId;
+
+    // Getters y setters
+    public List<AsignacionRolDTO> getAsignaciones() { return asignaciones; }
+    public void setAsignaciones(List<AsignacionRolDTO> asignaciones) { this.asignaciones = asignaciones; }
+
+    public Long getRolOrigenId() { return rolOrigenId; }
+    public void setRolOrigenId(Long rolOrigenId) { this.rolOrigenId = rolOrigenId; }
+
+    public Long getRolDestinoId() { return rolDestinoId; }
+    public void setRolDestinoId(Long rolDestinoId) { this.rolDestinoId = rolDestinoId; }
+
+    public boolean esPorFiltro() {
+        return rolOrigenId != null && rolDestinoId != null;
+    }
+}
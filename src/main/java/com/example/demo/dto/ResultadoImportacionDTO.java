@@ -0,0 +1,43 @@
+package com.example.demo.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de la importación masiva de usuarios
+ * Los errores por fila se guardan hasta un máximo; totalErrores los cuenta todos
+ */
+public class ResultadoImportacionDTO {
+    public static final int MAX_ERRORES_DETALLADOS = 1000;
+
+    private long filasLeidas;
+    private long importados;
+    private long totalErrores;
+    private List<ErrorFilaDTO> errores = new ArrayList<>();
+    private long duracionMs;
+    private double filasPorSegundo;
+
+    public void agregarError(long linea, String nombreUsuario, String motivo) {
+        totalErrores++;
+        if (errores.size() < MAX_ERRORES_DETALLADOS) {
+            errores.add(new ErrorFilaDTO(linea, nombreUsuario, motivo));
+        }
+    }
+
+    // Getters y setters
+    public long getFilasLeidas() { return filasLeidas; }
+    public void setFilasLeidas(long filasLeidas) { this.filasLeidas = filasLeidas; }
+
+    public long getImportados() { return importados; }
+    public void setImportados(long importados) { this.importados = importados; }
+
+    public long getTotalErrores() { return totalErrores; }
+
+    public List<ErrorFilaDTO> getErrores() { return errores; }
+
+    public long getDuracionMs() { return duracionMs; }
+    public void setDuracionMs(long duracionMs) { this.duracionMs = duracionMs; }
+
+    public double getFilasPorSegundo() { return filasPorSegundo; }
+    public void setFilasPorSegundo(double filasPorSegundo) { this.filasPorSegundo = filasPorSegundo; }
+}
@@ -0,0 +1,31 @@
+package com.example.demo.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de una reasignación masiva de roles
+ */
+public class ResultadoReasignacionDTO {
+    private int solicitados;
+    private int actualizados;
+    private int sinCambios;
+    private List<Long> usuariosNoEncontrados = new ArrayList<>();
+    private long duracionMs;
+
+    // Getters y setters
+    public int getSolicitados() { return solicitados; }
+    public void setSolicitados(int solicitados) { this.solicitados = solicitados; }
+
+    public int getActualizados() { return actualizados; }
+    public void setActualizados(int actualizados) { this.actualizados = actualizados; }
+
+    public int getSinCambios() { return sinCambios; }
+    public void setSinCambios(int sinCambios) { this.sinCambios = sinCambios; }
+
+    public List<Long> getUsuariosNoEncontrados() { return usuariosNoEncontrados; }
+    public void setUsuariosNoEncontrados(List<Long> usuariosNoEncontrados) { this.usuariosNoEncontrados = usuariosNoEncontrados; }
+
+    public long getDuracionMs() { return duracionMs; }
+    public void setDuracionMs(long duracionMs) { this.duracionMs = duracionMs; }
+}
@@ -3,46 +3,32 @@ package com.example.demo.dto;
 import com.example.demo.model.Permiso;
 import com.example.demo.model.Rol;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 /**
- * DTO para transferir datos de Rol sin problemas de Hibernate
+ * DTO inmutable de Rol para las vistas (sin problemas de Hibernate)
+ * Se construye una vez por versión del catálogo (ver RolCatalog)
  */
 public class RolDTO {
-    private Long id;
-    private String nombre;
-    private List<String> permisos;
-    private boolean esProtegido;
-    private int cantidadPermisos;
+    private final Long id;
+    private final String nombre;
+    private final List<String> permisos;
+    private final boolean esProtegido;
+    private final long cantidadUsuarios;
+    private final List<String> heredaDe;
+    private final List<String> permisosEfectivos;
 
-    public RolDTO(Rol rol) {
+    public RolDTO(Rol rol, long cantidadUsuarios, List<String> heredaDe, Set<String> permisosEfectivos) {
         this.id = rol.getId();
         this.nombre = rol.getNombre();
-        
-        // Cargar permisos de forma segura
-        if (rol.permisos != null) {
-            try {
-                this.permisos = rol.permisos.stream()
-                    .map(Permiso::getNombre)
-                    .collect(Collectors.toList());
-                this.cantidadPermisos = rol.permisos.size();
-            } catch (Exception e) {
-                this.permisos = new ArrayList<>();
-                this.cantidadPermisos = 0;
-            }
-        } else {
-            this.permisos = new ArrayList<>();
-            this.cantidadPermisos = 0;
-        }
-        
-        // Verificar si es rol protegido
-        List<String> rolesProtegidos = List.of(
-            "Personal", "Jefe de Área", "Gerente", 
-            "Director", "Supervisor", "Administrador del Sistema"
-        );
-        this.esProtegido = rolesProtegidos.contains(rol.getNombre());
+        this.permisos = rol.permisos != null
+            ? rol.permisos.stream().map(Permiso::getNombre).toList()
+            : List.of();
+        this.esProtegido = Rol.NOMBRES_PROTEGIDOS.contains(rol.getNombre());
+        this.cantidadUsuarios = cantidadUsuarios;
+        this.heredaDe = List.copyOf(heredaDe);
+        this.permisosEfectivos = List.copyOf(permisosEfectivos);
     }
 
     // Getters
@@ -50,5 +36,8 @@ public class RolDTO {
     public String getNombre() { return nombre; }
     public List<String> getPermisos() { return permisos; }
     public boolean isEsProtegido() { return esProtegido; }
-    public int getCantidadPermisos() { return cantidadPermisos; }
-}
\ No newline at end of file
+    public int getCantidadPermisos() { return permisos.size(); }
+    public long getCantidadUsuarios() { return cantidadUsuarios; }
+    public List<String> getHeredaDe() { return heredaDe; }
+    public List<String> getPermisosEfectivos() { return permisosEfectivos; }
+}
@@ -0,0 +1,25 @@
+package com.example.demo.dto;
+
+/**
+ * Fila liviana del directorio de usuarios: solo las columnas que se muestran,
+ * sin cargar las entidades Usuario y Rol
+ */
+public class UsuarioFilaDTO {
+    private final Long id;
+    private final String nombreUsuario;
+    private final Long rolId;
+    private final String rolNombre;
+
+    public UsuarioFilaDTO(Long id, String nombreUsuario, Long rolId, String rolNombre) {
+        this.id = id;
+        this.nombreUsuario = nombreUsuario;
+        this.rolId = rolId;
+        this.rolNombre = rolNombre;
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public String getNombreUsuario() { return nombreUsuario; }
+    public Long getRolId() { return rolId; }
+    public String getRolNombre() { return rolNombre; }
+}
@@ -1,8 +1,12 @@
 package com.example.demo.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -11,7 +15,15 @@ import java.util.stream.Collectors;
  */
 @Entity
 @Table(name = "roles")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "catalogo.roles")
 public class Rol {
+
+    // Roles del sistema: no se pueden eliminar
+    public static final Set<String> NOMBRES_PROTEGIDOS = Set.of(
+        "Personal", "Jefe de Área", "Gerente",
+        "Director", "Supervisor", "Administrador del Sistema"
+    );
     
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -21,6 +33,8 @@ public class Rol {
     public String nombre;
     
     @ManyToMany(fetch = FetchType.LAZY) // ← CAMBIAR A LAZY
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "catalogo.roles.permisos")
+    @BatchSize(size = 50) // Si se inicializa una colección, trae las de todos los roles cargados
     @JoinTable(
         name = "rol_permisos",
         joinColumns = @JoinColumn(name = "rol_id"),
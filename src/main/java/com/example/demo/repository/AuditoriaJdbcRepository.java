@@ -0,0 +1,105 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.EstadisticasDashboardDTO;
+import com.example.demo.dto.EventoRecienteDTO;
+import com.example.demo.model.Auditoria;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Escritura de auditoría en lote con INSERT multi-fila
+ * Para operaciones masivas donde un save() por evento sería un round-trip por fila
+ * También el resumen del dashboard en una sola consulta
+ */
+@Repository
+public class AuditoriaJdbcRepository {
+
+    // 8 parámetros por fila: se mantiene cada sentencia bien debajo del límite de placeholders
+    private static final int FILAS_POR_SENTENCIA = 500;
+
+    private static final String INSERT_BASE =
+        "INSERT INTO auditoria (usuario_id, accion, recurso, fecha_hora, ip_address, detalles, resultado, user_agent) VALUES ";
+    private static final String FILA = "(?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Conteos en una fila y los últimos eventos del día unidos a ella: sin eventos
+    // igual vuelve una fila con los conteos (columnas del evento en NULL)
+    private static final String RESUMEN_DASHBOARD =
+        "SELECT c.hoy, c.total, c.usuarios, e.id, e.fecha_hora, e.usuario_id, e.nombre_usuario, " +
+        "e.accion, e.recurso, e.ip_address, e.resultado " +
+        "FROM (SELECT (SELECT COUNT(*) FROM auditoria WHERE fecha_hora >= ?) AS hoy, " +
+        "(SELECT COUNT(*) FROM auditoria) AS total, " +
+        "(SELECT COUNT(*) FROM usuarios) AS usuarios) c " +
+        "LEFT JOIN (SELECT a.id, a.fecha_hora, a.usuario_id, u.nombre_usuario, a.accion, a.recurso, " +
+        "a.ip_address, a.resultado FROM auditoria a JOIN usuarios u ON u.id = a.usuario_id " +
+        "WHERE a.fecha_hora >= ? ORDER BY a.fecha_hora DESC, a.id DESC LIMIT ?) e ON 1 = 1 " +
+        "ORDER BY e.fecha_hora DESC, e.id DESC";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Insertar un evento por cada detalle, todos del mismo usuario y acción
+     * @return Cantidad de filas insertadas
+     */
+    public int insertarLote(Long usuarioId, String accion, String recurso,
+                            String ipAddress, String userAgent,
+                            Auditoria.Resultado resultado, List<String> detalles) {
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        int insertadas = 0;
+
+        for (int desde = 0; desde < detalles.size(); desde += FILAS_POR_SENTENCIA) {
+            List<String> tramo = detalles.subList(desde, Math.min(desde + FILAS_POR_SENTENCIA, detalles.size()));
+
+            StringBuilder sql = new StringBuilder(INSERT_BASE.length() + tramo.size() * (FILA.length() + 2));
+            sql.append(INSERT_BASE);
+            List<Object> parametros = new ArrayList<>(tramo.size() * 8);
+
+            for (int i = 0; i < tramo.size(); i++) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                sql.append(FILA);
+                parametros.add(usuarioId);
+                parametros.add(accion);
+                parametros.add(recurso);
+                parametros.add(ahora);
+                parametros.add(ipAddress);
+                parametros.add(tramo.get(i));
+                parametros.add(resultado.name());
+                parametros.add(userAgent);
+            }
+
+            insertadas += jdbcTemplate.update(sql.toString(), parametros.toArray());
+        }
+        return insertadas;
+    }
+
+    /**
+     * Eventos de hoy, total de eventos, cantidad de usuarios y los últimos eventos de hoy,
+     * en un solo round-trip. Con índice en fecha_hora (ver db/auditoria_fecha.sql)
+     * @param inicioDia Comienzo del día actual
+     * @param ultimos Cantidad de eventos recientes
+     */
+    public EstadisticasDashboardDTO resumenDashboard(LocalDateTime inicioDia, int ultimos) {
+        Timestamp desde = Timestamp.valueOf(inicioDia);
+        long[] conteos = new long[3];
+        List<EventoRecienteDTO> eventos = new ArrayList<>(ultimos);
+        jdbcTemplate.query(RESUMEN_DASHBOARD, rs -> {
+            conteos[0] = rs.getLong(1);
+            conteos[1] = rs.getLong(2);
+            conteos[2] = rs.getLong(3);
+            if (rs.getObject(4) != null) {
+                eventos.add(new EventoRecienteDTO(rs.getLong(4), rs.getTimestamp(5).toLocalDateTime(),
+                    rs.getLong(6), rs.getString(7), rs.getString(8), rs.getString(9),
+                    rs.getString(10), rs.getString(11)));
+            }
+        }, desde, desde, ultimos);
+        return new EstadisticasDashboardDTO(conteos[0], conteos[1], conteos[2], eventos, LocalDateTime.now());
+    }
+}
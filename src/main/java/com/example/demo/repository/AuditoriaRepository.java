@@ -4,6 +4,7 @@ import com.example.demo.model.Auditoria;
 import com.example.demo.model.Usuario;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -15,20 +16,27 @@ import java.util.List;
 @Repository
 public interface AuditoriaRepository extends JpaRepository<Auditoria, Long> {
 
+    // Las consultas que alimentan vistas y exportaciones traen usuario y rol en el mismo SELECT
+
     // Buscar por usuario
+    @EntityGraph(attributePaths = {"usuario", "usuario.rol"})
     Page<Auditoria> findByUsuarioOrderByFechaHoraDesc(Usuario usuario, Pageable pageable);
 
     // Buscar por acción
+    @EntityGraph(attributePaths = {"usuario", "usuario.rol"})
     Page<Auditoria> findByAccionOrderByFechaHoraDesc(String accion, Pageable pageable);
 
     // Buscar por resultado
+    @EntityGraph(attributePaths = {"usuario", "usuario.rol"})
     Page<Auditoria> findByResultadoOrderByFechaHoraDesc(Auditoria.Resultado resultado, Pageable pageable);
 
     // Buscar por rango de fechas
+    @EntityGraph(attributePaths = {"usuario", "usuario.rol"})
     Page<Auditoria> findByFechaHoraBetweenOrderByFechaHoraDesc(
             LocalDateTime inicio, LocalDateTime fin, Pageable pageable);
 
     // Buscar todos ordenados por fecha
+    @EntityGraph(attributePaths = {"usuario", "usuario.rol"})
     Page<Auditoria> findAllByOrderByFechaHoraDesc(Pageable pageable);
 
     // Contar eventos de un usuario
@@ -38,11 +46,13 @@ public interface AuditoriaRepository extends JpaRepository<Auditoria, Long> {
     long countByUsuarioAndResultado(Usuario usuario, Auditoria.Resultado resultado);
 
     // Obtener últimos eventos de un usuario
+    @EntityGraph(attributePaths = {"usuario", "usuario.rol"})
     List<Auditoria> findTop10ByUsuarioOrderByFechaHoraDesc(Usuario usuario);
 
-    // Query personalizada: eventos de hoy
-    @Query("SELECT a FROM Auditoria a WHERE DATE(a.fechaHora) = CURRENT_DATE ORDER BY a.fechaHora DESC")
-    List<Auditoria> findEventosDeHoy();
+    // Query personalizada: eventos de un día, como rango [inicio, fin) (portable y usa el índice de fecha_hora)
+    @EntityGraph(attributePaths = {"usuario", "usuario.rol"})
+    @Query("SELECT a FROM Auditoria a WHERE a.fechaHora >= :inicio AND a.fechaHora < :fin ORDER BY a.fechaHora DESC")
+    List<Auditoria> findEventosEntre(@Param("inicio") LocalDateTime inicio, @Param("fin") LocalDateTime fin);
 
     // Query personalizada: estadísticas por acción
     @Query("SELECT a.accion, COUNT(a) FROM Auditoria a GROUP BY a.accion ORDER BY COUNT(a) DESC")
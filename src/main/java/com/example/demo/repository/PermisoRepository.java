@@ -1,12 +1,28 @@
 package com.example.demo.repository;
 
 import com.example.demo.model.Permiso;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface PermisoRepository extends JpaRepository<Permiso, Long> {
+
+    // Consultas del catálogo: resultado en la caché de consultas de Hibernate
+    @Override
+    @QueryHints({
+        @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+        @QueryHint(name = "org.hibernate.cacheRegion", value = "catalogo.consultas")
+    })
+    List<Permiso> findAll();
+
+    @QueryHints({
+        @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+        @QueryHint(name = "org.hibernate.cacheRegion", value = "catalogo.consultas")
+    })
     Optional<Permiso> findByNombre(String nombre);
-}
\ No newline at end of file
+}
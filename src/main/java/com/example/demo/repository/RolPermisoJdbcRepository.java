@@ -0,0 +1,193 @@
+package com.example.demo.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Operaciones directas sobre las tablas intermedias rol_permisos y rol_herencia
+ * Evita cargar roles y colecciones completas para cambiar unas pocas filas.
+ * Quien las use debe invalidar la caché del catálogo (Hibernate no ve estos cambios)
+ */
+@Repository
+public class RolPermisoJdbcRepository {
+
+    private static final String SCRIPT_HERENCIA = "src/main/resources/db/rol_herencia.sql";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // La tabla rol_herencia ya se encontró (mientras falte se vuelve a buscar en cada uso)
+    private volatile boolean tablaHerenciaEncontrada;
+    private final AtomicBoolean faltaHerenciaAvisada = new AtomicBoolean();
+
+    /**
+     * Quitar un permiso de todos los roles con una única sentencia
+     * @return Cantidad de asignaciones eliminadas
+     */
+    public int eliminarPermisoDeTodosLosRoles(Long permisoId) {
+        return jdbcTemplate.update("DELETE FROM rol_permisos WHERE permiso_id = ?", permisoId);
+    }
+
+    /**
+     * Dejar al rol exactamente con los permisos indicados, tocando solo las filas que cambian
+     * Sentencias: 1 SELECT + (1 DELETE si hay bajas) + (1 batch INSERT si hay altas)
+     * @return Cantidad de filas agregadas + eliminadas
+     */
+    public int sincronizarPermisos(Long rolId, Set<Long> permisosDeseados) {
+        Set<Long> actuales = new HashSet<>(jdbcTemplate.queryForList(
+            "SELECT permiso_id FROM rol_permisos WHERE rol_id = ?", Long.class, rolId));
+
+        List<Long> aQuitar = new ArrayList<>();
+        for (Long permisoId : actuales) {
+            if (!permisosDeseados.contains(permisoId)) {
+                aQuitar.add(permisoId);
+            }
+        }
+        List<Long> aAgregar = new ArrayList<>();
+        for (Long permisoId : permisosDeseados) {
+            if (!actuales.contains(permisoId)) {
+                aAgregar.add(permisoId);
+            }
+        }
+
+        if (!aQuitar.isEmpty()) {
+            new NamedParameterJdbcTemplate(jdbcTemplate).update(
+                "DELETE FROM rol_permisos WHERE rol_id = :rolId AND permiso_id IN (:ids)",
+                new MapSqlParameterSource().addValue("rolId", rolId).addValue("ids", aQuitar));
+        }
+        if (!aAgregar.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO rol_permisos (rol_id, permiso_id) VALUES (?, ?)",
+                aAgregar, aAgregar.size(), (ps, permisoId) -> {
+                    ps.setLong(1, rolId);
+                    ps.setLong(2, permisoId);
+                });
+        }
+        return aQuitar.size() + aAgregar.size();
+    }
+
+    // ==================== JERARQUÍA ====================
+
+    /**
+     * Todas las aristas de la jerarquía: rol -> roles de los que hereda
+     */
+    public Map<Long, Set<Long>> obtenerHerencias() {
+        Map<Long, Set<Long>> herencias = new HashMap<>();
+        if (!jerarquiaDisponible()) {
+            return herencias;
+        }
+        jdbcTemplate.query("SELECT rol_id, hereda_de_id FROM rol_herencia", rs -> {
+            herencias.computeIfAbsent(rs.getLong(1), k -> new HashSet<>()).add(rs.getLong(2));
+        });
+        return herencias;
+    }
+
+    /**
+     * Bloquear la jerarquía hasta el fin de la transacción (cambios de herencia de a uno)
+     * Toma las filas de roles en orden de id: dos altas de herencia concurrentes no
+     * pueden validar cada una sin ver la otra
+     * @return Ids de los roles existentes
+     */
+    public Set<Long> bloquearJerarquia() {
+        return new HashSet<>(jdbcTemplate.queryForList("SELECT id FROM roles ORDER BY id FOR UPDATE", Long.class));
+    }
+
+    /**
+     * Aristas de la jerarquía con lectura bloqueante: ve lo último confirmado,
+     * no la instantánea de la transacción
+     */
+    public Map<Long, Set<Long>> obtenerHerenciasParaActualizar() {
+        requerirJerarquia();
+        Map<Long, Set<Long>> herencias = new HashMap<>();
+        jdbcTemplate.query("SELECT rol_id, hereda_de_id FROM rol_herencia FOR UPDATE", rs -> {
+            herencias.computeIfAbsent(rs.getLong(1), k -> new HashSet<>()).add(rs.getLong(2));
+        });
+        return herencias;
+    }
+
+    /**
+     * Agregar "rolId hereda de padreId"
+     * @return false si la arista ya existía
+     */
+    public boolean agregarHerencia(Long rolId, Long padreId) {
+        requerirJerarquia();
+        Integer existentes = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM rol_herencia WHERE rol_id = ? AND hereda_de_id = ?", Integer.class, rolId, padreId);
+        if (existentes != null && existentes > 0) {
+            return false;
+        }
+        jdbcTemplate.update("INSERT INTO rol_herencia (rol_id, hereda_de_id) VALUES (?, ?)", rolId, padreId);
+        return true;
+    }
+
+    /**
+     * Quitar "rolId hereda de padreId"
+     */
+    public boolean quitarHerencia(Long rolId, Long padreId) {
+        if (!jerarquiaDisponible()) {
+            return false;
+        }
+        return jdbcTemplate.update("DELETE FROM rol_herencia WHERE rol_id = ? AND hereda_de_id = ?", rolId, padreId) > 0;
+    }
+
+    /**
+     * Quitar todas las aristas donde participa el rol (antes de eliminarlo)
+     */
+    public int eliminarHerenciasDeRol(Long rolId) {
+        if (!jerarquiaDisponible()) {
+            return 0;
+        }
+        return jdbcTemplate.update("DELETE FROM rol_herencia WHERE rol_id = ? OR hereda_de_id = ?", rolId, rolId);
+    }
+
+    /**
+     * Si existe la tabla rol_herencia (esquema a mano, ddl-auto=none: db/rol_herencia.sql)
+     * Sin la tabla los roles no heredan nada: logins y catálogo siguen funcionando y se
+     * avisa una vez; solo las altas de herencia fallan
+     */
+    public boolean jerarquiaDisponible() {
+        if (tablaHerenciaEncontrada) {
+            return true;
+        }
+        Boolean existe = jdbcTemplate.execute((ConnectionCallback<Boolean>) conexion -> {
+            DatabaseMetaData metadatos = conexion.getMetaData();
+            // Según la BD el nombre se guarda en minúsculas (MySQL) o en mayúsculas (H2)
+            for (String nombre : List.of("rol_herencia", "ROL_HERENCIA")) {
+                try (ResultSet tablas = metadatos.getTables(conexion.getCatalog(), null, nombre, new String[]{"TABLE"})) {
+                    if (tablas.next()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        });
+        if (Boolean.TRUE.equals(existe)) {
+            tablaHerenciaEncontrada = true;
+            return true;
+        }
+        if (faltaHerenciaAvisada.compareAndSet(false, true)) {
+            System.err.println("⚠️ Falta la tabla rol_herencia: los roles se cargan sin herencia. Aplicar "
+                + SCRIPT_HERENCIA);
+        }
+        return false;
+    }
+
+    private void requerirJerarquia() {
+        if (!jerarquiaDisponible()) {
+            throw new IllegalStateException("Falta la tabla rol_herencia: aplicar " + SCRIPT_HERENCIA);
+        }
+    }
+}
@@ -1,12 +1,41 @@
 package com.example.demo.repository;
 
 import com.example.demo.model.Rol;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface RolRepository extends JpaRepository<Rol, Long> {
-    
+
+    // Consultas del catálogo: resultado en la caché de consultas de Hibernate
+    @Override
+    @QueryHints({
+        @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+        @QueryHint(name = "org.hibernate.cacheRegion", value = "catalogo.consultas")
+    })
+    List<Rol> findAll();
+
+    @QueryHints({
+        @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+        @QueryHint(name = "org.hibernate.cacheRegion", value = "catalogo.consultas")
+    })
     Optional<Rol> findByNombre(String nombre);
-}
\ No newline at end of file
+
+    // Catálogo completo con permisos en una sola consulta (fetch join)
+    @EntityGraph(attributePaths = "permisos")
+    @Query("SELECT DISTINCT r FROM Rol r")
+    List<Rol> findAllConPermisos();
+
+    @EntityGraph(attributePaths = "permisos")
+    Optional<Rol> findConPermisosById(Long id);
+
+    @EntityGraph(attributePaths = "permisos")
+    Optional<Rol> findConPermisosByNombre(String nombre);
+}
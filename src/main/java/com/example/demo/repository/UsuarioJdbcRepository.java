@@ -0,0 +1,90 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.UsuarioFilaDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Altas de usuarios apoyadas en la restricción única de nombre_usuario
+ * Un INSERT directo en vez de "buscar, y si no existe guardar": sin ventana
+ * entre la consulta y el alta, y un solo round-trip en el caso normal.
+ * Quien las use debe avisar al catálogo (RolCatalog.altasRegistradas)
+ * También las lecturas livianas de usuarios (directorio paginado)
+ */
+@Repository
+public class UsuarioJdbcRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Insertar el usuario si el nombre no está tomado (semántica insert-or-ignore)
+     * @return Id del usuario creado, o vacío si el nombre ya existía
+     */
+    public Optional<Long> insertarSiNoExiste(String nombreUsuario, String clave, Long rolId) {
+        KeyHolder claves = new GeneratedKeyHolder();
+        try {
+            jdbcTemplate.update(conexion -> {
+                PreparedStatement ps = conexion.prepareStatement(
+                    "INSERT INTO usuarios (nombre_usuario, clave, rol_id) VALUES (?, ?, ?)",
+                    Statement.RETURN_GENERATED_KEYS);
+                ps.setString(1, nombreUsuario);
+                ps.setString(2, clave);
+                ps.setLong(3, rolId);
+                return ps;
+            }, claves);
+        } catch (DuplicateKeyException e) {
+            return Optional.empty();
+        }
+        Number id = claves.getKey();
+        return Optional.ofNullable(id).map(Number::longValue);
+    }
+
+    /**
+     * Id y rol del usuario, sin cargar la entidad: [id, rolId]
+     */
+    public Optional<long[]> buscarIdYRol(String nombreUsuario) {
+        List<long[]> filas = jdbcTemplate.query(
+            "SELECT id, rol_id FROM usuarios WHERE nombre_usuario = ?",
+            (rs, fila) -> new long[]{rs.getLong(1), rs.getLong(2)}, nombreUsuario);
+        return filas.stream().findFirst();
+    }
+
+    /**
+     * Página del directorio ordenada por nombre, después de un nombre dado (paginación por clave)
+     * Sin OFFSET: cada página cuesta lo mismo sin importar cuán lejos esté.
+     * Con rol usa el índice (rol_id, nombre_usuario) (ver db/usuarios_directorio.sql)
+     * @param despuesDe Último nombre de la página anterior (null = primera página)
+     * @param rolId Solo usuarios de este rol (null = todos)
+     * @param descendente Orden Z-A
+     */
+    public List<UsuarioFilaDTO> listarPagina(String despuesDe, Long rolId, boolean descendente, int limite) {
+        StringBuilder sql = new StringBuilder(
+            "SELECT u.id, u.nombre_usuario, u.rol_id, r.nombre FROM usuarios u JOIN roles r ON r.id = u.rol_id WHERE 1 = 1");
+        List<Object> parametros = new ArrayList<>();
+        if (rolId != null) {
+            sql.append(" AND u.rol_id = ?");
+            parametros.add(rolId);
+        }
+        if (despuesDe != null) {
+            sql.append(descendente ? " AND u.nombre_usuario < ?" : " AND u.nombre_usuario > ?");
+            parametros.add(despuesDe);
+        }
+        sql.append(" ORDER BY u.nombre_usuario").append(descendente ? " DESC" : "").append(" LIMIT ?");
+        parametros.add(limite);
+
+        return jdbcTemplate.query(sql.toString(),
+            (rs, fila) -> new UsuarioFilaDTO(rs.getLong(1), rs.getString(2), rs.getLong(3), rs.getString(4)),
+            parametros.toArray());
+    }
+}
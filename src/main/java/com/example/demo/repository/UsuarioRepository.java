@@ -2,7 +2,10 @@ package com.example.demo.repository;
 
 import com.example.demo.model.Rol;
 import com.example.demo.model.Usuario;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -14,7 +17,26 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     Optional<Usuario> findByNombreUsuario(String nombreUsuario);
     
     boolean existsByNombreUsuario(String nombreUsuario);
+
+    // Usuario con su rol y los permisos del rol en una sola consulta
+    @EntityGraph(attributePaths = {"rol", "rol.permisos"})
+    Optional<Usuario> findConPermisosByNombreUsuario(String nombreUsuario);
     
     // ← AGREGAR ESTE MÉTODO
     List<Usuario> findByRol(Rol rol);
+
+    // Conteos sin materializar usuarios
+    long countByRol_Id(Long rolId);
+
+    // Cantidad de usuarios por rol en una sola consulta: [rolId, cantidad]
+    @Query("SELECT u.rol.id, COUNT(u) FROM Usuario u GROUP BY u.rol.id")
+    List<Object[]> contarUsuariosAgrupadosPorRol();
+
+    // Solo el id, sin cargar el usuario ni su rol
+    @Query("SELECT u.id FROM Usuario u WHERE u.nombreUsuario = :nombreUsuario")
+    Optional<Long> findIdByNombreUsuario(@Param("nombreUsuario") String nombreUsuario);
+
+    // Solo el rol del usuario (refresco de autoridades de sesiones abiertas)
+    @Query("SELECT u.rol.id FROM Usuario u WHERE u.id = :id")
+    Optional<Long> findRolIdById(@Param("id") Long id);
 }
\ No newline at end of file
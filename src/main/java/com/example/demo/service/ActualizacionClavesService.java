@@ -0,0 +1,77 @@
+package com.example.demo.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Servicio de re-hash de contraseñas en segundo plano
+ * Los logins exitosos con un hash débil encolan el nuevo hash aquí
+ * y un proceso periódico los persiste en un único batch UPDATE
+ */
+@Service
+public class ActualizacionClavesService {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // nombreUsuario -> nuevo hash (si el usuario vuelve a loguearse, gana el último)
+    private final Map<String, String> pendientes = new ConcurrentHashMap<>();
+
+    /**
+     * Encolar un nuevo hash para persistir (no bloquea el request de login)
+     */
+    public void encolar(String nombreUsuario, String nuevoHash) {
+        pendientes.put(nombreUsuario, nuevoHash);
+    }
+
+    /**
+     * Cantidad de hashes pendientes de persistir
+     */
+    public int getPendientes() {
+        return pendientes.size();
+    }
+
+    /**
+     * Persistir todos los hashes pendientes en un único batch
+     */
+    @Scheduled(fixedDelayString = "${seguridad.bcrypt.rehash.intervalo-ms:5000}")
+    public void procesarPendientes() {
+        if (pendientes.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> lote = new ArrayList<>();
+        for (Map.Entry<String, String> entrada : pendientes.entrySet()) {
+            // remove(clave, valor): si llegó un hash más nuevo mientras tanto, queda para el próximo ciclo
+            if (pendientes.remove(entrada.getKey(), entrada.getValue())) {
+                lote.add(new Object[]{entrada.getValue(), entrada.getKey()});
+            }
+        }
+
+        if (lote.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate("UPDATE usuarios SET clave = ? WHERE nombre_usuario = ?", lote);
+            System.out.println("✓ Re-hash de contraseñas persistido: " + lote.size() + " usuario(s)");
+        } catch (Exception e) {
+            System.err.println("⚠️ Error al persistir re-hash de contraseñas: " + e.getMessage());
+            // Reencolar sin pisar hashes más nuevos
+            lote.forEach(fila -> pendientes.putIfAbsent((String) fila[1], (String) fila[0]));
+        }
+    }
+
+    @PreDestroy
+    public void vaciarAlCerrar() {
+        procesarPendientes();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PrincipalSesion;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.event.AbstractAuthenticationFailureEvent;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.authentication.OAuth2LoginAuthenticationToken;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Auditoría de logins a partir de los eventos de autenticación de Spring Security
+ * Único punto que registra LOGIN_EXITOSO, OAUTH2_LOGIN y LOGIN_FALLIDO: un registro
+ * por login. El id del usuario sale del principal de sesión (ya resuelto durante la
+ * autenticación), así la escritura no vuelve a buscar al usuario por nombre
+ */
+@Component
+public class AuditoriaLoginListener {
+
+    @Autowired
+    private AuditoriaService auditoriaService;
+
+    @EventListener
+    public void loginExitoso(AuthenticationSuccessEvent evento) {
+        Authentication autenticacion = evento.getAuthentication();
+        if (!(autenticacion.getPrincipal() instanceof PrincipalSesion principal)) {
+            return;
+        }
+
+        HttpServletRequest request = requestActual();
+        try {
+            if (autenticacion instanceof OAuth2LoginAuthenticationToken oauth2) {
+                String provider = oauth2.getClientRegistration().getRegistrationId();
+                auditoriaService.registrarLoginOAuth2(principal.getUsuarioId(), principal.getUsername(), provider, request);
+                System.out.println("✓ OAUTH2 LOGIN EXITOSO: " + principal.getUsername() + " con " + provider);
+            } else {
+                auditoriaService.registrarLoginExitoso(principal.getUsuarioId(), principal.getUsername(), request);
+                System.out.println("✓ LOGIN EXITOSO: " + principal.getUsername());
+            }
+        } catch (Exception e) {
+            System.err.println("⚠️ Error al registrar auditoría de login: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Solo los logins con usuario y contraseña: en un fallo OAuth2 no hay usuario de la BD
+     */
+    @EventListener
+    public void loginFallido(AbstractAuthenticationFailureEvent evento) {
+        if (!(evento.getAuthentication() instanceof UsernamePasswordAuthenticationToken intento)) {
+            return;
+        }
+        String username = intento.getName();
+        if (username == null || username.isEmpty()) {
+            return;
+        }
+
+        try {
+            String motivo = evento.getException().getMessage() != null
+                ? evento.getException().getMessage() : "Credenciales incorrectas";
+            auditoriaService.registrarLoginFallido(username, requestActual(), motivo);
+            System.out.println("✗ LOGIN FALLIDO: " + username + " - Motivo: " + motivo);
+        } catch (Exception e) {
+            System.err.println("⚠️ Error al registrar auditoría de login fallido: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Request en curso: los eventos se publican en el hilo del request
+     */
+    private HttpServletRequest requestActual() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes atributos
+            ? atributos.getRequest() : null;
+    }
+}
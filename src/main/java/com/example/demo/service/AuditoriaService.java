@@ -1,5 +1,7 @@
 package com.example.demo.service;
 
+import com.example.demo.config.Bulkhead;
+import com.example.demo.config.ContextoBulkhead;
 import com.example.demo.model.Auditoria;
 import com.example.demo.model.Usuario;
 import com.example.demo.repository.AuditoriaRepository;
@@ -9,10 +11,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.scheduling.annotation.Async;
+import org.hibernate.Hibernate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -32,8 +35,16 @@ public class AuditoriaService {
     @Autowired
     private UsuarioRepository usuarioRepository;
 
+    @Autowired
+    private EscritorAuditoria escritorAuditoria;
+
+    @Autowired
+    private FiltroNombresUsuario filtroNombresUsuario;
+
     /**
      * Registrar evento de auditoría de forma asíncrona
+     * IP y User-Agent se leen aquí, en el hilo del request; la escritura
+     * en BD la hace EscritorAuditoria en el executor asíncrono
      * @param nombreUsuario Usuario que realiza la acción
      * @param accion Tipo de acción realizada
      * @param recurso Recurso afectado
@@ -41,44 +52,36 @@ public class AuditoriaService {
      * @param resultado Resultado de la acción
      * @param detalles Información adicional
      */
-    @Async
-    @Transactional
     public void registrarEvento(String nombreUsuario, String accion, String recurso,
                                 HttpServletRequest request, Auditoria.Resultado resultado,
                                 String detalles) {
-        try {
-            Optional<Usuario> usuarioOpt = usuarioRepository.findByNombreUsuario(nombreUsuario);
-            
-            if (usuarioOpt.isEmpty()) {
-                System.err.println("⚠️ No se pudo registrar auditoría: Usuario no encontrado - " + nombreUsuario);
-                return;
-            }
-
-            Auditoria evento = new Auditoria();
-            evento.setUsuario(usuarioOpt.get());
-            evento.setAccion(accion);
-            evento.setRecurso(recurso);
-            evento.setResultado(resultado);
-            evento.setDetalles(detalles);
-
-            if (request != null) {
-                evento.setIpAddress(obtenerIPReal(request));
-                evento.setUserAgent(request.getHeader("User-Agent"));
-            }
-
-            auditoriaRepository.save(evento);
-            
-            System.out.println("✓ Auditoría registrada: " + evento);
-            
-        } catch (Exception e) {
-            System.err.println("❌ Error al registrar auditoría: " + e.getMessage());
+        registrarEvento(null, nombreUsuario, accion, recurso, request, resultado, detalles);
+    }
+
+    /**
+     * Registrar evento de un usuario ya identificado por su id en la BD
+     * (p. ej. el principal de sesión): la escritura no vuelve a buscarlo por nombre
+     */
+    public void registrarEvento(Long usuarioId, String nombreUsuario, String accion, String recurso,
+                                HttpServletRequest request, Auditoria.Resultado resultado,
+                                String detalles) {
+        // Sin id y con un nombre que seguro no existe (p. ej. "anonymous"): no hay a quién asociarlo
+        if (usuarioId == null && !filtroNombresUsuario.puedeExistir(nombreUsuario)) {
+            System.out.println("⏭️ Auditoría omitida, usuario inexistente: " + nombreUsuario + " (" + accion + ")");
+            return;
+        }
+        String ip = null;
+        String userAgent = null;
+        if (request != null) {
+            ip = obtenerIPReal(request);
+            userAgent = request.getHeader("User-Agent");
         }
+        escritorAuditoria.escribir(usuarioId, nombreUsuario, accion, recurso, ip, userAgent, resultado, detalles);
     }
 
     /**
      * Sobrecarga: Registrar evento exitoso sin detalles
      */
-    @Async
     public void registrarEvento(String nombreUsuario, String accion, String recurso,
                                 HttpServletRequest request) {
         registrarEvento(nombreUsuario, accion, recurso, request, Auditoria.Resultado.EXITOSO, null);
@@ -87,16 +90,16 @@ public class AuditoriaService {
     /**
      * Registrar login exitoso
      */
-    public void registrarLoginExitoso(String nombreUsuario, HttpServletRequest request) {
-        registrarEvento(nombreUsuario, "LOGIN_EXITOSO", "/login", 
+    public void registrarLoginExitoso(Long usuarioId, String nombreUsuario, HttpServletRequest request) {
+        registrarEvento(usuarioId, nombreUsuario, "LOGIN_EXITOSO", "/login", 
                        request, Auditoria.Resultado.EXITOSO, "Autenticación correcta");
     }
 
     /**
      * Registrar login OAuth2
      */
-    public void registrarLoginOAuth2(String nombreUsuario, String provider, HttpServletRequest request) {
-        registrarEvento(nombreUsuario, "OAUTH2_LOGIN", "/oauth2/" + provider,
+    public void registrarLoginOAuth2(Long usuarioId, String nombreUsuario, String provider, HttpServletRequest request) {
+        registrarEvento(usuarioId, nombreUsuario, "OAUTH2_LOGIN", "/oauth2/" + provider,
                        request, Auditoria.Resultado.EXITOSO, "Autenticación OAuth2: " + provider);
     }
 
@@ -143,10 +146,25 @@ public class AuditoriaService {
         return auditoriaRepository.findAllByOrderByFechaHoraDesc(pageable);
     }
 
+    /**
+     * Eventos para la API JSON: el serializador recorre usuario → rol → permisos
+     * fuera de la transacción, así que los permisos se inicializan acá
+     * (una consulta para todos los roles de la página, por @BatchSize)
+     */
+    @Transactional(readOnly = true)
+    public Page<Auditoria> obtenerEventosParaApi(int pagina, int tamanio) {
+        Page<Auditoria> eventos = obtenerTodosLosEventos(pagina, tamanio);
+        eventos.forEach(evento -> Hibernate.initialize(evento.getUsuario().getRol().permisos));
+        return eventos;
+    }
+
     /**
      * Buscar eventos por usuario
      */
     public Page<Auditoria> buscarPorUsuario(String nombreUsuario, int pagina, int tamanio) {
+        if (!filtroNombresUsuario.puedeExistir(nombreUsuario)) {
+            return Page.empty();
+        }
         Optional<Usuario> usuarioOpt = usuarioRepository.findByNombreUsuario(nombreUsuario);
         if (usuarioOpt.isEmpty()) {
             return Page.empty();
@@ -175,14 +193,17 @@ public class AuditoriaService {
      * Obtener eventos de hoy
      */
     public List<Auditoria> obtenerEventosDeHoy() {
-        return auditoriaRepository.findEventosDeHoy();
+        LocalDateTime inicio = LocalDate.now().atStartOfDay();
+        return auditoriaRepository.findEventosEntre(inicio, inicio.plusDays(1));
     }
 
     /**
      * Obtener estadísticas por acción
+     * El GROUP BY recorre toda la tabla: va por el bulkhead de lecturas masivas
      */
     public List<Object[]> obtenerEstadisticasPorAccion() {
-        return auditoriaRepository.getEstadisticasPorAccion();
+        return ContextoBulkhead.ejecutar(Bulkhead.LECTURA_MASIVA,
+            () -> auditoriaRepository.getEstadisticasPorAccion());
     }
 
     /**
@@ -199,7 +220,7 @@ public class AuditoriaService {
     /**
      * Obtener IP real del cliente (considerando proxies)
      */
-    private String obtenerIPReal(HttpServletRequest request) {
+    public String obtenerIPReal(HttpServletRequest request) {
         String ip = request.getHeader("X-Forwarded-For");
         if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
             ip = request.getHeader("Proxy-Client-IP");
@@ -0,0 +1,309 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.EventoInvalidacion;
+import com.example.demo.dto.PrincipalSesion;
+import com.example.demo.dto.RolDTO;
+import com.example.demo.repository.UsuarioRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Autoridades (ROLE_ y PERM_) de las sesiones
+ * - Se construyen desde el catálogo en memoria y se cachean por rol y versión del catálogo
+ * - Los principales quedan sellados con RolCatalog.versionAutoridades(); si la versión
+ *   avanzó, RefrescoAutoridadesFilter reconstruye las autoridades sin que el usuario
+ *   vuelva a iniciar sesión
+ * - Los cambios de rol se recuerdan en memoria (usuarioId -> rol), así el refresco
+ *   no consulta la BD. Solo los cambios de rol hechos en otro nodo se releen de la BD,
+ *   una vez por sesión afectada
+ * - Cada cambio recordado solo vale para principales sellados antes de él y se olvida
+ *   pasada la vida de una sesión (server.servlet.session.timeout): los que aún sean más
+ *   viejos releen su rol de la BD
+ */
+@Service
+public class AutoridadesService {
+
+    // Rol reasignado en otro nodo: hay que leerlo de la BD
+    private static final Long ROL_DESCONOCIDO = -1L;
+    // Más reasignaciones que esto se anuncian como un único evento "varios"
+    private static final int MAXIMO_EVENTOS_POR_REASIGNACION = 100;
+    // Tope de cambios recordados entre barridos (reasignaciones masivas)
+    private static final int MAXIMO_REASIGNACIONES = 10_000;
+
+    @Autowired
+    private RolCatalog rolCatalog;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private BusInvalidacion busInvalidacion;
+
+    @Value("${server.servlet.session.timeout:30m}")
+    private Duration retencionReasignaciones;
+
+    // usuarioId -> último cambio de rol todavía relevante para alguna sesión
+    private final Map<Long, Reasignacion> rolesReasignados = new ConcurrentHashMap<>();
+    // Los principales sellados antes de esta versión releen su rol (reasignación masiva en otro nodo)
+    private volatile long versionConsultaGeneral;
+    private volatile AutoridadesPorRol cache = new AutoridadesPorRol(-1);
+
+    @PostConstruct
+    public void iniciar() {
+        busInvalidacion.suscribir(EventoInvalidacion.Tipo.ROL_USUARIO, this::aplicarReasignacionesRemotas);
+    }
+
+    /**
+     * Versión vigente de autoridades (la que se sella en los principales)
+     */
+    public long versionActual() {
+        return rolCatalog.versionAutoridades();
+    }
+
+    /**
+     * Autoridades de un rol según la instantánea vigente del catálogo
+     */
+    public List<GrantedAuthority> autoridades(Long rolId) {
+        RolCatalog.Instantanea catalogo = rolCatalog.actual();
+        AutoridadesPorRol vigente = cache;
+        if (vigente.versionCatalogo != catalogo.getVersion()) {
+            vigente = new AutoridadesPorRol(catalogo.getVersion());
+            cache = vigente;
+        }
+        return vigente.porRol.computeIfAbsent(rolId, id -> construir(catalogo, id));
+    }
+
+    /**
+     * Registrar cambios de rol de usuarios (al confirmar la transacción actual)
+     * @param rolPorUsuario usuarioId -> nuevo rolId
+     */
+    public void rolesReasignados(Map<Long, Long> rolPorUsuario) {
+        if (rolPorUsuario.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> cambios = Map.copyOf(rolPorUsuario);
+        alConfirmar(() -> {
+            recordar(cambios);
+            rolCatalog.autoridadesCambiadas();
+            long version = rolCatalog.versionAutoridades();
+            if (cambios.size() > MAXIMO_EVENTOS_POR_REASIGNACION) {
+                busInvalidacion.enviar(EventoInvalidacion.Tipo.ROL_USUARIO, null, version);
+            } else {
+                cambios.keySet().forEach(usuarioId ->
+                    busInvalidacion.enviar(EventoInvalidacion.Tipo.ROL_USUARIO, usuarioId, version));
+            }
+        });
+    }
+
+    /**
+     * Nueva autenticación con las autoridades vigentes para el mismo usuario
+     */
+    public Authentication refrescar(Authentication autenticacion) {
+        PrincipalSesion principal = (PrincipalSesion) autenticacion.getPrincipal();
+        // Se lee antes de construir: un cambio concurrente deja la sesión vieja otra vez
+        long version = versionActual();
+        Long rolId = rolVigente(principal.getUsuarioId(), principal.getRolId(), principal.getVersionAutoridades());
+        List<GrantedAuthority> authorities = autoridades(rolId);
+        PrincipalSesion nuevo = principal.conRol(rolId, version, authorities);
+
+        if (autenticacion instanceof OAuth2AuthenticationToken token) {
+            OAuth2AuthenticationToken refrescada = new OAuth2AuthenticationToken(nuevo, authorities,
+                token.getAuthorizedClientRegistrationId());
+            refrescada.setDetails(token.getDetails());
+            return refrescada;
+        }
+
+        UsernamePasswordAuthenticationToken refrescada =
+            UsernamePasswordAuthenticationToken.authenticated(nuevo, null, authorities);
+        refrescada.setDetails(autenticacion.getDetails());
+        return refrescada;
+    }
+
+    /**
+     * Rol vigente de un usuario cuyo rol se conoció en una versión de autoridades anterior
+     * (principal de sesión o usuario cacheado); solo consulta la BD si lo reasignó otro nodo
+     */
+    public Long rolVigente(Long usuarioId, Long rolConocido, long versionConocida) {
+        Reasignacion reasignacion = rolesReasignados.get(usuarioId);
+        // Sellado después del cambio: el rol conocido ya lo incluye
+        if (reasignacion != null && versionConocida > reasignacion.versionPrevia) {
+            reasignacion = null;
+        }
+        if (reasignacion != null && !ROL_DESCONOCIDO.equals(reasignacion.rolId)) {
+            return reasignacion.rolId;
+        }
+        if (reasignacion != null || versionConocida < versionConsultaGeneral) {
+            return usuarioRepository.findRolIdById(usuarioId).orElse(rolConocido);
+        }
+        return rolConocido;
+    }
+
+    /**
+     * Cambios de rol hechos en otro nodo: el rol nuevo no viaja en el evento
+     */
+    private void aplicarReasignacionesRemotas(List<EventoInvalidacion> eventos) {
+        Map<Long, Long> cambios = new HashMap<>();
+        for (EventoInvalidacion evento : eventos) {
+            if (evento.getEntidadId() == null) {
+                subirConsultaGeneral(rolCatalog.versionAutoridades() + 1);
+            } else {
+                cambios.put(evento.getEntidadId(), ROL_DESCONOCIDO);
+            }
+        }
+        recordar(cambios);
+        rolCatalog.autoridadesCambiadas();
+    }
+
+    /**
+     * Olvidar los cambios de rol más viejos que una sesión: los principales sellados
+     * antes de ellos (usuarios cacheados) pasan a releer su rol de la BD
+     * @return Cambios olvidados
+     */
+    @Scheduled(fixedDelayString = "${autoridades.barrido-ms:60000}")
+    public int barrerReasignaciones() {
+        return olvidar(System.nanoTime() - retencionReasignaciones.toNanos());
+    }
+
+    /**
+     * Recordar cambios ya confirmados, antes de avanzar la versión de autoridades
+     * Un principal sellado con una versión mayor a la leída aquí leyó su rol después
+     * de la confirmación, así que el cambio ya no le aplica
+     */
+    private void recordar(Map<Long, Long> rolPorUsuario) {
+        long versionPrevia = rolCatalog.versionAutoridades();
+        long ahora = System.nanoTime();
+        rolPorUsuario.forEach((usuarioId, rolId) ->
+            rolesReasignados.put(usuarioId, new Reasignacion(rolId, versionPrevia, ahora)));
+        if (rolesReasignados.size() > MAXIMO_REASIGNACIONES) {
+            olvidar(ahora);
+        }
+    }
+
+    private int olvidar(long registradasAntesDe) {
+        int olvidadas = 0;
+        for (Map.Entry<Long, Reasignacion> entrada : rolesReasignados.entrySet()) {
+            Reasignacion reasignacion = entrada.getValue();
+            if (reasignacion.registradaNanos - registradasAntesDe <= 0
+                    && rolesReasignados.remove(entrada.getKey(), reasignacion)) {
+                subirConsultaGeneral(reasignacion.versionPrevia + 1);
+                olvidadas++;
+            }
+        }
+        return olvidadas;
+    }
+
+    private synchronized void subirConsultaGeneral(long version) {
+        if (version > versionConsultaGeneral) {
+            versionConsultaGeneral = version;
+        }
+    }
+
+    private List<GrantedAuthority> construir(RolCatalog.Instantanea catalogo, Long rolId) {
+        RolDTO rol = catalogo.rolPorId(rolId);
+        List<String> nombres = new ArrayList<>();
+
+        // Rol con prefijo ROLE_ (requerido por Spring Security)
+        nombres.add(mapRoleToSpringRole(rol != null ? rol.getNombre() : null));
+
+        // Permisos efectivos (directos + heredados por la jerarquía) con prefijo PERM_
+        catalogo.permisosEfectivos(rolId).forEach(permiso -> nombres.add("PERM_" + normalizar(permiso)));
+        // Misma instancia que las sesiones deserializadas con el mismo conjunto
+        return PrincipalSesion.internar(nombres);
+    }
+
+    /**
+     * Mapea los nombres de roles de la BD a roles de Spring Security
+     * IMPORTANTE: "Administrador del Sistema" SIEMPRE se mapea a ROLE_ADMIN
+     */
+    private String mapRoleToSpringRole(String dbRoleName) {
+        if (dbRoleName == null) {
+            return "ROLE_USER";
+        }
+
+        String normalizado = dbRoleName.trim();
+        switch (normalizado) {
+            case "Administrador del Sistema":
+                return "ROLE_ADMIN";
+            case "Personal":
+                return "ROLE_PERSONAL";
+            case "Jefe de Área":
+                return "ROLE_JEFE_AREA";
+            case "Gerente":
+                return "ROLE_GERENTE";
+            case "Director":
+                return "ROLE_DIRECTOR";
+            case "Supervisor":
+                return "ROLE_SUPERVISOR";
+            default:
+                // Para cualquier rol personalizado, crear uno genérico con ROLE_ prefix
+                return "ROLE_" + normalizar(normalizado);
+        }
+    }
+
+    private String normalizar(String nombre) {
+        return nombre
+            .toUpperCase()
+            .replace(" ", "_")
+            .replace("Á", "A")
+            .replace("É", "E")
+            .replace("Í", "I")
+            .replace("Ó", "O")
+            .replace("Ú", "U");
+    }
+
+    private void alConfirmar(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+
+    /**
+     * Rol nuevo de un usuario y la versión de autoridades vigente antes del cambio
+     */
+    private static final class Reasignacion {
+        private final Long rolId;
+        private final long versionPrevia;
+        private final long registradaNanos;
+
+        private Reasignacion(Long rolId, long versionPrevia, long registradaNanos) {
+            this.rolId = rolId;
+            this.versionPrevia = versionPrevia;
+            this.registradaNanos = registradaNanos;
+        }
+    }
+
+    /**
+     * Autoridades ya construidas para una versión del catálogo
+     */
+    private static final class AutoridadesPorRol {
+        private final long versionCatalogo;
+        private final Map<Long, List<GrantedAuthority>> porRol = new ConcurrentHashMap<>();
+
+        private AutoridadesPorRol(long versionCatalogo) {
+            this.versionCatalogo = versionCatalogo;
+        }
+    }
+}
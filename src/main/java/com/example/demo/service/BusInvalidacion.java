@@ -0,0 +1,153 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.EventoInvalidacion;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Bus de invalidación de cachés en memoria entre nodos
+ * - Cada nodo publica sus cambios (tipo de entidad, id y versión) por el transporte
+ * - Un sondeo programado trae los cambios de los demás nodos y los entrega, agrupados
+ *   por tipo, a los suscriptores. Los eventos propios se ignoran (ya se aplicaron localmente)
+ * La frescura entre nodos queda acotada por invalidacion.intervalo-ms, sin consultas por request
+ */
+@Service
+public class BusInvalidacion {
+
+    @Autowired
+    private TransporteInvalidacion transporte;
+
+    @Value("${invalidacion.nodo-id:}")
+    private String nodoConfigurado;
+
+    private String nodoId;
+    private final Map<EventoInvalidacion.Tipo, List<Consumer<List<EventoInvalidacion>>>> suscriptores =
+        new EnumMap<>(EventoInvalidacion.Tipo.class);
+    private final AtomicLong publicados = new AtomicLong();
+    private final AtomicLong recibidos = new AtomicLong();
+    private final AtomicLong aplicados = new AtomicLong();
+    private final AtomicLong errores = new AtomicLong();
+
+    @PostConstruct
+    public void iniciar() {
+        nodoId = nodoConfigurado == null || nodoConfigurado.isBlank()
+            ? UUID.randomUUID().toString().substring(0, 8)
+            : nodoConfigurado;
+        for (EventoInvalidacion.Tipo tipo : EventoInvalidacion.Tipo.values()) {
+            suscriptores.put(tipo, new CopyOnWriteArrayList<>());
+        }
+        System.out.println("📡 Bus de invalidación activo en el nodo '" + nodoId + "' ("
+            + transporte.getClass().getSimpleName() + ")");
+    }
+
+    /**
+     * Recibir los cambios de otros nodos de un tipo (en lotes, uno por sondeo)
+     */
+    public void suscribir(EventoInvalidacion.Tipo tipo, Consumer<List<EventoInvalidacion>> suscriptor) {
+        suscriptores.get(tipo).add(suscriptor);
+    }
+
+    /**
+     * Publicar un cambio cuando confirme la transacción actual (o de inmediato si no hay)
+     */
+    public void publicar(EventoInvalidacion.Tipo tipo, Long entidadId, long version) {
+        EventoInvalidacion evento = new EventoInvalidacion(tipo, entidadId, version, nodoId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enviar(evento);
+                }
+            });
+        } else {
+            enviar(evento);
+        }
+    }
+
+    /**
+     * Enviar un cambio ya confirmado (para usar desde afterCommit, donde ya no
+     * se pueden registrar nuevas sincronizaciones de la transacción)
+     */
+    public void enviar(EventoInvalidacion.Tipo tipo, Long entidadId, long version) {
+        enviar(new EventoInvalidacion(tipo, entidadId, version, nodoId));
+    }
+
+    /**
+     * Traer y aplicar los cambios de los demás nodos
+     */
+    @Scheduled(fixedDelayString = "${invalidacion.intervalo-ms:2000}")
+    public void sondear() {
+        List<EventoInvalidacion> eventos;
+        try {
+            eventos = transporte.recibir();
+        } catch (Exception e) {
+            errores.incrementAndGet();
+            System.err.println("❌ Error al leer el bus de invalidación: " + e.getMessage());
+            return;
+        }
+
+        Map<EventoInvalidacion.Tipo, List<EventoInvalidacion>> porTipo = new EnumMap<>(EventoInvalidacion.Tipo.class);
+        for (EventoInvalidacion evento : eventos) {
+            if (!nodoId.equals(evento.getNodo())) {
+                porTipo.computeIfAbsent(evento.getTipo(), t -> new ArrayList<>()).add(evento);
+            }
+        }
+
+        porTipo.forEach((tipo, lote) -> {
+            recibidos.addAndGet(lote.size());
+            for (Consumer<List<EventoInvalidacion>> suscriptor : suscriptores.get(tipo)) {
+                try {
+                    suscriptor.accept(lote);
+                    aplicados.addAndGet(lote.size());
+                } catch (Exception e) {
+                    errores.incrementAndGet();
+                    System.err.println("❌ Error al aplicar " + lote.size() + " cambio(s) " + tipo + ": " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    public String getNodoId() {
+        return nodoId;
+    }
+
+    /**
+     * Contadores del bus para /admin/metricas/invalidacion
+     */
+    public Map<String, Object> obtenerEstadisticas() {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("nodo", nodoId);
+        datos.put("transporte", transporte.getClass().getSimpleName());
+        datos.put("publicados", publicados.get());
+        datos.put("recibidos", recibidos.get());
+        datos.put("aplicados", aplicados.get());
+        datos.put("errores", errores.get());
+        return datos;
+    }
+
+    private void enviar(EventoInvalidacion evento) {
+        try {
+            transporte.publicar(evento);
+            publicados.incrementAndGet();
+        } catch (Exception e) {
+            // El cambio ya está confirmado: los demás nodos lo verán recién con otra invalidación
+            errores.incrementAndGet();
+            System.err.println("❌ Error al publicar " + evento + " en el bus de invalidación: " + e.getMessage());
+        }
+    }
+}
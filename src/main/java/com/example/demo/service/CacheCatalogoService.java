@@ -0,0 +1,102 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Permiso;
+import com.example.demo.model.Rol;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Servicio de la caché de segundo nivel del catálogo Rol/Permiso
+ * - Invalida las regiones del catálogo después de cada mutación de administración
+ * - Expone la tasa de aciertos por región
+ * Usuario y Auditoria no se cachean
+ */
+@Service
+public class CacheCatalogoService {
+
+    public static final String REGION_ROLES = "catalogo.roles";
+    public static final String REGION_ROLES_PERMISOS = "catalogo.roles.permisos";
+    public static final String REGION_PERMISOS = "catalogo.permisos";
+    public static final String REGION_CONSULTAS = "catalogo.consultas";
+
+    private static final List<String> REGIONES = List.of(
+        REGION_ROLES, REGION_ROLES_PERMISOS, REGION_PERMISOS, REGION_CONSULTAS
+    );
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Invalidar el catálogo cuando confirme la transacción actual
+     * (o de inmediato si no hay transacción)
+     * Necesario además de la invalidación automática de Hibernate porque
+     * algunas mutaciones se hacen con SQL directo sobre rol_permisos
+     */
+    public void invalidarAlConfirmar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidar();
+                }
+            });
+        } else {
+            invalidar();
+        }
+    }
+
+    /**
+     * Invalidar de inmediato todas las regiones del catálogo
+     */
+    public void invalidar() {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictEntityData(Rol.class);
+        sessionFactory.getCache().evictEntityData(Permiso.class);
+        sessionFactory.getCache().evictCollectionData(Rol.class.getName() + ".permisos");
+        sessionFactory.getCache().evictQueryRegion(REGION_CONSULTAS);
+        System.out.println("♻️ Caché del catálogo de roles/permisos invalidada");
+    }
+
+    /**
+     * Estadísticas por región: aciertos, fallos, escrituras y tasa de aciertos
+     */
+    public Map<String, Map<String, Object>> obtenerEstadisticas() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Map<String, Map<String, Object>> resultado = new LinkedHashMap<>();
+
+        for (String region : REGIONES) {
+            Map<String, Object> datos = new LinkedHashMap<>();
+            CacheRegionStatistics stats = obtenerEstadisticasRegion(statistics, region);
+            if (stats == null) {
+                datos.put("estado", "sin actividad");
+            } else {
+                long aciertos = stats.getHitCount();
+                long fallos = stats.getMissCount();
+                datos.put("aciertos", aciertos);
+                datos.put("fallos", fallos);
+                datos.put("escrituras", stats.getPutCount());
+                datos.put("tasaAciertos", aciertos + fallos == 0 ? 0.0 : (double) aciertos / (aciertos + fallos));
+            }
+            resultado.put(region, datos);
+        }
+        return resultado;
+    }
+
+    private CacheRegionStatistics obtenerEstadisticasRegion(Statistics statistics, String region) {
+        try {
+            return statistics.getCacheRegionStatistics(region);
+        } catch (IllegalArgumentException e) {
+            return null; // La región todavía no fue creada
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.RolDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caché de fragmentos de vistas que solo dependen del rol (templates/fragmentos/rol.html)
+ * Clave: (fragmento, rol, versión del catálogo). Cualquier cambio de roles, permisos,
+ * jerarquía o usuarios por rol publica una versión nueva y el fragmento se vuelve a
+ * renderizar en el primer request que lo pide; se guarda solo la última versión por clave.
+ * Al ver una versión nueva se descartan las entradas de roles que ya no existen
+ * Las vistas lo insertan con th:utext="${@cacheFragmentosRol.renderizar('permisos', rolId)}"
+ * Dos requests simultáneos sin caché pueden renderizar el mismo fragmento: el resultado es igual
+ */
+@Service
+public class CacheFragmentosRol {
+
+    private static final String PLANTILLA = "fragmentos/rol";
+    private static final Set<String> FRAGMENTOS = Set.of("permisos", "autorizacion", "acceso", "rolResumen");
+
+    @Autowired
+    private SpringTemplateEngine templateEngine;
+
+    @Autowired
+    private RolCatalog rolCatalog;
+
+    @Autowired
+    private SistemaLogin sistemaLogin;
+
+    private final Map<String, Entrada> entradas = new ConcurrentHashMap<>();
+    // Última versión del catálogo con la que se barrieron los roles eliminados
+    private final AtomicLong versionBarrida = new AtomicLong(-1);
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong renderizados = new AtomicLong();
+    private final AtomicLong nanosRenderizado = new AtomicLong();
+
+    /**
+     * HTML del fragmento para el rol, de la caché si la versión del catálogo no cambió
+     * @return Vacío si el rol ya no existe
+     */
+    public String renderizar(String fragmento, Long rolId) {
+        if (!FRAGMENTOS.contains(fragmento)) {
+            throw new IllegalArgumentException("Fragmento desconocido: " + fragmento);
+        }
+        RolCatalog.Instantanea catalogo = rolCatalog.actual();
+        long barrida = versionBarrida.get();
+        if (barrida != catalogo.getVersion() && versionBarrida.compareAndSet(barrida, catalogo.getVersion())) {
+            entradas.values().removeIf(vieja -> catalogo.rolPorId(vieja.rolId) == null);
+        }
+        String clave = fragmento + "#" + rolId;
+        Entrada entrada = entradas.get(clave);
+        if (entrada != null && entrada.version == catalogo.getVersion()) {
+            aciertos.incrementAndGet();
+            return entrada.html;
+        }
+
+        RolDTO rol = catalogo.rolPorId(rolId);
+        if (rol == null) {
+            return "";
+        }
+        long inicio = System.nanoTime();
+        Context contexto = new Context();
+        contexto.setVariable("rol", rol);
+        contexto.setVariable("nombreRol", rol.getNombre());
+        contexto.setVariable("permisos", catalogo.permisosEfectivos(rolId));
+        contexto.setVariable("autorizacionRol", sistemaLogin.autorizacionDelRol(rolId, rol.getNombre()));
+        String html = templateEngine.process(PLANTILLA, Set.of(fragmento), contexto);
+        nanosRenderizado.addAndGet(System.nanoTime() - inicio);
+        renderizados.incrementAndGet();
+
+        entradas.put(clave, new Entrada(rolId, catalogo.getVersion(), html));
+        return html;
+    }
+
+    /**
+     * Aciertos, fragmentos renderizados y tiempo medio de renderizado
+     */
+    public Map<String, Object> obtenerEstadisticas() {
+        long cantidad = renderizados.get();
+        Map<String, Object> estadisticas = new HashMap<>();
+        estadisticas.put("entradas", entradas.size());
+        estadisticas.put("aciertos", aciertos.get());
+        estadisticas.put("renderizados", cantidad);
+        estadisticas.put("msPromedioRenderizado", cantidad == 0 ? 0.0 : nanosRenderizado.get() / 1_000_000.0 / cantidad);
+        return estadisticas;
+    }
+
+    private static final class Entrada {
+        private final Long rolId;
+        private final long version;
+        private final String html;
+
+        private Entrada(Long rolId, long version, String html) {
+            this.rolId = rolId;
+            this.version = version;
+            this.html = html;
+        }
+    }
+}
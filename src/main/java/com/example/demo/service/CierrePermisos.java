@@ -0,0 +1,163 @@
+package com.example.demo.service;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Cierre transitivo de permisos sobre la jerarquía de roles (inmutable)
+ * Un rol "hereda de" otros roles y recibe todos sus permisos, recursivamente.
+ * Los permisos efectivos de cada rol quedan precalculados: consultar un rol
+ * jerárquico cuesta lo mismo que uno plano (un lookup en un mapa)
+ */
+public final class CierrePermisos {
+
+    // rol -> roles de los que hereda directamente
+    private final Map<Long, Set<Long>> heredaDe;
+    // rol -> permisos asignados directamente
+    private final Map<Long, Set<String>> directos;
+    // rol -> permisos efectivos (directos + heredados)
+    private final Map<Long, Set<String>> efectivos;
+
+    private CierrePermisos(Map<Long, Set<Long>> heredaDe, Map<Long, Set<String>> directos,
+                           Map<Long, Set<String>> efectivos) {
+        this.heredaDe = heredaDe;
+        this.directos = directos;
+        this.efectivos = efectivos;
+    }
+
+    /**
+     * Calcular el cierre completo
+     */
+    public static CierrePermisos calcular(Map<Long, Set<String>> directos, Map<Long, Set<Long>> heredaDe) {
+        return new CierrePermisos(copiar(heredaDe), copiar(directos), new HashMap<>())
+            .recalcular(directos.keySet());
+    }
+
+    /**
+     * Cierre nuevo a partir de este, recalculando solo los roles cambiados
+     * y los que heredan de ellos (directa o indirectamente)
+     * @param rolesCambiados Roles con permisos o herencias modificados (incluye altas y bajas)
+     */
+    public CierrePermisos actualizar(Map<Long, Set<String>> nuevosDirectos, Map<Long, Set<Long>> nuevaHerencia,
+                                     Set<Long> rolesCambiados) {
+        CierrePermisos nuevo = new CierrePermisos(copiar(nuevaHerencia), copiar(nuevosDirectos),
+            new HashMap<>(efectivos));
+        nuevo.efectivos.keySet().retainAll(nuevo.directos.keySet()); // roles eliminados
+
+        // Afectados: los cambiados y todos sus herederos, según la jerarquía vieja y la nueva
+        Set<Long> afectados = new HashSet<>();
+        afectados.addAll(herederos(rolesCambiados, invertir(heredaDe)));
+        afectados.addAll(herederos(rolesCambiados, invertir(nuevo.heredaDe)));
+        afectados.retainAll(nuevo.directos.keySet());
+        return nuevo.recalcular(afectados);
+    }
+
+    /**
+     * Permisos efectivos del rol (vacío si el rol no existe)
+     */
+    public Set<String> permisosEfectivos(Long rolId) {
+        return efectivos.getOrDefault(rolId, Set.of());
+    }
+
+    public boolean tienePermiso(Long rolId, String permiso) {
+        return permisosEfectivos(rolId).contains(permiso);
+    }
+
+    /**
+     * Roles de los que hereda directamente
+     */
+    public Set<Long> heredaDe(Long rolId) {
+        return heredaDe.getOrDefault(rolId, Set.of());
+    }
+
+    /**
+     * Verdadero si agregar "rolId hereda de padreId" formaría un ciclo
+     */
+    public boolean formaCiclo(Long rolId, Long padreId) {
+        return formaCiclo(heredaDe, rolId, padreId);
+    }
+
+    /**
+     * Lo mismo sobre aristas dadas (p. ej. leídas de la BD dentro de la transacción)
+     */
+    public static boolean formaCiclo(Map<Long, Set<Long>> heredaDe, Long rolId, Long padreId) {
+        if (rolId.equals(padreId)) {
+            return true;
+        }
+        // Hay ciclo si rolId ya es alcanzable desde padreId
+        Deque<Long> pendientes = new ArrayDeque<>(heredaDe.getOrDefault(padreId, Set.of()));
+        Set<Long> visitados = new HashSet<>();
+        while (!pendientes.isEmpty()) {
+            Long actual = pendientes.pop();
+            if (actual.equals(rolId)) {
+                return true;
+            }
+            if (visitados.add(actual)) {
+                pendientes.addAll(heredaDe.getOrDefault(actual, Set.of()));
+            }
+        }
+        return false;
+    }
+
+    private CierrePermisos recalcular(Set<Long> roles) {
+        roles.forEach(efectivos::remove);
+        Set<Long> enCurso = new HashSet<>();
+        for (Long rolId : roles) {
+            resolver(rolId, enCurso);
+        }
+        return this;
+    }
+
+    private Set<String> resolver(Long rolId, Set<Long> enCurso) {
+        Set<String> calculado = efectivos.get(rolId);
+        if (calculado != null) {
+            return calculado;
+        }
+        if (!enCurso.add(rolId)) {
+            // Ciclo en los datos: se corta acá en vez de recursar sin fin
+            System.err.println("⚠️ Ciclo en la jerarquía de roles en el rol " + rolId);
+            return directos.getOrDefault(rolId, Set.of());
+        }
+        Set<String> permisos = new TreeSet<>(directos.getOrDefault(rolId, Set.of()));
+        for (Long padreId : heredaDe(rolId)) {
+            if (directos.containsKey(padreId)) {
+                permisos.addAll(resolver(padreId, enCurso));
+            }
+        }
+        enCurso.remove(rolId);
+        Set<String> resultado = Collections.unmodifiableSet(permisos);
+        efectivos.put(rolId, resultado);
+        return resultado;
+    }
+
+    private static Set<Long> herederos(Set<Long> roles, Map<Long, Set<Long>> herederosDirectos) {
+        Set<Long> resultado = new HashSet<>();
+        Deque<Long> pendientes = new ArrayDeque<>(roles);
+        while (!pendientes.isEmpty()) {
+            Long actual = pendientes.pop();
+            if (resultado.add(actual)) {
+                pendientes.addAll(herederosDirectos.getOrDefault(actual, Set.of()));
+            }
+        }
+        return resultado;
+    }
+
+    private static Map<Long, Set<Long>> invertir(Map<Long, Set<Long>> heredaDe) {
+        Map<Long, Set<Long>> invertido = new HashMap<>();
+        heredaDe.forEach((rolId, padres) ->
+            padres.forEach(padreId -> invertido.computeIfAbsent(padreId, k -> new HashSet<>()).add(rolId)));
+        return invertido;
+    }
+
+    private static <T> Map<Long, Set<T>> copiar(Map<Long, Set<T>> origen) {
+        Map<Long, Set<T>> copia = new HashMap<>();
+        origen.forEach((clave, valores) -> copia.put(clave, Set.copyOf(valores)));
+        return copia;
+    }
+}
@@ -1,51 +1,67 @@
 package com.example.demo.service;
 
-import com.example.demo.model.Auditoria;
-import com.example.demo.model.Rol;
-import com.example.demo.model.Usuario;
-import com.example.demo.repository.UsuarioRepository;
+import com.example.demo.dto.PrincipalSesion;
+import com.example.demo.repository.UsuarioJdbcRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
 import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
 import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
-import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Servicio personalizado para manejar usuarios OAuth2 (Google, GitHub, etc.)
  * Crea usuarios en la BD en el primer login y asigna authorities correctamente
+ * Los usuarios que vuelven se resuelven desde memoria, sin consultar la BD
  */
 @Service
 public class CustomOAuth2UserService extends DefaultOAuth2UserService {
 
+    private static final String ROL_POR_DEFECTO = "Personal";
+    private static final int MAXIMO_USUARIOS_CACHEADOS = 10_000;
+
+    @Autowired
+    private UsuarioJdbcRepository usuarioJdbcRepository;
+
     @Autowired
-    private UsuarioRepository usuarioRepository;
+    private RolCatalog rolCatalog;
 
     @Autowired
-    private SistemaLogin sistemaLogin;
+    private AutoridadesService autoridadesService;
 
     @Autowired
-    private AuditoriaService auditoriaService; // ← MOVER AQUÍ AL INICIO
+    private FiltroNombresUsuario filtroNombresUsuario;
+
+    // nombre de usuario -> instantánea de los usuarios que ya iniciaron sesión
+    private final Map<String, UsuarioProvisionado> usuariosConocidos = new ConcurrentHashMap<>();
+    // nombre de usuario -> aprovisionamiento en curso (single-flight)
+    private final Map<String, CompletableFuture<UsuarioProvisionado>> aprovisionamientos = new ConcurrentHashMap<>();
 
     @Override
     public OAuth2User loadUser(OAuth2UserRequest userRequest) throws OAuth2AuthenticationException {
+        OAuth2User oauth2User = super.loadUser(userRequest);
+        return construirPrincipal(userRequest.getClientRegistration().getRegistrationId(), oauth2User.getAttributes());
+    }
+
+    /**
+     * Principal de sesión a partir de los datos del proveedor (user-info o claims del ID token)
+     * Aprovisiona el usuario en el primer login
+     */
+    PrincipalSesion construirPrincipal(String provider, Map<String, Object> atributos) {
         try {
-            OAuth2User oauth2User = super.loadUser(userRequest);
-            
-            String provider = userRequest.getClientRegistration().getRegistrationId();
-            
             // ✅ CORREGIR: Obtener atributos según el proveedor
-            String email = oauth2User.getAttribute("email");
-            String login = oauth2User.getAttribute("login"); // GitHub
-            String name = oauth2User.getAttribute("name");
-            String sub = oauth2User.getAttribute("sub"); // Google ID
+            String email = (String) atributos.get("email");
+            String login = (String) atributos.get("login"); // GitHub
+            String name = (String) atributos.get("name");
+            String sub = (String) atributos.get("sub"); // Google ID
             
             // ✅ DEBUG: Ver qué datos llegan
             System.out.println("🔍 OAUTH2 DEBUG:");
@@ -57,7 +73,6 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
             
             // ✅ IMPORTANTE: Construir username de forma consistente
             String username;
-            String displayName;
             
             if ("google".equals(provider)) {
                 // Para Google, SIEMPRE usar el email
@@ -65,7 +80,6 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
                     throw new OAuth2AuthenticationException("Google no proporcionó el email");
                 }
                 username = email;
-                displayName = name != null ? name : email;
                 
             } else if ("github".equals(provider)) {
                 // Para GitHub, usar el login
@@ -73,55 +87,30 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
                     throw new OAuth2AuthenticationException("GitHub no proporcionó el login");
                 }
                 username = "github_" + login;
-                displayName = name != null ? name : login;
                 
             } else {
                 // Para otros proveedores
                 username = provider + "_" + (email != null ? email : sub);
-                displayName = name != null ? name : username;
             }
             
             System.out.println("   ✅ Username generado: " + username);
             
             // Obtener o crear usuario
-            Usuario usuario = obtenerOCrearUsuario(username, provider, displayName);
-            System.out.println("   ✅ Usuario obtenido/creado: " + usuario.getNombreUsuario());
-            System.out.println("   ✅ Usuario ID en BD: " + usuario.getId());
+            UsuarioProvisionado usuario = obtenerOCrearUsuario(username, provider);
+            System.out.println("   ✅ Usuario ID en BD: " + usuario.id);
             
-            // Registrar login OAuth2 en auditoría
-            try {
-                auditoriaService.registrarEvento(
-                    username, // ✅ Usar el username completo, no el sub
-                    "OAUTH2_LOGIN", 
-                    "/oauth2/" + provider,
-                    null,
-                    Auditoria.Resultado.EXITOSO,
-                    "Autenticación OAuth2 con " + provider + " - " + displayName
-                );
-                System.out.println("   ✅ Auditoría registrada correctamente");
-            } catch (Exception e) {
-                System.err.println("   ⚠️ No se pudo registrar auditoría OAuth2: " + e.getMessage());
-                e.printStackTrace();
-            }
-            
-            // Construir authorities
-            List<GrantedAuthority> authorities = construirAuthorities(usuario);
+            // Construir authorities desde el catálogo
+            List<GrantedAuthority> authorities = autoridadesService.autoridades(usuario.rolId);
             System.out.println("   ✅ Authorities: " + authorities);
             
-            // Obtener el atributo clave para el nombre
-            String nameAttributeKey = userRequest.getClientRegistration()
-                .getProviderDetails()
-                .getUserInfoEndpoint()
-                .getUserNameAttributeName();
-            
-            // String finalNameKey = nameAttributeKey != null && !nameAttributeKey.isEmpty() ? nameAttributeKey : "sub";
-            String finalNameKey = "google".equals(provider) ? "email" : nameAttributeKey;
-            System.out.println("   ✅ Name attribute key: " + finalNameKey);
-                
-            return new DefaultOAuth2User(
+            // Principal compacto: el nombre es el de la BD; del proveedor solo sub, email y name
+            return PrincipalSesion.deProveedor(
+                usuario.id,
+                username,
+                usuario.rolId,
+                usuario.version,
                 authorities,
-                oauth2User.getAttributes(), 
-                finalNameKey
+                atributos
             );
             
         } catch (Exception e) {
@@ -133,99 +122,115 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
     
     /**
      * Obtiene un usuario existente o crea uno nuevo con rol Personal
+     * - Usuarios que ya volvieron: instantánea en memoria (sin consultar la BD)
+     * - Primer login: un único aprovisionamiento por nombre de usuario; los logins
+     *   concurrentes de la misma cuenta esperan su resultado en vez de competir por el alta
      */
-    private Usuario obtenerOCrearUsuario(String username, String provider, String displayName) {
-        try {
-            Optional<Usuario> usuarioOpt = usuarioRepository.findByNombreUsuario(username);
+    private UsuarioProvisionado obtenerOCrearUsuario(String username, String provider) {
+        UsuarioProvisionado conocido = usuariosConocidos.get(username);
+        if (conocido != null) {
+            return vigente(username, conocido);
+        }
 
-            if (usuarioOpt.isPresent()) {
-                System.out.println("   ✅ Usuario existente encontrado: " + username);
-                return usuarioOpt.get();
+        CompletableFuture<UsuarioProvisionado> propio = new CompletableFuture<>();
+        CompletableFuture<UsuarioProvisionado> enVuelo = aprovisionamientos.putIfAbsent(username, propio);
+        if (enVuelo != null) {
+            System.out.println("   ⏳ Esperando el aprovisionamiento en curso de: " + username);
+            try {
+                return enVuelo.join();
+            } catch (CompletionException e) {
+                throw new OAuth2AuthenticationException("Error al crear usuario: " + e.getCause().getMessage());
             }
+        }
 
-            System.out.println("   ➕ Creando nuevo usuario OAuth2: " + username);
-
-            // Crear nuevo usuario con rol Personal por defecto
-            Optional<Rol> rolPersonal = sistemaLogin.obtenerRolPorNombre("Personal");
-
-            if (rolPersonal.isEmpty()) {
-                System.err.println("   ❌ Rol 'Personal' no encontrado en la BD");
-                throw new OAuth2AuthenticationException("No se pudo asignar rol al usuario OAuth2");
+        try {
+            UsuarioProvisionado usuario = aprovisionar(username, provider);
+            recordar(username, usuario);
+            propio.complete(usuario);
+            return usuario;
+        } catch (RuntimeException e) {
+            System.err.println("   ❌ Error al obtener/crear usuario: " + e.getMessage());
+            propio.completeExceptionally(e);
+            throw new OAuth2AuthenticationException("Error al crear usuario: " + e.getMessage());
+        } finally {
+            // Un Error tampoco puede dejar colgados los logins que esperan este alta
+            if (!propio.isDone()) {
+                propio.completeExceptionally(new IllegalStateException("El aprovisionamiento de " + username + " no terminó"));
             }
+            aprovisionamientos.remove(username, propio);
+        }
+    }
 
-            Usuario nuevoUsuario = new Usuario();
-            nuevoUsuario.setNombreUsuario(username);
-            nuevoUsuario.setClave("OAUTH2_USER_" + provider); // No se usa para autenticación
-            nuevoUsuario.setRol(rolPersonal.get());
-
-            Usuario usuarioGuardado = usuarioRepository.save(nuevoUsuario);
-            System.out.println("   ✅ Usuario OAuth2 creado exitosamente: " + usuarioGuardado.getId());
+    /**
+     * Buscar el usuario y, si no existe, crearlo con INSERT apoyado en la restricción única
+     */
+    private UsuarioProvisionado aprovisionar(String username, String provider) {
+        // Versión leída antes de leer el rol (ver AutoridadesService.rolVigente)
+        long version = autoridadesService.versionActual();
+        // Primer login de un nombre que seguro no existe: directo al alta
+        Optional<long[]> existente = filtroNombresUsuario.puedeExistir(username)
+            ? usuarioJdbcRepository.buscarIdYRol(username) : Optional.empty();
+        if (existente.isPresent()) {
+            System.out.println("   ✅ Usuario existente encontrado: " + username);
+            return new UsuarioProvisionado(existente.get()[0], existente.get()[1], version);
+        }
 
-            return usuarioGuardado;
+        // Rol por defecto desde la caché del catálogo (rol protegido: su id no cambia)
+        Long rolPersonalId = rolCatalog.idRolProtegido(ROL_POR_DEFECTO);
+        if (rolPersonalId == null) {
+            System.err.println("   ❌ Rol '" + ROL_POR_DEFECTO + "' no encontrado en la BD");
+            throw new IllegalStateException("No se pudo asignar rol al usuario OAuth2");
+        }
 
-        } catch (Exception e) {
-            System.err.println("   ❌ Error al obtener/crear usuario: " + e.getMessage());
-            e.printStackTrace();
-            throw new OAuth2AuthenticationException("Error al crear usuario: " + e.getMessage());
+        System.out.println("   ➕ Creando nuevo usuario OAuth2: " + username);
+        Optional<Long> creado = usuarioJdbcRepository.insertarSiNoExiste(
+            username, "OAUTH2_USER_" + provider, rolPersonalId); // La clave no se usa para autenticación
+        if (creado.isPresent()) {
+            filtroNombresUsuario.registrarAlta(username);
+            rolCatalog.altasRegistradas();
+            System.out.println("   ✅ Usuario OAuth2 creado exitosamente: " + creado.get());
+            return new UsuarioProvisionado(creado.get(), rolPersonalId, version);
         }
+
+        // Otro nodo lo creó entre la búsqueda y el alta
+        long[] creadoPorOtro = usuarioJdbcRepository.buscarIdYRol(username)
+            .orElseThrow(() -> new IllegalStateException("Usuario OAuth2 no encontrado después del alta: " + username));
+        return new UsuarioProvisionado(creadoPorOtro[0], creadoPorOtro[1], version);
     }
-    
+
     /**
-     * Construye las authorities (roles y permisos) desde el usuario de BD
+     * Instantánea cacheada con el rol al día (reasignaciones hechas después de cachearla)
      */
-    private List<GrantedAuthority> construirAuthorities(Usuario usuario) {
-        List<GrantedAuthority> authorities = new ArrayList<>();
-        
-        // Agregar rol con prefijo ROLE_
-        String roleName = usuario.getRol().nombre;
-        String springRole = mapRoleToSpringRole(roleName);
-        authorities.add(new SimpleGrantedAuthority(springRole));
-        
-        // Agregar permisos con prefijo PERM_
-        if (usuario.getRol().permisos != null) {
-            usuario.getRol().permisos.forEach(permiso -> {
-                String permisoNormalizado = "PERM_" + permiso.nombre
-                    .toUpperCase()
-                    .replace(" ", "_")
-                    .replace("Ó", "O")
-                    .replace("É", "E");
-                authorities.add(new SimpleGrantedAuthority(permisoNormalizado));
-            });
+    private UsuarioProvisionado vigente(String username, UsuarioProvisionado conocido) {
+        long version = autoridadesService.versionActual();
+        if (conocido.version == version) {
+            return conocido;
         }
-        
-        return authorities;
+        Long rolId = autoridadesService.rolVigente(conocido.id, conocido.rolId, conocido.version);
+        UsuarioProvisionado actualizado = new UsuarioProvisionado(conocido.id, rolId, version);
+        recordar(username, actualizado);
+        return actualizado;
     }
-    
+
+    private void recordar(String username, UsuarioProvisionado usuario) {
+        if (usuariosConocidos.size() >= MAXIMO_USUARIOS_CACHEADOS) {
+            usuariosConocidos.clear();
+        }
+        usuariosConocidos.put(username, usuario);
+    }
+
     /**
-     * Mapea roles de BD a roles de Spring Security
+     * Id y rol de un usuario OAuth2, con la versión de autoridades en la que se leyó el rol
      */
-    private String mapRoleToSpringRole(String dbRoleName) {
-        if (dbRoleName == null) {
-            return "ROLE_USER";
-        }
-        
-        switch (dbRoleName) {
-            case "Administrador del Sistema":
-                return "ROLE_ADMIN";
-            case "Personal":
-                return "ROLE_PERSONAL";
-            case "Jefe de Área":
-                return "ROLE_JEFE_AREA";
-            case "Gerente":
-                return "ROLE_GERENTE";
-            case "Director":
-                return "ROLE_DIRECTOR";
-            case "Supervisor":
-                return "ROLE_SUPERVISOR";
-            default:
-                return "ROLE_" + dbRoleName
-                    .toUpperCase()
-                    .replace(" ", "_")
-                    .replace("Á", "A")
-                    .replace("É", "E")
-                    .replace("Í", "I")
-                    .replace("Ó", "O")
-                    .replace("Ú", "U");
+    private static final class UsuarioProvisionado {
+        private final long id;
+        private final long rolId;
+        private final long version;
+
+        private UsuarioProvisionado(long id, long rolId, long version) {
+            this.id = id;
+            this.rolId = rolId;
+            this.version = version;
         }
     }
-}
\ No newline at end of file
+}
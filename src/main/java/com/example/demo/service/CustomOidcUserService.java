@@ -0,0 +1,74 @@
+package com.example.demo.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.oauth2.client.oidc.userinfo.OidcUserRequest;
+import org.springframework.security.oauth2.client.oidc.userinfo.OidcUserService;
+import org.springframework.security.oauth2.client.userinfo.OAuth2UserService;
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Login OIDC (Google con scope openid): los datos del usuario salen del ID token
+ * ya validado (firma con las claves en memoria, ver DecodificadorIdTokenFactory),
+ * sin el round-trip HTTP a user-info-uri. Solo si al ID token le falta alguno de
+ * email, name o sub se consulta user-info. El aprovisionamiento y el principal
+ * son los mismos que en CustomOAuth2UserService
+ */
+@Service
+public class CustomOidcUserService implements OAuth2UserService<OidcUserRequest, OidcUser> {
+
+    private static final List<String> CLAIMS_REQUERIDOS = List.of("email", "name", "sub");
+
+    @Autowired
+    private CustomOAuth2UserService customOAuth2UserService;
+
+    // Solo para ID tokens incompletos: consulta user-info y combina sus claims con los del token
+    private final OidcUserService conUserInfo = new OidcUserService();
+
+    private final AtomicLong loginsDesdeIdToken = new AtomicLong();
+    private final AtomicLong consultasUserInfo = new AtomicLong();
+
+    public CustomOidcUserService() {
+        conUserInfo.setRetrieveUserInfo(userRequest ->
+            StringUtils.hasText(userRequest.getClientRegistration().getProviderDetails().getUserInfoEndpoint().getUri()));
+    }
+
+    @Override
+    public OidcUser loadUser(OidcUserRequest userRequest) throws OAuth2AuthenticationException {
+        return customOAuth2UserService.construirPrincipal(
+            userRequest.getClientRegistration().getRegistrationId(), resolverClaims(userRequest));
+    }
+
+    /**
+     * Claims del usuario: los del ID token, o combinados con user-info si falta alguno requerido
+     */
+    Map<String, Object> resolverClaims(OidcUserRequest userRequest) {
+        Map<String, Object> claims = userRequest.getIdToken().getClaims();
+        if (CLAIMS_REQUERIDOS.stream().allMatch(claim -> claims.get(claim) != null)) {
+            loginsDesdeIdToken.incrementAndGet();
+            return claims;
+        }
+
+        consultasUserInfo.incrementAndGet();
+        System.out.println("🔍 ID token sin " + CLAIMS_REQUERIDOS.stream().filter(claim -> claims.get(claim) == null).toList()
+            + ", consultando user-info de " + userRequest.getClientRegistration().getRegistrationId());
+        return conUserInfo.loadUser(userRequest).getClaims();
+    }
+
+    /**
+     * Logins resueltos solo con el ID token y logins que necesitaron user-info
+     */
+    public Map<String, Object> obtenerEstadisticas() {
+        Map<String, Object> estadisticas = new HashMap<>();
+        estadisticas.put("loginsDesdeIdToken", loginsDesdeIdToken.get());
+        estadisticas.put("consultasUserInfo", consultasUserInfo.get());
+        return estadisticas;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.demo.service;
+
+import com.example.demo.config.Bulkhead;
+import com.example.demo.config.ContextoBulkhead;
+import com.example.demo.model.Auditoria;
+import com.example.demo.model.Usuario;
+import com.example.demo.repository.AuditoriaRepository;
+import com.example.demo.repository.UsuarioRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+
+/**
+ * Escritor asíncrono de eventos de auditoría
+ * Recibe solo valores ya extraídos del request (nunca el HttpServletRequest),
+ * porque corre en el executor asíncrono después de que el request terminó.
+ * Escribe por el bulkhead AUDITORIA: el contexto se fija antes de abrir la
+ * transacción (programática) para que la conexión salga del pool correcto
+ */
+@Service
+public class EscritorAuditoria {
+
+    @Autowired
+    private AuditoriaRepository auditoriaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Persistir un evento de auditoría
+     */
+    @Async
+    public void escribir(String nombreUsuario, String accion, String recurso,
+                         String ipAddress, String userAgent,
+                         Auditoria.Resultado resultado, String detalles) {
+        escribir(null, nombreUsuario, accion, recurso, ipAddress, userAgent, resultado, detalles);
+    }
+
+    /**
+     * Persistir un evento de un usuario ya identificado
+     * Con el id no se busca el usuario por nombre: el evento es un único INSERT
+     */
+    @Async
+    public void escribir(Long usuarioId, String nombreUsuario, String accion, String recurso,
+                         String ipAddress, String userAgent,
+                         Auditoria.Resultado resultado, String detalles) {
+        try (ContextoBulkhead.Ambito ambito = ContextoBulkhead.abrir(Bulkhead.AUDITORIA)) {
+            transactionTemplate.executeWithoutResult(status ->
+                persistir(usuarioId, nombreUsuario, accion, recurso, ipAddress, userAgent, resultado, detalles));
+        }
+    }
+
+    private void persistir(Long usuarioId, String nombreUsuario, String accion, String recurso,
+                           String ipAddress, String userAgent,
+                           Auditoria.Resultado resultado, String detalles) {
+        try {
+            Optional<Usuario> usuarioOpt = usuarioId != null
+                ? Optional.of(usuarioRepository.getReferenceById(usuarioId))
+                : usuarioRepository.findByNombreUsuario(nombreUsuario);
+
+            if (usuarioOpt.isEmpty()) {
+                System.err.println("⚠️ No se pudo registrar auditoría: Usuario no encontrado - " + nombreUsuario);
+                return;
+            }
+
+            Auditoria evento = new Auditoria();
+            evento.setUsuario(usuarioOpt.get());
+            evento.setAccion(accion);
+            evento.setRecurso(recurso);
+            evento.setResultado(resultado);
+            evento.setDetalles(detalles);
+            evento.setIpAddress(ipAddress);
+            evento.setUserAgent(userAgent);
+
+            auditoriaRepository.save(evento);
+
+            // Sin toString(): con la referencia por id inicializaría el usuario
+            System.out.println("✓ Auditoría registrada: " + nombreUsuario + " realizó " + accion + " en " + recurso
+                + " - Resultado: " + resultado);
+
+        } catch (Exception e) {
+            System.err.println("❌ Error al registrar auditoría: " + e.getMessage());
+        }
+    }
+}
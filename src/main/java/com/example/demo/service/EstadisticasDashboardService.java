@@ -0,0 +1,129 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.EstadisticasDashboardDTO;
+import com.example.demo.repository.AuditoriaJdbcRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Estadísticas del dashboard (Administradores y Supervisores) con caché corta
+ * - Una sola consulta calcula todo junto (AuditoriaJdbcRepository.resumenDashboard)
+ * - El resultado vale dashboard.estadisticas.ttl-ms: las cifras pueden atrasar unos segundos
+ * - Al vencer, un solo request recalcula; los que llegan mientras tanto esperan ese
+ *   mismo resultado en vez de lanzar su propia consulta
+ */
+@Service
+public class EstadisticasDashboardService {
+
+    private static final int ULTIMOS_EVENTOS = 10;
+
+    @Autowired
+    private AuditoriaJdbcRepository auditoriaJdbcRepository;
+
+    @Value("${dashboard.estadisticas.ttl-ms:5000}")
+    private long ttlMs;
+
+    private volatile Instantanea actual;
+    private final AtomicReference<CompletableFuture<Instantanea>> enVuelo = new AtomicReference<>();
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong calculos = new AtomicLong();
+    private final AtomicLong esperas = new AtomicLong();
+
+    public EstadisticasDashboardDTO obtener() {
+        Instantanea instantanea = actual;
+        if (instantanea != null && instantanea.vigente(ttlMs)) {
+            aciertos.incrementAndGet();
+            return instantanea.estadisticas;
+        }
+
+        CompletableFuture<Instantanea> propio = new CompletableFuture<>();
+        CompletableFuture<Instantanea> otro = enVuelo.compareAndExchange(null, propio);
+        if (otro != null) {
+            esperas.incrementAndGet();
+            try {
+                return otro.join().estadisticas;
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException causa ? causa : e;
+            }
+        }
+
+        try {
+            // Otro request pudo haber recalculado entre la lectura y tomar el turno
+            instantanea = actual;
+            if (instantanea == null || !instantanea.vigente(ttlMs)) {
+                instantanea = calcular();
+            }
+            propio.complete(instantanea);
+            return instantanea.estadisticas;
+        } catch (RuntimeException e) {
+            System.err.println("❌ Error al calcular estadísticas del dashboard: " + e.getMessage());
+            propio.completeExceptionally(e);
+            throw e;
+        } finally {
+            // Un Error tampoco puede dejar colgados a los que esperan este cálculo
+            if (!propio.isDone()) {
+                propio.completeExceptionally(new IllegalStateException("El cálculo de estadísticas del dashboard no terminó"));
+            }
+            enVuelo.set(null);
+        }
+    }
+
+    /**
+     * Aciertos de caché, recálculos y requests que esperaron un recálculo en curso
+     */
+    public Map<String, Object> obtenerEstadisticas() {
+        Instantanea instantanea = actual;
+        Map<String, Object> estadisticas = new HashMap<>();
+        estadisticas.put("ttlMs", ttlMs);
+        estadisticas.put("aciertos", aciertos.get());
+        estadisticas.put("calculos", calculos.get());
+        estadisticas.put("esperas", esperas.get());
+        estadisticas.put("calculadoEn", instantanea != null ? instantanea.estadisticas.getCalculadoEn() : null);
+        estadisticas.put("msUltimoCalculo", instantanea != null ? instantanea.msCalculo : null);
+        return estadisticas;
+    }
+
+    private Instantanea calcular() {
+        long inicio = System.nanoTime();
+        LocalDate hoy = LocalDate.now();
+        EstadisticasDashboardDTO estadisticas =
+            auditoriaJdbcRepository.resumenDashboard(hoy.atStartOfDay(), ULTIMOS_EVENTOS);
+        calculos.incrementAndGet();
+        Instantanea instantanea = new Instantanea(estadisticas, hoy, System.nanoTime(),
+            (System.nanoTime() - inicio) / 1_000_000);
+        actual = instantanea;
+        return instantanea;
+    }
+
+    /**
+     * Estadísticas calculadas, con el día al que corresponden y cuándo se calcularon
+     */
+    private static final class Instantanea {
+        private final EstadisticasDashboardDTO estadisticas;
+        private final LocalDate dia;
+        private final long calculadoNanos;
+        private final long msCalculo;
+
+        private Instantanea(EstadisticasDashboardDTO estadisticas, LocalDate dia, long calculadoNanos, long msCalculo) {
+            this.estadisticas = estadisticas;
+            this.dia = dia;
+            this.calculadoNanos = calculadoNanos;
+            this.msCalculo = msCalculo;
+        }
+
+        // Al cambiar el día los "eventos de hoy" de la caché ya no valen
+        private boolean vigente(long ttlMs) {
+            return System.nanoTime() - calculadoNanos < ttlMs * 1_000_000 && dia.equals(LocalDate.now());
+        }
+    }
+}
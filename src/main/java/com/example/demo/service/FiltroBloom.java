@@ -0,0 +1,180 @@
+package com.example.demo.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Filtro de Bloom escalable y concurrente de cadenas
+ * - "No está" es seguro; "puede estar" se equivoca con la tasa de falsos positivos pedida
+ * - Crece sin reconstruirse: cuando un tramo llega a su capacidad se agrega otro
+ *   del doble de tamaño y con la mitad de tasa, así la tasa total queda acotada
+ * - Los bits se marcan con CAS: agregar y consultar no toman locks (solo el crecimiento)
+ * No se pueden quitar elementos
+ */
+public class FiltroBloom {
+
+    // Cada tramo nuevo: el doble de capacidad y la mitad de tasa de falsos positivos
+    private static final int CRECIMIENTO = 2;
+    private static final double AJUSTE_TASA = 0.5;
+
+    private final double tasaObjetivo;
+    private final List<Tramo> tramos = new CopyOnWriteArrayList<>();
+    private final ReentrantLock crecimiento = new ReentrantLock();
+
+    public FiltroBloom(long capacidadInicial, double tasaFalsosPositivos) {
+        if (capacidadInicial <= 0) {
+            throw new IllegalArgumentException("La capacidad inicial debe ser positiva");
+        }
+        if (tasaFalsosPositivos <= 0 || tasaFalsosPositivos >= 1) {
+            throw new IllegalArgumentException("La tasa de falsos positivos debe estar entre 0 y 1");
+        }
+        this.tasaObjetivo = tasaFalsosPositivos;
+        // Serie geométrica: la suma de las tasas de todos los tramos no supera la objetivo
+        tramos.add(new Tramo(capacidadInicial, tasaFalsosPositivos * (1 - AJUSTE_TASA)));
+    }
+
+    public void agregar(String valor) {
+        long hash = hash(valor);
+        for (Tramo tramo : tramos) {
+            if (tramo.contiene(hash)) {
+                return;
+            }
+        }
+        Tramo ultimo = tramos.get(tramos.size() - 1);
+        ultimo.agregar(hash);
+        if (ultimo.elementos.get() >= ultimo.capacidad) {
+            crecer(ultimo);
+        }
+    }
+
+    /**
+     * false: seguro que nunca se agregó. true: probablemente se agregó
+     */
+    public boolean puedeContener(String valor) {
+        long hash = hash(valor);
+        for (Tramo tramo : tramos) {
+            if (tramo.contiene(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tasa de falsos positivos estimada según los bits marcados de cada tramo
+     */
+    public double tasaFalsosPositivosEstimada() {
+        double ninguno = 1;
+        for (Tramo tramo : tramos) {
+            ninguno *= 1 - Math.pow((double) tramo.bitsMarcados.get() / tramo.bits, tramo.funciones);
+        }
+        return 1 - ninguno;
+    }
+
+    public double getTasaObjetivo() { return tasaObjetivo; }
+    public int getTramos() { return tramos.size(); }
+
+    public long getElementos() {
+        return tramos.stream().mapToLong(tramo -> tramo.elementos.get()).sum();
+    }
+
+    public long getBytes() {
+        return tramos.stream().mapToLong(tramo -> tramo.palabras.length() * 8L).sum();
+    }
+
+    private void crecer(Tramo lleno) {
+        crecimiento.lock();
+        try {
+            if (tramos.get(tramos.size() - 1) == lleno) {
+                tramos.add(new Tramo(lleno.capacidad * CRECIMIENTO, lleno.tasa * AJUSTE_TASA));
+            }
+        } finally {
+            crecimiento.unlock();
+        }
+    }
+
+    /**
+     * FNV-1a de 64 bits sobre los bytes UTF-8, con la mezcla final de MurmurHash3
+     */
+    private static long hash(String valor) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : valor.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Arreglo de bits dimensionado para una capacidad y tasa; las k posiciones salen
+     * de dos mitades del hash (h1 + i*h2)
+     */
+    private static final class Tramo {
+        private final long capacidad;
+        private final double tasa;
+        private final long bits;
+        private final int funciones;
+        private final AtomicLongArray palabras;
+        private final AtomicLong bitsMarcados = new AtomicLong();
+        private final AtomicLong elementos = new AtomicLong();
+
+        private Tramo(long capacidad, double tasa) {
+            this.capacidad = capacidad;
+            this.tasa = tasa;
+            long palabrasNecesarias = (long) Math.ceil(-capacidad * Math.log(tasa) / (Math.log(2) * Math.log(2)) / 64);
+            this.palabras = new AtomicLongArray((int) Math.max(1, palabrasNecesarias));
+            this.bits = palabras.length() * 64L;
+            this.funciones = Math.max(1, (int) Math.round((double) bits / capacidad * Math.log(2)));
+        }
+
+        private void agregar(long hash) {
+            boolean nuevo = false;
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < funciones; i++) {
+                long posicion = Math.floorMod(h1 + (long) i * h2, bits);
+                if (marcar(posicion)) {
+                    nuevo = true;
+                }
+            }
+            if (nuevo) {
+                elementos.incrementAndGet();
+            }
+        }
+
+        private boolean contiene(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < funciones; i++) {
+                long posicion = Math.floorMod(h1 + (long) i * h2, bits);
+                if ((palabras.get((int) (posicion >>> 6)) & (1L << posicion)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean marcar(long posicion) {
+            int indice = (int) (posicion >>> 6);
+            long mascara = 1L << posicion;
+            long actual;
+            do {
+                actual = palabras.get(indice);
+                if ((actual & mascara) != 0) {
+                    return false;
+                }
+            } while (!palabras.compareAndSet(indice, actual, actual | mascara));
+            bitsMarcados.incrementAndGet();
+            return true;
+        }
+    }
+}
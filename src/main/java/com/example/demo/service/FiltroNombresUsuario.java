@@ -0,0 +1,188 @@
+package com.example.demo.service;
+
+import com.example.demo.config.Bulkhead;
+import com.example.demo.config.ContextoBulkhead;
+import com.example.demo.dto.EventoInvalidacion;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Filtro de Bloom con los nombres de usuario registrados
+ * Un nombre que el filtro descarta seguro no existe: login, registro y auditoría
+ * no van a la BD para no encontrar nada. Si el filtro dice "puede existir", se consulta.
+ * - Se carga al arrancar recorriendo usuarios por id en tramos (sin traer toda la tabla)
+ * - Las altas de este nodo se agregan en el momento; las de otros nodos llegan por el
+ *   bus de invalidación (ALTA_USUARIO) y se leen por id desde la última marca.
+ *   Hasta que llega el evento (invalidacion.intervalo-ms), otro nodo puede descartar
+ *   un usuario recién creado
+ * - Mientras carga, todos los nombres "pueden existir"
+ * - Las claves van sin mayúsculas ni acentos (IndicePrefijos.normalizar), como compara
+ *   la collation de usuarios (utf8mb4_0900_ai_ci): "ANA" y "Jose" encuentran a "ana" y "José"
+ * - La misma carga y las mismas altas alimentan el índice de prefijos (IndiceNombresUsuario)
+ */
+@Service
+public class FiltroNombresUsuario {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BusInvalidacion busInvalidacion;
+
+    @Autowired
+    private IndiceNombresUsuario indiceNombresUsuario;
+
+    @Value("${usuarios.filtro.capacidad-inicial:100000}")
+    private long capacidadInicial;
+
+    @Value("${usuarios.filtro.falsos-positivos:0.01}")
+    private double tasaFalsosPositivos;
+
+    @Value("${usuarios.filtro.lote:1000}")
+    private int lote;
+
+    // Ids por debajo de la marca que se vuelven a leer (altas confirmadas fuera de orden)
+    @Value("${invalidacion.tabla.margen-ids:100}")
+    private long margenIds;
+
+    private FiltroBloom filtro;
+    private volatile boolean listo;
+    private volatile long maximoId;
+    private final ReentrantLock carga = new ReentrantLock();
+
+    private final AtomicLong descartados = new AtomicLong();
+    private final AtomicLong posibles = new AtomicLong();
+    private final AtomicLong falsosPositivos = new AtomicLong();
+
+    @PostConstruct
+    public void iniciar() {
+        filtro = new FiltroBloom(capacidadInicial, tasaFalsosPositivos);
+        busInvalidacion.suscribir(EventoInvalidacion.Tipo.ALTA_USUARIO, eventos -> cargarDesde(maximoId - margenIds));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        long inicio = System.currentTimeMillis();
+        cargarDesde(0);
+        listo = true;
+        System.out.println("🌸 Filtro de nombres de usuario cargado: " + filtro.getElementos() + " nombres, "
+            + filtro.getBytes() / 1024 + " KB en " + (System.currentTimeMillis() - inicio) + " ms");
+    }
+
+    /**
+     * false: el nombre seguro no está registrado (no hace falta consultar la BD)
+     */
+    public boolean puedeExistir(String nombreUsuario) {
+        if (!listo || nombreUsuario == null) {
+            return true;
+        }
+        String clave = clave(nombreUsuario);
+        // Letras que siguen fuera de ASCII (otros alfabetos, "þ"): la collation de la BD
+        // puede igualarlas con otras, así que el filtro no las descarta
+        if (!IndicePrefijos.esAscii(clave) || filtro.puedeContener(clave)) {
+            posibles.incrementAndGet();
+            return true;
+        }
+        descartados.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * La BD no encontró un nombre que el filtro dejó pasar (tasa observada)
+     */
+    public void falsoPositivo() {
+        falsosPositivos.incrementAndGet();
+    }
+
+    /**
+     * Alta de un usuario en este nodo; los demás nodos la leen al confirmar la transacción
+     */
+    public void registrarAlta(String nombreUsuario) {
+        filtro.agregar(clave(nombreUsuario));
+        indiceNombresUsuario.registrarAltas(List.of(nombreUsuario));
+        busInvalidacion.publicar(EventoInvalidacion.Tipo.ALTA_USUARIO, null, System.currentTimeMillis());
+    }
+
+    /**
+     * Varias altas (importación): un solo evento para los demás nodos
+     */
+    public void registrarAltas(Collection<String> nombresUsuario) {
+        if (nombresUsuario.isEmpty()) {
+            return;
+        }
+        nombresUsuario.forEach(nombre -> filtro.agregar(clave(nombre)));
+        indiceNombresUsuario.registrarAltas(nombresUsuario);
+        busInvalidacion.publicar(EventoInvalidacion.Tipo.ALTA_USUARIO, null, System.currentTimeMillis());
+    }
+
+    /**
+     * Tamaño, tasa de falsos positivos (objetivo, estimada y observada) y consultas evitadas
+     */
+    public Map<String, Object> obtenerEstadisticas() {
+        long posiblesActual = posibles.get();
+        Map<String, Object> estadisticas = new HashMap<>();
+        estadisticas.put("listo", listo);
+        estadisticas.put("nombres", filtro.getElementos());
+        estadisticas.put("tramos", filtro.getTramos());
+        estadisticas.put("bytes", filtro.getBytes());
+        estadisticas.put("tasaObjetivo", filtro.getTasaObjetivo());
+        estadisticas.put("tasaEstimada", filtro.tasaFalsosPositivosEstimada());
+        estadisticas.put("consultasEvitadas", descartados.get());
+        estadisticas.put("consultasPermitidas", posiblesActual);
+        estadisticas.put("falsosPositivos", falsosPositivos.get());
+        estadisticas.put("tasaObservada", posiblesActual == 0 ? 0.0 : (double) falsosPositivos.get() / posiblesActual);
+        return estadisticas;
+    }
+
+    /**
+     * Agregar los usuarios con id mayor al dado, en tramos por id
+     * El índice de prefijos recibe todos los nombres juntos al final y descarta los que ya tiene
+     */
+    private void cargarDesde(long idDesde) {
+        carga.lock();
+        try {
+            try (ContextoBulkhead.Ambito ambito = ContextoBulkhead.abrir(Bulkhead.LECTURA_MASIVA)) {
+                long desde = Math.max(0, idDesde);
+                List<String> nombres = new ArrayList<>();
+                List<Long> ids;
+                do {
+                    ids = jdbcTemplate.query(
+                        "SELECT id, nombre_usuario FROM usuarios WHERE id > ? ORDER BY id LIMIT ?",
+                        (rs, fila) -> {
+                            String nombre = rs.getString(2);
+                            filtro.agregar(clave(nombre));
+                            nombres.add(nombre);
+                            return rs.getLong(1);
+                        }, desde, lote);
+                    if (!ids.isEmpty()) {
+                        desde = ids.get(ids.size() - 1);
+                    }
+                } while (ids.size() == lote);
+                indiceNombresUsuario.registrarAltas(nombres);
+                maximoId = Math.max(maximoId, desde);
+            }
+        } finally {
+            carga.unlock();
+        }
+    }
+
+    /**
+     * Nombre tal como lo iguala la BD (sin distinguir mayúsculas ni acentos)
+     */
+    static String clave(String nombreUsuario) {
+        return IndicePrefijos.normalizar(nombreUsuario);
+    }
+}
@@ -0,0 +1,326 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ResultadoImportacionDTO;
+import com.example.demo.dto.RolDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servicio de importación masiva de usuarios (CSV o NDJSON)
+ * - Lee el archivo en streaming, por tramos de filas
+ * - Hashea las contraseñas en paralelo en un pool acotado
+ * - Detecta duplicados con una sola consulta por tramo
+ * - Inserta con batch JDBC, una transacción por tramo
+ *
+ * Formato CSV: nombreUsuario,clave[,rol]   (encabezado opcional)
+ * Formato NDJSON: {"nombreUsuario": "...", "clave": "...", "rol": "..."} por línea
+ */
+@Service
+public class ImportacionUsuariosService {
+
+    private static final String ROL_POR_DEFECTO = "Personal";
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbc;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private RolCatalog rolCatalog;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private FiltroNombresUsuario filtroNombresUsuario;
+
+    @Value("${importacion.filas-por-tramo:500}")
+    private int filasPorTramo;
+
+    @Value("${importacion.hilos-hash:0}")
+    private int hilosHash;
+
+    private ThreadPoolExecutor poolHash;
+
+    @PostConstruct
+    public void iniciar() {
+        int hilos = hilosHash > 0 ? hilosHash : Runtime.getRuntime().availableProcessors();
+        // Cola acotada + CallerRunsPolicy: si el pool está lleno, hashea el hilo del request
+        poolHash = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(filasPorTramo * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void detener() {
+        poolHash.shutdown();
+    }
+
+    /**
+     * Importar usuarios desde un stream
+     * @param entrada Contenido del archivo (no se carga completo en memoria)
+     * @param formato "csv" o "ndjson"
+     */
+    public ResultadoImportacionDTO importar(InputStream entrada, String formato) throws IOException {
+        long inicio = System.currentTimeMillis();
+        boolean ndjson = "ndjson".equalsIgnoreCase(formato);
+        ResultadoImportacionDTO resultado = new ResultadoImportacionDTO();
+
+        // Catálogo de roles resuelto una vez por importación (instantánea en memoria)
+        RolCatalog.Instantanea catalogo = rolCatalog.actual();
+
+        Set<String> vistosEnArchivo = new HashSet<>();
+        List<Fila> tramo = new ArrayList<>(filasPorTramo);
+
+        try (BufferedReader lector = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8))) {
+            String linea;
+            long numeroLinea = 0;
+            while ((linea = lector.readLine()) != null) {
+                numeroLinea++;
+                if (linea.isBlank() || (!ndjson && numeroLinea == 1 && esEncabezado(linea))) {
+                    continue;
+                }
+                resultado.setFilasLeidas(resultado.getFilasLeidas() + 1);
+
+                Fila fila = ndjson ? parsearJson(linea, numeroLinea, resultado) : parsearCsv(linea, numeroLinea, resultado);
+                if (fila == null) {
+                    continue;
+                }
+
+                RolDTO rol = catalogo.rolPorNombre(fila.rol);
+                if (rol == null) {
+                    resultado.agregarError(numeroLinea, fila.nombreUsuario, "Rol no encontrado: " + fila.rol);
+                    continue;
+                }
+                fila.rolId = rol.getId();
+                if (!vistosEnArchivo.add(fila.nombreUsuario)) {
+                    resultado.agregarError(numeroLinea, fila.nombreUsuario, "Duplicado dentro del archivo");
+                    continue;
+                }
+
+                tramo.add(fila);
+                if (tramo.size() >= filasPorTramo) {
+                    procesarTramo(tramo, resultado);
+                    tramo.clear();
+                }
+            }
+        }
+        if (!tramo.isEmpty()) {
+            procesarTramo(tramo, resultado);
+        }
+
+        if (resultado.getImportados() > 0) {
+            rolCatalog.altasRegistradas();
+        }
+
+        resultado.setDuracionMs(System.currentTimeMillis() - inicio);
+        resultado.setFilasPorSegundo(resultado.getDuracionMs() == 0
+            ? resultado.getFilasLeidas()
+            : resultado.getFilasLeidas() * 1000.0 / resultado.getDuracionMs());
+
+        System.out.println("✓ Importación de usuarios: " + resultado.getImportados() + " importados, "
+            + resultado.getTotalErrores() + " errores, " + String.format("%.1f", resultado.getFilasPorSegundo()) + " filas/s");
+        return resultado;
+    }
+
+    private void procesarTramo(List<Fila> tramo, ResultadoImportacionDTO resultado) {
+        // Duplicados contra la BD: una consulta por tramo, solo con los nombres que pueden existir
+        List<String> nombres = new ArrayList<>(tramo.size());
+        tramo.forEach(fila -> {
+            if (filtroNombresUsuario.puedeExistir(fila.nombreUsuario)) {
+                nombres.add(fila.nombreUsuario);
+            }
+        });
+        // La BD iguala sin mayúsculas ni acentos: "ANA" del archivo devuelve "ana"
+        Set<String> existentes = new HashSet<>();
+        if (!nombres.isEmpty()) {
+            namedJdbc.queryForList("SELECT nombre_usuario FROM usuarios WHERE nombre_usuario IN (:nombres)",
+                new MapSqlParameterSource("nombres", nombres), String.class)
+                .forEach(nombre -> existentes.add(FiltroNombresUsuario.clave(nombre)));
+        }
+
+        List<Fila> nuevas = new ArrayList<>(tramo.size());
+        for (Fila fila : tramo) {
+            if (existentes.contains(FiltroNombresUsuario.clave(fila.nombreUsuario))) {
+                resultado.agregarError(fila.linea, fila.nombreUsuario, "El nombre de usuario ya existe");
+            } else {
+                nuevas.add(fila);
+            }
+        }
+        if (nuevas.isEmpty()) {
+            return;
+        }
+
+        hashearEnParalelo(nuevas);
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertarLote(nuevas));
+            resultado.setImportados(resultado.getImportados() + nuevas.size());
+            filtroNombresUsuario.registrarAltas(nuevas.stream().map(fila -> fila.nombreUsuario).toList());
+        } catch (DuplicateKeyException e) {
+            // Otro registro ganó la carrera en medio del tramo: reintentar fila por fila
+            List<String> insertados = new ArrayList<>(nuevas.size());
+            for (Fila fila : nuevas) {
+                try {
+                    jdbcTemplate.update("INSERT INTO usuarios (nombre_usuario, clave, rol_id) VALUES (?, ?, ?)",
+                        fila.nombreUsuario, fila.hash, fila.rolId);
+                    resultado.setImportados(resultado.getImportados() + 1);
+                    insertados.add(fila.nombreUsuario);
+                } catch (DuplicateKeyException dup) {
+                    resultado.agregarError(fila.linea, fila.nombreUsuario, "El nombre de usuario ya existe");
+                }
+            }
+            filtroNombresUsuario.registrarAltas(insertados);
+        }
+    }
+
+    private void insertarLote(List<Fila> filas) {
+        jdbcTemplate.batchUpdate("INSERT INTO usuarios (nombre_usuario, clave, rol_id) VALUES (?, ?, ?)",
+            filas, filas.size(), (ps, fila) -> {
+                ps.setString(1, fila.nombreUsuario);
+                ps.setString(2, fila.hash);
+                ps.setLong(3, fila.rolId);
+            });
+    }
+
+    private void hashearEnParalelo(List<Fila> filas) {
+        List<Future<?>> pendientes = new ArrayList<>(filas.size());
+        for (Fila fila : filas) {
+            pendientes.add(poolHash.submit(() -> {
+                fila.hash = passwordEncoder.encode(fila.clave);
+                fila.clave = null;
+            }));
+        }
+        try {
+            for (Future<?> pendiente : pendientes) {
+                pendiente.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Importación interrumpida", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error al hashear contraseñas: " + e.getCause().getMessage(), e);
+        }
+    }
+
+    private Fila parsearCsv(String linea, long numeroLinea, ResultadoImportacionDTO resultado) {
+        List<String> campos = separarCsv(linea);
+        if (campos.size() < 2) {
+            resultado.agregarError(numeroLinea, null, "Se esperaban al menos 2 columnas: nombreUsuario,clave");
+            return null;
+        }
+        return crearFila(numeroLinea, campos.get(0), campos.get(1), campos.size() > 2 ? campos.get(2) : null, resultado);
+    }
+
+    private Fila parsearJson(String linea, long numeroLinea, ResultadoImportacionDTO resultado) {
+        try {
+            JsonNode nodo = objectMapper.readTree(linea);
+            return crearFila(numeroLinea,
+                nodo.path("nombreUsuario").asText(null),
+                nodo.path("clave").asText(null),
+                nodo.path("rol").asText(null),
+                resultado);
+        } catch (IOException e) {
+            resultado.agregarError(numeroLinea, null, "JSON inválido");
+            return null;
+        }
+    }
+
+    private Fila crearFila(long numeroLinea, String nombreUsuario, String clave, String rol,
+                           ResultadoImportacionDTO resultado) {
+        if (nombreUsuario == null || nombreUsuario.trim().isEmpty()) {
+            resultado.agregarError(numeroLinea, null, "El nombre de usuario es requerido");
+            return null;
+        }
+        if (clave == null || clave.trim().isEmpty()) {
+            resultado.agregarError(numeroLinea, nombreUsuario, "La contraseña es requerida");
+            return null;
+        }
+        Fila fila = new Fila();
+        fila.linea = numeroLinea;
+        fila.nombreUsuario = nombreUsuario.trim();
+        fila.clave = clave;
+        fila.rol = rol == null || rol.isBlank() ? ROL_POR_DEFECTO : rol.trim();
+        return fila;
+    }
+
+    private boolean esEncabezado(String linea) {
+        return linea.toLowerCase().startsWith("nombreusuario");
+    }
+
+    /**
+     * Separa una línea CSV respetando campos entre comillas ("a,b" y "" escapado)
+     */
+    private List<String> separarCsv(String linea) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"' && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    actual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreComillas = false;
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                campos.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        campos.add(actual.toString());
+        return campos;
+    }
+
+    /**
+     * Fila en proceso (la clave en texto plano se descarta apenas se hashea)
+     */
+    private static class Fila {
+        long linea;
+        String nombreUsuario;
+        String clave;
+        String rol;
+        Long rolId;
+        volatile String hash;
+    }
+}
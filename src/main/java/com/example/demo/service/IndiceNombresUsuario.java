@@ -0,0 +1,54 @@
+package com.example.demo.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Índice de prefijos de los nombres de usuario para buscar y autocompletar
+ * Evita un LIKE '%x%' sobre usuarios: búsqueda binaria en memoria, sin ir a la BD.
+ * - Sin mayúsculas ni acentos: "jose" sugiere "José" y "JOSE"
+ * - Lo alimenta FiltroNombresUsuario: la misma carga inicial por tramos y las mismas
+ *   altas (locales y de otros nodos por ALTA_USUARIO), así los dos ven los mismos nombres
+ * - Mientras carga, las sugerencias pueden estar incompletas
+ */
+@Service
+public class IndiceNombresUsuario {
+
+    private final IndicePrefijos indice = new IndicePrefijos();
+
+    private final AtomicLong busquedas = new AtomicLong();
+    private final AtomicLong nanosBusqueda = new AtomicLong();
+
+    /**
+     * Nombres que empiezan con el texto dado (sin distinguir mayúsculas ni acentos)
+     */
+    public List<String> sugerir(String texto, int limite) {
+        long inicio = System.nanoTime();
+        List<String> sugerencias = indice.buscarPrefijo(texto, limite);
+        nanosBusqueda.addAndGet(System.nanoTime() - inicio);
+        busquedas.incrementAndGet();
+        return sugerencias;
+    }
+
+    public void registrarAltas(Collection<String> nombresUsuario) {
+        indice.agregarTodos(nombresUsuario);
+    }
+
+    /**
+     * Tamaño, memoria aproximada y tiempo medio de búsqueda
+     */
+    public Map<String, Object> obtenerEstadisticas() {
+        long cantidad = busquedas.get();
+        Map<String, Object> estadisticas = new HashMap<>();
+        estadisticas.put("nombres", indice.tamanio());
+        estadisticas.put("bytesAproximados", indice.getBytesAproximados());
+        estadisticas.put("busquedas", cantidad);
+        estadisticas.put("microsPromedio", cantidad == 0 ? 0.0 : nanosBusqueda.get() / 1000.0 / cantidad);
+        return estadisticas;
+    }
+}
@@ -0,0 +1,300 @@
+package com.example.demo.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice de prefijos de cadenas en memoria: arreglo ordenado + búsqueda binaria
+ * - Compara sin mayúsculas ni acentos ("jose" encuentra "José")
+ * - Lecturas sin locks sobre una instantánea inmutable; las escrituras arman una nueva
+ * - Las altas de a una y los lotes chicos van a un tramo aparte (delta, también ordenado):
+ *   copiar el arreglo principal (O(n)) se hace una vez cada MAXIMO_DELTA altas, no en cada
+ *   una. Los valores que ya están no cuentan. Las búsquedas recorren los dos tramos en orden
+ * - Dos arreglos paralelos por tramo: clave normalizada y valor original. Si la clave
+ *   es igual al valor se comparte la misma cadena
+ */
+public class IndicePrefijos {
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    // Altas sueltas acumuladas antes de mezclarlas con el arreglo principal
+    private static final int MAXIMO_DELTA = 512;
+    private static final Tramo VACIO = new Tramo(new String[0], new String[0]);
+
+    private volatile Instantanea actual = new Instantanea(VACIO, VACIO);
+    private final ReentrantLock escritura = new ReentrantLock();
+
+    /**
+     * Clave de comparación: sin acentos ni diacríticos, en minúsculas y con las letras
+     * que la collation utf8mb4_0900_ai_ci iguala a otras ya expandidas ("ß" = "ss")
+     */
+    public static String normalizar(String valor) {
+        if (esAscii(valor)) {
+            return valor.toLowerCase(Locale.ROOT);
+        }
+        // NFKD además separa ligaduras y formas de ancho completo ("ﬁ" = "fi")
+        String sinMarcas = MARCAS.matcher(Normalizer.normalize(valor, Normalizer.Form.NFKD)).replaceAll("")
+            .toLowerCase(Locale.ROOT);
+        StringBuilder clave = new StringBuilder(sinMarcas.length());
+        for (int i = 0; i < sinMarcas.length(); i++) {
+            char letra = sinMarcas.charAt(i);
+            switch (letra) {
+                case 'ß' -> clave.append("ss");
+                case 'æ' -> clave.append("ae");
+                case 'œ' -> clave.append("oe");
+                case 'ø' -> clave.append('o');
+                case 'đ' -> clave.append('d');
+                case 'ł' -> clave.append('l');
+                case 'ħ' -> clave.append('h');
+                case 'ı' -> clave.append('i');
+                default -> clave.append(letra);
+            }
+        }
+        return clave.toString();
+    }
+
+    /**
+     * true si la cadena solo tiene caracteres ASCII (ya no hay nada que plegar)
+     */
+    public static boolean esAscii(String valor) {
+        for (int i = 0; i < valor.length(); i++) {
+            if (valor.charAt(i) > 0x7F) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Alta suelta: copia solo el delta, salvo cuando se llena y se mezcla con el principal
+     */
+    public void agregar(String valor) {
+        mezclar(new Tramo(new String[]{clave(valor)}, new String[]{valor}));
+    }
+
+    /**
+     * Agregar varios valores: los que ya están se descartan y el resto va al delta
+     * mientras entre; la carga inicial y las importaciones grandes se mezclan con el
+     * principal en una sola copia
+     */
+    public void agregarTodos(Collection<String> valores) {
+        if (valores.isEmpty()) {
+            return;
+        }
+        mezclar(ordenar(valores));
+    }
+
+    private void mezclar(Tramo nuevos) {
+        escritura.lock();
+        try {
+            Instantanea instantanea = actual;
+            Tramo faltantes = quitarPresentes(nuevos, instantanea);
+            if (faltantes.claves.length == 0) {
+                return;
+            }
+            Tramo delta = instantanea.delta.combinar(faltantes);
+            actual = delta.claves.length > MAXIMO_DELTA
+                ? new Instantanea(instantanea.principal.combinar(delta), VACIO)
+                : new Instantanea(instantanea.principal, delta);
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    /**
+     * Hasta "limite" valores cuya clave empieza con el prefijo, en orden de clave
+     */
+    public List<String> buscarPrefijo(String prefijo, int limite) {
+        Instantanea instantanea = actual;
+        Tramo principal = instantanea.principal;
+        Tramo delta = instantanea.delta;
+        String buscado = normalizar(prefijo);
+        List<String> encontrados = new ArrayList<>(Math.min(limite, 16));
+        int i = principal.primeraPosicion(buscado, "");
+        int j = delta.primeraPosicion(buscado, "");
+        while (encontrados.size() < limite) {
+            boolean enPrincipal = i < principal.claves.length && principal.claves[i].startsWith(buscado);
+            boolean enDelta = j < delta.claves.length && delta.claves[j].startsWith(buscado);
+            if (!enPrincipal && !enDelta) {
+                break;
+            }
+            if (enPrincipal && (!enDelta || principal.comparar(i, delta.claves[j], delta.valores[j]) < 0)) {
+                encontrados.add(principal.valores[i++]);
+            } else {
+                encontrados.add(delta.valores[j++]);
+            }
+        }
+        return encontrados;
+    }
+
+    public int tamanio() {
+        Instantanea instantanea = actual;
+        return instantanea.principal.claves.length + instantanea.delta.claves.length;
+    }
+
+    /**
+     * Memoria aproximada: referencias de los dos arreglos + caracteres de cadenas propias
+     */
+    public long getBytesAproximados() {
+        Instantanea instantanea = actual;
+        return instantanea.principal.getBytesAproximados() + instantanea.delta.getBytesAproximados();
+    }
+
+    private static String clave(String valor) {
+        String clave = normalizar(valor);
+        return clave.equals(valor) ? valor : clave;
+    }
+
+    private static Tramo ordenar(Collection<String> valores) {
+        String[][] pares = valores.stream()
+            .map(valor -> new String[]{clave(valor), valor})
+            .sorted(Comparator.<String[], String>comparing(par -> par[0]).thenComparing(par -> par[1]))
+            .toArray(String[][]::new);
+        String[] claves = new String[pares.length];
+        String[] originales = new String[pares.length];
+        for (int i = 0; i < pares.length; i++) {
+            claves[i] = pares[i][0];
+            originales[i] = pares[i][1];
+        }
+        // Puede traer repetidos: combinar los deja una sola vez
+        return new Tramo(claves, originales);
+    }
+
+    /**
+     * Valores nuevos que no están en ningún tramo: una búsqueda binaria por valor,
+     * sin copiar el principal (las relecturas de otros nodos traen casi todo repetido)
+     */
+    private static Tramo quitarPresentes(Tramo nuevos, Instantanea instantanea) {
+        String[] claves = new String[nuevos.claves.length];
+        String[] valores = new String[claves.length];
+        int n = 0;
+        for (int i = 0; i < nuevos.claves.length; i++) {
+            String clave = nuevos.claves[i];
+            String valor = nuevos.valores[i];
+            if (!instantanea.principal.contiene(clave, valor) && !instantanea.delta.contiene(clave, valor)) {
+                claves[n] = clave;
+                valores[n] = valor;
+                n++;
+            }
+        }
+        if (n == nuevos.claves.length) {
+            return nuevos;
+        }
+        return new Tramo(Arrays.copyOf(claves, n), Arrays.copyOf(valores, n));
+    }
+
+    /**
+     * Arreglo principal y altas sueltas todavía sin mezclar (sin valores en común)
+     */
+    private static final class Instantanea {
+        private final Tramo principal;
+        private final Tramo delta;
+
+        private Instantanea(Tramo principal, Tramo delta) {
+            this.principal = principal;
+            this.delta = delta;
+        }
+    }
+
+    /**
+     * Claves ordenadas (desempate por valor) y valores en la misma posición
+     */
+    private static final class Tramo {
+        private final String[] claves;
+        private final String[] valores;
+
+        private Tramo(String[] claves, String[] valores) {
+            this.claves = claves;
+            this.valores = valores;
+        }
+
+        private int comparar(int posicion, String clave, String valor) {
+            int comparacion = claves[posicion].compareTo(clave);
+            return comparacion != 0 ? comparacion : valores[posicion].compareTo(valor);
+        }
+
+        private boolean contiene(String clave, String valor) {
+            int posicion = primeraPosicion(clave, valor);
+            return posicion < claves.length && comparar(posicion, clave, valor) == 0;
+        }
+
+        private long getBytesAproximados() {
+            long bytes = claves.length * 8L;
+            for (int i = 0; i < claves.length; i++) {
+                bytes += 40 + valores[i].length();
+                if (claves[i] != valores[i]) {
+                    bytes += 40 + claves[i].length();
+                }
+            }
+            return bytes;
+        }
+
+        /**
+         * Primera posición con (clave, valor) mayor o igual al dado
+         */
+        private int primeraPosicion(String clave, String valor) {
+            int desde = 0;
+            int hasta = claves.length;
+            while (desde < hasta) {
+                int medio = (desde + hasta) >>> 1;
+                if (comparar(medio, clave, valor) < 0) {
+                    desde = medio + 1;
+                } else {
+                    hasta = medio;
+                }
+            }
+            return desde;
+        }
+
+        /**
+         * Mezcla ordenada con valores ya ordenados; los repetidos quedan una sola vez
+         */
+        private Tramo combinar(Tramo otro) {
+            if (otro.claves.length == 0) {
+                return this;
+            }
+            String[] otrasClaves = otro.claves;
+            String[] otrosValores = otro.valores;
+            String[] claves = new String[this.claves.length + otrasClaves.length];
+            String[] valores = new String[claves.length];
+            int i = 0;
+            int j = 0;
+            int n = 0;
+            while (i < this.claves.length || j < otrasClaves.length) {
+                int comparacion;
+                if (i == this.claves.length) {
+                    comparacion = 1;
+                } else if (j == otrasClaves.length) {
+                    comparacion = -1;
+                } else {
+                    comparacion = this.claves[i].compareTo(otrasClaves[j]);
+                    if (comparacion == 0) {
+                        comparacion = this.valores[i].compareTo(otrosValores[j]);
+                    }
+                }
+                String clave = comparacion <= 0 ? this.claves[i] : otrasClaves[j];
+                String valor = comparacion <= 0 ? this.valores[i] : otrosValores[j];
+                if (comparacion <= 0) {
+                    i++;
+                }
+                if (comparacion >= 0) {
+                    j++;
+                }
+                if (n > 0 && claves[n - 1].equals(clave) && valores[n - 1].equals(valor)) {
+                    continue;
+                }
+                claves[n] = clave;
+                valores[n] = valor;
+                n++;
+            }
+            return n == claves.length ? new Tramo(claves, valores)
+                : new Tramo(Arrays.copyOf(claves, n), Arrays.copyOf(valores, n));
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.AsignacionRolDTO;
+import com.example.demo.dto.ResultadoReasignacionDTO;
+import com.example.demo.model.Auditoria;
+import com.example.demo.repository.AuditoriaJdbcRepository;
+import com.example.demo.repository.RolRepository;
+import com.example.demo.repository.UsuarioRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Servicio de reasignación masiva de roles
+ * Aplica los cambios con UPDATE por conjuntos (uno por rol destino y tramo de ids)
+ * y registra un evento CAMBIO_ROL por usuario con INSERT multi-fila,
+ * todo dentro de una única transacción
+ */
+@Service
+public class ReasignacionRolesService {
+
+    private static final int IDS_POR_SENTENCIA = 1000;
+    private static final String RECURSO = "/admin/usuarios/roles/masivo";
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbc;
+
+    @Autowired
+    private RolRepository rolRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private AuditoriaJdbcRepository auditoriaJdbcRepository;
+
+    @Autowired
+    private RolCatalog rolCatalog;
+
+    @Autowired
+    private AutoridadesService autoridadesService;
+
+    /**
+     * Reasignar roles a partir de pares (usuarioId, rolId)
+     * Si un usuario aparece varias veces, gana el último par
+     */
+    @Transactional
+    public ResultadoReasignacionDTO reasignar(List<AsignacionRolDTO> asignaciones, String admin,
+                                              String ipAddress, String userAgent) {
+        long inicio = System.currentTimeMillis();
+        ResultadoReasignacionDTO resultado = new ResultadoReasignacionDTO();
+        resultado.setSolicitados(asignaciones.size());
+
+        Map<Long, Long> rolPorUsuario = new LinkedHashMap<>();
+        for (AsignacionRolDTO asignacion : asignaciones) {
+            if (asignacion.getUsuarioId() == null || asignacion.getRolId() == null) {
+                throw new IllegalArgumentException("Cada asignación requiere usuarioId y rolId");
+            }
+            rolPorUsuario.put(asignacion.getUsuarioId(), asignacion.getRolId());
+        }
+
+        Map<Long, String> nombresRoles = cargarNombresRoles();
+        for (Long rolId : rolPorUsuario.values()) {
+            if (!nombresRoles.containsKey(rolId)) {
+                throw new IllegalArgumentException("Rol no encontrado: " + rolId);
+            }
+        }
+
+        // Estado actual de los usuarios afectados: una consulta por tramo de ids
+        Map<Long, String[]> actuales = cargarUsuarios(new ArrayList<>(rolPorUsuario.keySet()));
+
+        // Agrupar por rol destino, descartando los que ya tienen ese rol
+        Map<Long, List<Long>> idsPorRolDestino = new LinkedHashMap<>();
+        List<String> detalles = new ArrayList<>();
+        for (Map.Entry<Long, Long> entrada : rolPorUsuario.entrySet()) {
+            String[] actual = actuales.get(entrada.getKey());
+            if (actual == null) {
+                resultado.getUsuariosNoEncontrados().add(entrada.getKey());
+                continue;
+            }
+            String rolNuevo = nombresRoles.get(entrada.getValue());
+            if (rolNuevo.equals(actual[1])) {
+                resultado.setSinCambios(resultado.getSinCambios() + 1);
+                continue;
+            }
+            idsPorRolDestino.computeIfAbsent(entrada.getValue(), k -> new ArrayList<>()).add(entrada.getKey());
+            detalles.add(detalleCambio(actual[0], actual[1], rolNuevo));
+        }
+
+        int actualizados = 0;
+        Map<Long, Long> reasignados = new HashMap<>();
+        for (Map.Entry<Long, List<Long>> grupo : idsPorRolDestino.entrySet()) {
+            grupo.getValue().forEach(usuarioId -> reasignados.put(usuarioId, grupo.getKey()));
+            List<Long> ids = grupo.getValue();
+            for (int desde = 0; desde < ids.size(); desde += IDS_POR_SENTENCIA) {
+                MapSqlParameterSource parametros = new MapSqlParameterSource()
+                    .addValue("rolId", grupo.getKey())
+                    .addValue("ids", ids.subList(desde, Math.min(desde + IDS_POR_SENTENCIA, ids.size())));
+                actualizados += jdbc.update("UPDATE usuarios SET rol_id = :rolId WHERE id IN (:ids)", parametros);
+            }
+        }
+        resultado.setActualizados(actualizados);
+        rolCatalog.usoModificado();
+        autoridadesService.rolesReasignados(reasignados);
+
+        auditar(admin, ipAddress, userAgent, detalles);
+
+        resultado.setDuracionMs(System.currentTimeMillis() - inicio);
+        System.out.println("✓ Reasignación masiva: " + actualizados + " usuario(s) en " + resultado.getDuracionMs() + " ms");
+        return resultado;
+    }
+
+    /**
+     * Reasignar todos los usuarios de un rol a otro con un único UPDATE
+     */
+    @Transactional
+    public ResultadoReasignacionDTO reasignarPorRol(Long rolOrigenId, Long rolDestinoId, String admin,
+                                                    String ipAddress, String userAgent) {
+        long inicio = System.currentTimeMillis();
+        ResultadoReasignacionDTO resultado = new ResultadoReasignacionDTO();
+
+        Map<Long, String> nombresRoles = cargarNombresRoles();
+        String rolOrigen = nombresRoles.get(rolOrigenId);
+        String rolDestino = nombresRoles.get(rolDestinoId);
+        if (rolOrigen == null || rolDestino == null) {
+            throw new IllegalArgumentException("Rol no encontrado");
+        }
+        if (rolOrigenId.equals(rolDestinoId)) {
+            return resultado;
+        }
+
+        // Ids y nombres para las sesiones y la auditoría; FOR UPDATE evita que cambie el conjunto antes del UPDATE
+        Map<Long, Long> reasignados = new HashMap<>();
+        List<String> nombres = new ArrayList<>();
+        jdbc.query("SELECT id, nombre_usuario FROM usuarios WHERE rol_id = :rolId FOR UPDATE",
+            new MapSqlParameterSource("rolId", rolOrigenId), rs -> {
+                reasignados.put(rs.getLong(1), rolDestinoId);
+                nombres.add(rs.getString(2));
+            });
+        resultado.setSolicitados(nombres.size());
+
+        int actualizados = jdbc.update(
+            "UPDATE usuarios SET rol_id = :destino WHERE rol_id = :origen",
+            new MapSqlParameterSource().addValue("destino", rolDestinoId).addValue("origen", rolOrigenId));
+        resultado.setActualizados(actualizados);
+        rolCatalog.usoModificado();
+        autoridadesService.rolesReasignados(reasignados);
+
+        List<String> detalles = new ArrayList<>(nombres.size());
+        nombres.forEach(nombre -> detalles.add(detalleCambio(nombre, rolOrigen, rolDestino)));
+        auditar(admin, ipAddress, userAgent, detalles);
+
+        resultado.setDuracionMs(System.currentTimeMillis() - inicio);
+        System.out.println("✓ Reasignación por rol '" + rolOrigen + "' → '" + rolDestino + "': "
+            + actualizados + " usuario(s) en " + resultado.getDuracionMs() + " ms");
+        return resultado;
+    }
+
+    private void auditar(String admin, String ipAddress, String userAgent, List<String> detalles) {
+        if (detalles.isEmpty()) {
+            return;
+        }
+        Long adminId = usuarioRepository.findIdByNombreUsuario(admin)
+            .orElseThrow(() -> new IllegalArgumentException("Administrador no encontrado: " + admin));
+        auditoriaJdbcRepository.insertarLote(adminId, "CAMBIO_ROL", RECURSO, ipAddress, userAgent,
+            Auditoria.Resultado.EXITOSO, detalles);
+    }
+
+    private Map<Long, String> cargarNombresRoles() {
+        Map<Long, String> nombres = new HashMap<>();
+        rolRepository.findAll().forEach(rol -> nombres.put(rol.getId(), rol.nombre));
+        return nombres;
+    }
+
+    /**
+     * id -> [nombreUsuario, nombreRol]
+     */
+    private Map<Long, String[]> cargarUsuarios(List<Long> ids) {
+        Map<Long, String[]> usuarios = new HashMap<>();
+        for (int desde = 0; desde < ids.size(); desde += IDS_POR_SENTENCIA) {
+            jdbc.query(
+                "SELECT u.id, u.nombre_usuario, r.nombre FROM usuarios u JOIN roles r ON r.id = u.rol_id " +
+                "WHERE u.id IN (:ids) FOR UPDATE",
+                new MapSqlParameterSource("ids", ids.subList(desde, Math.min(desde + IDS_POR_SENTENCIA, ids.size()))),
+                rs -> {
+                    usuarios.put(rs.getLong(1), new String[]{rs.getString(2), rs.getString(3)});
+                });
+        }
+        return usuarios;
+    }
+
+    private String detalleCambio(String usuario, String rolAnterior, String rolNuevo) {
+        return String.format("Usuario '%s' cambió de '%s' a '%s'", usuario, rolAnterior, rolNuevo);
+    }
+}
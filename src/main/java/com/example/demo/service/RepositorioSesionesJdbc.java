@@ -0,0 +1,233 @@
+package com.example.demo.service;
+
+import com.example.demo.config.Bulkhead;
+import com.example.demo.config.ContextoBulkhead;
+import jakarta.annotation.PreDestroy;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.SessionRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Almacén de sesiones HTTP en las tablas sesiones y sesion_atributos (ver db/sesiones.sql)
+ * Cualquier nodo atiende cualquier sesión y un reinicio no desloguea a nadie.
+ * - Los atributos solo se escriben cuando cambian, y se deserializan al leerlos
+ * - El último acceso se escribe en segundo plano (write-behind): un request que no
+ *   cambia atributos no escribe en la BD; los accesos se vuelcan en lote cada
+ *   sesiones.escritura-acceso-ms
+ * - Las sesiones vencidas se borran en tramos desde un barrido programado
+ */
+public class RepositorioSesionesJdbc implements SessionRepository<SesionJdbc> {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate transaccion;
+    private final Duration inactividadMaxima;
+    private final Duration intervaloEscritura;
+    private final int loteBarrido;
+    private final SerializingConverter serializador = new SerializingConverter();
+    private final DeserializingConverter deserializador;
+
+    // clave de sesión -> último acceso todavía no escrito
+    private final Map<String, AccesoPendiente> accesosPendientes = new ConcurrentHashMap<>();
+
+    public RepositorioSesionesJdbc(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                   Duration inactividadMaxima, Duration intervaloEscritura, int loteBarrido,
+                                   ClassLoader classLoader) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jdbc = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.inactividadMaxima = inactividadMaxima;
+        this.intervaloEscritura = intervaloEscritura;
+        this.loteBarrido = loteBarrido;
+        this.deserializador = new DeserializingConverter(classLoader);
+    }
+
+    @Override
+    public SesionJdbc createSession() {
+        Instant ahora = Instant.now();
+        return new SesionJdbc(UUID.randomUUID().toString(), UUID.randomUUID().toString(), ahora, ahora,
+            inactividadMaxima, Map.of(), deserializador::convert, true);
+    }
+
+    @Override
+    public void save(SesionJdbc sesion) {
+        if (sesion.isNueva()) {
+            transaccion.executeWithoutResult(status -> insertar(sesion));
+        } else if (sesion.isMetadatosModificados() || !sesion.getModificados().isEmpty()) {
+            transaccion.executeWithoutResult(status -> actualizar(sesion));
+            accesosPendientes.remove(sesion.getClave());
+        } else if (sesion.isAccesoModificado()) {
+            // Solo cambió el último acceso: se escribe con el próximo lote
+            AccesoPendiente acceso = new AccesoPendiente(
+                sesion.getLastAccessedTime().toEpochMilli(), sesion.expiraEnMillis());
+            accesosPendientes.merge(sesion.getClave(), acceso,
+                (anterior, nuevo) -> nuevo.ultimoAcceso > anterior.ultimoAcceso ? nuevo : anterior);
+        }
+        sesion.marcarGuardada();
+    }
+
+    @Override
+    public SesionJdbc findById(String id) {
+        List<SesionJdbc> encontradas = jdbcTemplate.query(
+            "SELECT clave, creada, ultimo_acceso, inactividad_seg FROM sesiones WHERE id = ?",
+            (rs, fila) -> {
+                String clave = rs.getString(1);
+                long ultimoAcceso = rs.getLong(3);
+                AccesoPendiente pendiente = accesosPendientes.get(clave);
+                if (pendiente != null && pendiente.ultimoAcceso > ultimoAcceso) {
+                    ultimoAcceso = pendiente.ultimoAcceso;
+                }
+                return new SesionJdbc(clave, id, Instant.ofEpochMilli(rs.getLong(2)),
+                    Instant.ofEpochMilli(ultimoAcceso), Duration.ofSeconds(rs.getInt(4)),
+                    Map.of(), deserializador::convert, false);
+            }, id);
+        if (encontradas.isEmpty()) {
+            return null;
+        }
+
+        SesionJdbc sesion = encontradas.get(0);
+        // Con margen: otro nodo puede tener un acceso más nuevo todavía sin volcar
+        if (sesion.isExpired(Instant.now().minus(intervaloEscritura))) {
+            deleteById(id);
+            return null;
+        }
+
+        // Los atributos viajan serializados; SesionJdbc los deserializa al leerlos
+        jdbcTemplate.query("SELECT nombre, valor FROM sesion_atributos WHERE sesion_clave = ?",
+            rs -> {
+                sesion.agregarSerializado(rs.getString(1), rs.getBytes(2));
+            }, sesion.getClave());
+        return sesion;
+    }
+
+    @Override
+    public void deleteById(String id) {
+        List<String> claves = jdbcTemplate.queryForList("SELECT clave FROM sesiones WHERE id = ?", String.class, id);
+        if (!claves.isEmpty()) {
+            transaccion.executeWithoutResult(status -> borrar(claves));
+            accesosPendientes.remove(claves.get(0));
+        }
+    }
+
+    /**
+     * Volcar en lote los últimos accesos pendientes
+     * Una sesión borrada o escrita después por otro nodo no se pisa (ultimo_acceso < ?)
+     */
+    @Scheduled(fixedDelayString = "${sesiones.escritura-acceso-ms:10000}")
+    public int escribirAccesos() {
+        if (accesosPendientes.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> lote = new ArrayList<>();
+        for (Map.Entry<String, AccesoPendiente> entrada : accesosPendientes.entrySet()) {
+            AccesoPendiente acceso = entrada.getValue();
+            if (accesosPendientes.remove(entrada.getKey(), acceso)) {
+                lote.add(new Object[]{acceso.ultimoAcceso, acceso.expira, entrada.getKey(), acceso.ultimoAcceso});
+            }
+        }
+        try (ContextoBulkhead.Ambito ambito = ContextoBulkhead.abrir(Bulkhead.LECTURA_MASIVA)) {
+            jdbcTemplate.batchUpdate(
+                "UPDATE sesiones SET ultimo_acceso = ?, expira = ? WHERE clave = ? AND ultimo_acceso < ?", lote);
+        }
+        return lote.size();
+    }
+
+    /**
+     * Borrar las sesiones vencidas en tramos de sesiones.barrido-lote
+     * El margen cubre los accesos que otro nodo todavía no volcó
+     */
+    @Scheduled(fixedDelayString = "${sesiones.barrido-ms:60000}")
+    public int barrerVencidas() {
+        long limite = Instant.now().minus(intervaloEscritura.multipliedBy(2)).toEpochMilli();
+        int borradas = 0;
+        try (ContextoBulkhead.Ambito ambito = ContextoBulkhead.abrir(Bulkhead.LECTURA_MASIVA)) {
+            List<String> claves;
+            do {
+                claves = jdbcTemplate.queryForList(
+                    "SELECT clave FROM sesiones WHERE expira < ? ORDER BY expira LIMIT ?",
+                    String.class, limite, loteBarrido);
+                if (!claves.isEmpty()) {
+                    List<String> tramo = claves;
+                    transaccion.executeWithoutResult(status -> borrar(tramo));
+                    borradas += claves.size();
+                }
+            } while (claves.size() == loteBarrido);
+        }
+        if (borradas > 0) {
+            System.out.println("🧹 Sesiones vencidas eliminadas: " + borradas);
+        }
+        return borradas;
+    }
+
+    @PreDestroy
+    public void detener() {
+        escribirAccesos();
+    }
+
+    private void insertar(SesionJdbc sesion) {
+        jdbcTemplate.update(
+            "INSERT INTO sesiones (clave, id, creada, ultimo_acceso, inactividad_seg, expira) VALUES (?, ?, ?, ?, ?, ?)",
+            sesion.getClave(), sesion.getId(), sesion.getCreationTime().toEpochMilli(),
+            sesion.getLastAccessedTime().toEpochMilli(), (int) sesion.getMaxInactiveInterval().toSeconds(),
+            sesion.expiraEnMillis());
+        insertarAtributos(sesion, new ArrayList<>(sesion.getAtributos().keySet()));
+    }
+
+    private void actualizar(SesionJdbc sesion) {
+        jdbcTemplate.update(
+            "UPDATE sesiones SET id = ?, ultimo_acceso = ?, inactividad_seg = ?, expira = ? WHERE clave = ?",
+            sesion.getId(), sesion.getLastAccessedTime().toEpochMilli(),
+            (int) sesion.getMaxInactiveInterval().toSeconds(), sesion.expiraEnMillis(), sesion.getClave());
+
+        List<String> modificados = new ArrayList<>(sesion.getModificados());
+        if (modificados.isEmpty()) {
+            return;
+        }
+        jdbc.update("DELETE FROM sesion_atributos WHERE sesion_clave = :clave AND nombre IN (:nombres)",
+            new MapSqlParameterSource().addValue("clave", sesion.getClave()).addValue("nombres", modificados));
+        modificados.removeIf(nombre -> sesion.valorModificado(nombre) == null); // quitados
+        insertarAtributos(sesion, modificados);
+    }
+
+    private void insertarAtributos(SesionJdbc sesion, List<String> nombres) {
+        if (nombres.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO sesion_atributos (sesion_clave, nombre, valor) VALUES (?, ?, ?)",
+            nombres, nombres.size(), (ps, nombre) -> {
+                ps.setString(1, sesion.getClave());
+                ps.setString(2, nombre);
+                ps.setBytes(3, serializador.convert(sesion.valorModificado(nombre)));
+            });
+    }
+
+    private void borrar(List<String> claves) {
+        MapSqlParameterSource parametros = new MapSqlParameterSource("claves", claves);
+        jdbc.update("DELETE FROM sesion_atributos WHERE sesion_clave IN (:claves)", parametros);
+        jdbc.update("DELETE FROM sesiones WHERE clave IN (:claves)", parametros);
+    }
+
+    private static final class AccesoPendiente {
+        private final long ultimoAcceso;
+        private final long expira;
+
+        private AccesoPendiente(long ultimoAcceso, long expira) {
+            this.ultimoAcceso = ultimoAcceso;
+            this.expira = expira;
+        }
+    }
+}
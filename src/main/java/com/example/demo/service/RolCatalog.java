@@ -0,0 +1,342 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.EventoInvalidacion;
+import com.example.demo.dto.PermisoDTO;
+import com.example.demo.dto.RolDTO;
+import com.example.demo.model.Rol;
+import com.example.demo.repository.PermisoRepository;
+import com.example.demo.repository.RolPermisoJdbcRepository;
+import com.example.demo.repository.RolRepository;
+import com.example.demo.repository.UsuarioRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Catálogo de roles y permisos en memoria
+ * Guarda una instantánea inmutable (roles, permisos, roles protegidos,
+ * usuarios por rol y el cierre de permisos de la jerarquía) detrás de una
+ * referencia atómica, con número de versión.
+ * - Las mutaciones de RolPermisoService publican una instantánea nueva al confirmar,
+ *   recalculando el cierre solo para los roles afectados
+ * - Los cambios de usuarios solo marcan el conteo como desactualizado:
+ *   la instantánea se reconstruye en la próxima lectura
+ * Las lecturas no tocan la BD mientras la instantánea esté vigente.
+ * Los cambios se anuncian por el bus de invalidación y los cambios de otros nodos
+ * se aplican igual que los locales (sin volver a anunciarlos)
+ * La versión de autoridades sube con cada cambio que altera las autoridades de
+ * sesiones ya abiertas (ver AutoridadesService)
+ */
+@Component
+public class RolCatalog {
+
+    @Autowired
+    private RolRepository rolRepository;
+
+    @Autowired
+    private PermisoRepository permisoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private RolPermisoJdbcRepository rolPermisoJdbcRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CacheCatalogoService cacheCatalogoService;
+
+    @Autowired
+    private BusInvalidacion busInvalidacion;
+
+    private final AtomicReference<Instantanea> actual = new AtomicReference<>();
+    // ReentrantLock y no synchronized: la reconstrucción hace I/O y no debe fijar hilos virtuales
+    private final ReentrantLock reconstruccion = new ReentrantLock();
+    // Distingue las versiones entre reinicios (el ETag no debe repetirse con otro contenido)
+    private final String epoca = Long.toHexString(System.currentTimeMillis());
+    private volatile boolean usoDesactualizado;
+    private final AtomicLong versionAutoridades = new AtomicLong(1);
+    // nombre -> id de los roles protegidos (no se renombran ni se eliminan: el id no cambia)
+    private final Map<String, Long> idsRolesProtegidos = new ConcurrentHashMap<>();
+    private TransactionTemplate lectura;
+
+    @PostConstruct
+    public void iniciar() {
+        // Transacción propia: se publica también desde afterCommit de otra transacción
+        lectura = new TransactionTemplate(transactionManager);
+        lectura.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        busInvalidacion.suscribir(EventoInvalidacion.Tipo.CATALOGO, this::aplicarCambiosRemotos);
+        busInvalidacion.suscribir(EventoInvalidacion.Tipo.USUARIO, eventos -> usoDesactualizado = true);
+        // Un alta en otro nodo también cambia el conteo por rol (un solo evento por alta)
+        busInvalidacion.suscribir(EventoInvalidacion.Tipo.ALTA_USUARIO, eventos -> usoDesactualizado = true);
+    }
+
+    /**
+     * Instantánea vigente (se construye en la primera lectura)
+     */
+    public Instantanea actual() {
+        Instantanea instantanea = actual.get();
+        if (instantanea != null && !usoDesactualizado) {
+            return instantanea;
+        }
+        reconstruccion.lock();
+        try {
+            instantanea = actual.get();
+            if (instantanea != null && !usoDesactualizado) {
+                return instantanea; // otro hilo ya la reconstruyó
+            }
+            return publicar(Set.of()); // solo cambió el uso: el cierre se reutiliza
+        } finally {
+            reconstruccion.unlock();
+        }
+    }
+
+    /**
+     * Id de un rol protegido (p. ej. el rol por defecto de las altas)
+     * Se cachea aparte de la instantánea: no obliga a reconstruirla cuando
+     * solo cambió el conteo de usuarios
+     * @return Id del rol, o null si no existe
+     */
+    public Long idRolProtegido(String nombre) {
+        if (!Rol.NOMBRES_PROTEGIDOS.contains(nombre)) {
+            throw new IllegalArgumentException("No es un rol protegido: " + nombre);
+        }
+        Long id = idsRolesProtegidos.get(nombre);
+        if (id != null) {
+            return id;
+        }
+        RolDTO rol = actual().rolPorNombre(nombre);
+        if (rol == null) {
+            return null;
+        }
+        idsRolesProtegidos.put(nombre, rol.getId());
+        return rol.getId();
+    }
+
+    /**
+     * Publicar una instantánea nueva leída de la BD, recalculando todo el cierre
+     */
+    public Instantanea publicar() {
+        return publicar(null);
+    }
+
+    /**
+     * Publicar una instantánea nueva leída de la BD
+     * @param rolesCambiados Roles cuyo cierre hay que recalcular (null = todos)
+     */
+    public Instantanea publicar(Collection<Long> rolesCambiados) {
+        reconstruccion.lock();
+        try {
+            usoDesactualizado = false;
+            Instantanea anterior = actual.get();
+            long version = anterior == null ? 1 : anterior.getVersion() + 1;
+            Instantanea nueva = lectura.execute(status -> construir(version, anterior, rolesCambiados));
+            actual.set(nueva);
+            System.out.println("📚 Catálogo de roles publicado (versión " + version + ")");
+            return nueva;
+        } finally {
+            reconstruccion.unlock();
+        }
+    }
+
+    /**
+     * Publicar cuando confirme la transacción actual (o de inmediato si no hay)
+     * Lo llama cada mutación de roles/permisos
+     * @param rolesCambiados Roles cuyos permisos o herencias cambiaron (null = todos)
+     */
+    public void publicarAlConfirmar(Collection<Long> rolesCambiados) {
+        alConfirmar(() -> {
+            Instantanea nueva = publicar(rolesCambiados);
+            autoridadesCambiadas();
+            if (rolesCambiados == null || rolesCambiados.isEmpty()) {
+                // Sin roles puntuales (p. ej. un renombre): los demás nodos refrescan todo
+                busInvalidacion.enviar(EventoInvalidacion.Tipo.CATALOGO, null, nueva.getVersion());
+            } else {
+                rolesCambiados.forEach(rolId ->
+                    busInvalidacion.enviar(EventoInvalidacion.Tipo.CATALOGO, rolId, nueva.getVersion()));
+            }
+        });
+    }
+
+    /**
+     * Versión contra la que se comparan los principales de las sesiones abiertas
+     * Solo cambia con permisos, jerarquía, nombres de roles o reasignaciones de usuarios
+     * (no con el conteo de usuarios por rol)
+     */
+    public long versionAutoridades() {
+        return versionAutoridades.get();
+    }
+
+    /**
+     * Marcar como viejas las autoridades de todas las sesiones abiertas
+     * (se reconstruyen en su próximo request)
+     */
+    public void autoridadesCambiadas() {
+        versionAutoridades.incrementAndGet();
+    }
+
+    /**
+     * Marcar el conteo de usuarios por rol como desactualizado
+     * Lo llaman los cambios de rol (las altas usan altasRegistradas)
+     */
+    public void usoModificado() {
+        alConfirmar(() -> usoDesactualizado = true);
+        busInvalidacion.publicar(EventoInvalidacion.Tipo.USUARIO, null, System.currentTimeMillis());
+    }
+
+    /**
+     * Conteo desactualizado por altas de usuarios, solo en este nodo: los demás lo
+     * marcan al recibir el ALTA_USUARIO que publica FiltroNombresUsuario
+     */
+    public void altasRegistradas() {
+        alConfirmar(() -> usoDesactualizado = true);
+    }
+
+    /**
+     * Cambios del catálogo hechos en otro nodo: se vacía la caché de segundo
+     * nivel y se publica una instantánea nueva (un solo recálculo por lote)
+     */
+    private void aplicarCambiosRemotos(List<EventoInvalidacion> eventos) {
+        Set<Long> rolesCambiados = new HashSet<>();
+        for (EventoInvalidacion evento : eventos) {
+            if (evento.getEntidadId() == null) {
+                rolesCambiados = null;
+                break;
+            }
+            rolesCambiados.add(evento.getEntidadId());
+        }
+        cacheCatalogoService.invalidar();
+        publicar(rolesCambiados);
+        autoridadesCambiadas();
+    }
+
+    private void alConfirmar(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+
+    private Instantanea construir(long version, Instantanea anterior, Collection<Long> rolesCambiados) {
+        Map<Long, Long> uso = new HashMap<>();
+        for (Object[] fila : usuarioRepository.contarUsuariosAgrupadosPorRol()) {
+            uso.put((Long) fila[0], (Long) fila[1]);
+        }
+
+        List<Rol> entidades = rolRepository.findAllConPermisos();
+        Map<Long, Set<Long>> herencias = rolPermisoJdbcRepository.obtenerHerencias();
+        Map<Long, Set<String>> directos = new HashMap<>();
+        Map<Long, String> nombres = new HashMap<>();
+        for (Rol rol : entidades) {
+            directos.put(rol.getId(), new HashSet<>(rol.getNombresPermisos()));
+            nombres.put(rol.getId(), rol.nombre);
+        }
+
+        CierrePermisos cierre = anterior == null || rolesCambiados == null
+            ? CierrePermisos.calcular(directos, herencias)
+            : anterior.getCierre().actualizar(directos, herencias, Set.copyOf(rolesCambiados));
+
+        List<RolDTO> roles = new ArrayList<>();
+        for (Rol rol : entidades) {
+            List<String> heredaDe = cierre.heredaDe(rol.getId()).stream()
+                .map(nombres::get).sorted().toList();
+            roles.add(new RolDTO(rol, uso.getOrDefault(rol.getId(), 0L), heredaDe,
+                cierre.permisosEfectivos(rol.getId())));
+        }
+        List<PermisoDTO> permisos = permisoRepository.findAll().stream().map(PermisoDTO::new).toList();
+
+        return new Instantanea(version, epoca + "-" + version, roles, permisos, cierre);
+    }
+
+    /**
+     * Instantánea inmutable del catálogo
+     */
+    public static final class Instantanea {
+        private final long version;
+        private final String etag;
+        private final List<RolDTO> roles;
+        private final List<PermisoDTO> permisos;
+        private final Map<Long, RolDTO> rolesPorId;
+        private final Map<String, RolDTO> rolesPorNombre;
+        private final Map<Long, PermisoDTO> permisosPorId;
+        private final CierrePermisos cierre;
+
+        private Instantanea(long version, String etag, List<RolDTO> roles, List<PermisoDTO> permisos,
+                            CierrePermisos cierre) {
+            this.version = version;
+            this.cierre = cierre;
+            this.etag = "\"" + etag + "\"";
+            this.roles = List.copyOf(roles);
+            this.permisos = List.copyOf(permisos);
+
+            Map<Long, RolDTO> porId = new LinkedHashMap<>();
+            Map<String, RolDTO> porNombre = new HashMap<>();
+            for (RolDTO rol : roles) {
+                porId.put(rol.getId(), rol);
+                porNombre.put(rol.getNombre(), rol);
+            }
+            Map<Long, PermisoDTO> permisosId = new LinkedHashMap<>();
+            permisos.forEach(permiso -> permisosId.put(permiso.getId(), permiso));
+
+            this.rolesPorId = Collections.unmodifiableMap(porId);
+            this.rolesPorNombre = Collections.unmodifiableMap(porNombre);
+            this.permisosPorId = Collections.unmodifiableMap(permisosId);
+        }
+
+        public long getVersion() { return version; }
+        public String getEtag() { return etag; }
+        public List<RolDTO> getRoles() { return roles; }
+        public List<PermisoDTO> getPermisos() { return permisos; }
+
+        /**
+         * ETag de una vista que además depende de otro dato (p. ej. el usuario)
+         */
+        public String etagPara(String sufijo) {
+            return etag.substring(0, etag.length() - 1) + "-" + sufijo + "\"";
+        }
+
+        public RolDTO rolPorId(Long id) { return rolesPorId.get(id); }
+        public RolDTO rolPorNombre(String nombre) { return rolesPorNombre.get(nombre); }
+        public PermisoDTO permisoPorId(Long id) { return permisosPorId.get(id); }
+        public CierrePermisos getCierre() { return cierre; }
+
+        /**
+         * Permisos efectivos del rol (directos + heredados), precalculados
+         */
+        public Set<String> permisosEfectivos(Long rolId) {
+            return cierre.permisosEfectivos(rolId);
+        }
+
+        public boolean tienePermiso(Long rolId, String permiso) {
+            return cierre.tienePermiso(rolId, permiso);
+        }
+    }
+}
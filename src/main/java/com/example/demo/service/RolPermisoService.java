@@ -3,19 +3,23 @@ package com.example.demo.service;
 import com.example.demo.dto.RolDTO;
 import com.example.demo.model.Permiso;
 import com.example.demo.model.Rol;
-import com.example.demo.model.Usuario;
 import com.example.demo.repository.PermisoRepository;
+import com.example.demo.repository.RolPermisoJdbcRepository;
 import com.example.demo.repository.RolRepository;
 import com.example.demo.repository.UsuarioRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 
 /**
@@ -35,33 +39,32 @@ public class RolPermisoService {
     @Autowired
     private UsuarioRepository usuarioRepository;
 
+    @Autowired
+    private CacheCatalogoService cacheCatalogoService;
+
+    @Autowired
+    private RolPermisoJdbcRepository rolPermisoJdbcRepository;
+
+    @Autowired
+    private RolCatalog rolCatalog;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     // ==================== ROLES ====================
 
     /**
-     * Obtener todos los roles con permisos cargados
+     * Obtener todos los roles con permisos cargados (una sola consulta)
      */
     public List<Rol> obtenerTodosLosRoles() {
-        List<Rol> roles = rolRepository.findAll();
-        // Forzar carga de permisos
-        roles.forEach(rol -> {
-            if (rol.permisos != null) {
-                rol.permisos.size(); // Inicializa la colección lazy
-            }
-        });
-        return roles;
+        return rolRepository.findAllConPermisos();
     }
 
     /**
-     * Obtener un rol por ID
+     * Obtener un rol por ID con sus permisos cargados
      */
     public Optional<Rol> obtenerRolPorId(Long id) {
-        Optional<Rol> rolOpt = rolRepository.findById(id);
-        rolOpt.ifPresent(rol -> {
-            if (rol.permisos != null) {
-                rol.permisos.size();
-            }
-        });
-        return rolOpt;
+        return rolRepository.findConPermisosById(id);
     }
 
     /**
@@ -77,7 +80,10 @@ public class RolPermisoService {
         Rol nuevoRol = new Rol();
         nuevoRol.nombre = nombre;
         nuevoRol.permisos = new ArrayList<>();
-        return rolRepository.save(nuevoRol);
+        Rol guardado = rolRepository.save(nuevoRol);
+        cacheCatalogoService.invalidarAlConfirmar();
+        rolCatalog.publicarAlConfirmar(Set.of(guardado.getId()));
+        return guardado;
     }
 
     /**
@@ -95,7 +101,10 @@ public class RolPermisoService {
         }
 
         rol.nombre = nuevoNombre;
-        return rolRepository.save(rol);
+        Rol guardado = rolRepository.save(rol);
+        cacheCatalogoService.invalidarAlConfirmar();
+        rolCatalog.publicarAlConfirmar(Set.of()); // renombrar no cambia el cierre
+        return guardado;
     }
 
     /**
@@ -111,24 +120,22 @@ public class RolPermisoService {
         Rol rol = rolOpt.get();
 
         // No permitir eliminar roles del sistema
-        List<String> rolesProtegidos = List.of(
-            "Personal", "Jefe de Área", "Gerente",  // ← Corregir
-            "Director", "Supervisor", "Administrador del Sistema"
-        );
-
-        if (rolesProtegidos.contains(rol.nombre)) {
+        if (Rol.NOMBRES_PROTEGIDOS.contains(rol.nombre)) {
             throw new IllegalArgumentException("No se puede eliminar un rol del sistema");
         }
 
-        // Verificar que no haya usuarios con este rol
-        List<Usuario> usuariosConRol = usuarioRepository.findByRol(rol);
-        if (!usuariosConRol.isEmpty()) {
+        // Verificar que no haya usuarios con este rol (conteo, sin cargar usuarios)
+        long usuariosConRol = usuarioRepository.countByRol_Id(id);
+        if (usuariosConRol > 0) {
             throw new IllegalArgumentException(
-                "No se puede eliminar el rol porque hay " + usuariosConRol.size() + " usuario(s) asignado(s)"
+                "No se puede eliminar el rol porque hay " + usuariosConRol + " usuario(s) asignado(s)"
             );
         }
 
+        rolPermisoJdbcRepository.eliminarHerenciasDeRol(id);
         rolRepository.delete(rol);
+        cacheCatalogoService.invalidarAlConfirmar();
+        rolCatalog.publicarAlConfirmar(Set.of(id));
         return true;
     }
 
@@ -161,7 +168,10 @@ public class RolPermisoService {
 
         Permiso nuevoPermiso = new Permiso();
         nuevoPermiso.nombre = nombreNormalizado;
-        return permisoRepository.save(nuevoPermiso);
+        Permiso guardado = permisoRepository.save(nuevoPermiso);
+        cacheCatalogoService.invalidarAlConfirmar();
+        rolCatalog.publicarAlConfirmar(Set.of()); // todavía no está asignado a ningún rol
+        return guardado;
     }
 
     /**
@@ -180,7 +190,10 @@ public class RolPermisoService {
         }
 
         permiso.nombre = nombreNormalizado;
-        return permisoRepository.save(permiso);
+        Permiso guardado = permisoRepository.save(permiso);
+        cacheCatalogoService.invalidarAlConfirmar();
+        rolCatalog.publicarAlConfirmar(null);
+        return guardado;
     }
 
     /**
@@ -204,17 +217,12 @@ public class RolPermisoService {
             throw new IllegalArgumentException("No se puede eliminar un permiso del sistema");
         }
 
-        // Eliminar el permiso de todos los roles
-        List<Rol> roles = rolRepository.findAll();
-        for (Rol rol : roles) {
-            if (rol.permisos != null) {
-                rol.permisos.size(); // Inicializar
-                rol.permisos.removeIf(p -> p.getId().equals(id));
-                rolRepository.save(rol);
-            }
-        }
+        // Eliminar el permiso de todos los roles: un solo DELETE sobre rol_permisos
+        rolPermisoJdbcRepository.eliminarPermisoDeTodosLosRoles(id);
 
         permisoRepository.delete(permiso);
+        cacheCatalogoService.invalidarAlConfirmar();
+        rolCatalog.publicarAlConfirmar(null);
         return true;
     }
 
@@ -222,43 +230,71 @@ public class RolPermisoService {
 
     /**
      * Asignar permisos a un rol
+     * Calcula la diferencia con lo asignado y solo inserta/elimina las filas que cambian
      */
     @Transactional
     public Rol asignarPermisosARol(Long rolId, Set<Long> permisosIds) {
         Rol rol = rolRepository.findById(rolId)
             .orElseThrow(() -> new IllegalArgumentException("Rol no encontrado"));
 
-        // Inicializar y limpiar permisos actuales
-        if (rol.permisos == null) {
-            rol.permisos = new ArrayList<>();
-        } else {
-            rol.permisos.size(); // Inicializar lazy collection
-            rol.permisos.clear();
+        Set<Long> deseados = permisosIds != null ? permisosIds : Set.of();
+        List<Permiso> permisos = deseados.isEmpty() ? new ArrayList<>() : permisoRepository.findAllById(deseados);
+
+        if (permisos.size() != deseados.size()) {
+            Set<Long> faltantes = new HashSet<>(deseados);
+            permisos.forEach(p -> faltantes.remove(p.getId()));
+            throw new IllegalArgumentException("Permiso no encontrado: " + faltantes);
         }
 
-        // Agregar nuevos permisos
-        if (permisosIds != null && !permisosIds.isEmpty()) {
-            for (Long permisoId : permisosIds) {
-                Permiso permiso = permisoRepository.findById(permisoId)
-                    .orElseThrow(() -> new IllegalArgumentException("Permiso no encontrado: " + permisoId));
-                rol.permisos.add(permiso);
-            }
+        rolPermisoJdbcRepository.sincronizarPermisos(rolId, deseados);
+        cacheCatalogoService.invalidarAlConfirmar();
+        rolCatalog.publicarAlConfirmar(Set.of(rolId));
+
+        // Rol desacoplado con los permisos resultantes (no se vuelve a sincronizar la colección)
+        entityManager.detach(rol);
+        rol.permisos = permisos;
+        return rol;
+    }
+
+    // ==================== JERARQUÍA DE ROLES ====================
+
+    /**
+     * Hacer que un rol herede los permisos de otro (y, transitivamente, los de sus padres)
+     */
+    @Transactional
+    public void agregarHerencia(Long rolId, Long padreId) {
+        // Ciclos contra las aristas de la BD con la jerarquía bloqueada (no contra la
+        // instantánea en memoria, que no ve otra alta de herencia en curso)
+        Set<Long> roles = rolPermisoJdbcRepository.bloquearJerarquia();
+        if (!roles.contains(rolId) || !roles.contains(padreId)) {
+            throw new IllegalArgumentException("Rol no encontrado");
+        }
+        if (CierrePermisos.formaCiclo(rolPermisoJdbcRepository.obtenerHerenciasParaActualizar(), rolId, padreId)) {
+            throw new IllegalArgumentException("La herencia formaría un ciclo en la jerarquía de roles");
         }
 
-        return rolRepository.save(rol);
+        if (rolPermisoJdbcRepository.agregarHerencia(rolId, padreId)) {
+            rolCatalog.publicarAlConfirmar(Set.of(rolId));
+        }
+    }
+
+    /**
+     * Quitar la herencia directa de un rol sobre otro
+     */
+    @Transactional
+    public void quitarHerencia(Long rolId, Long padreId) {
+        if (rolPermisoJdbcRepository.quitarHerencia(rolId, padreId)) {
+            rolCatalog.publicarAlConfirmar(Set.of(rolId));
+        }
     }
 
     /**
      * Obtener permisos de un rol
      */
     public List<Permiso> obtenerPermisosDeRol(Long rolId) {
-        Rol rol = rolRepository.findById(rolId)
+        Rol rol = rolRepository.findConPermisosById(rolId)
             .orElseThrow(() -> new IllegalArgumentException("Rol no encontrado"));
-        
-        if (rol.permisos != null) {
-            rol.permisos.size(); // Inicializar
-        }
-        
+
         return rol.permisos;
     }
 
@@ -266,47 +302,40 @@ public class RolPermisoService {
      * Verificar si un rol tiene un permiso específico
      */
     public boolean rolTienePermiso(Long rolId, Long permisoId) {
-        Rol rol = rolRepository.findById(rolId)
+        Rol rol = rolRepository.findConPermisosById(rolId)
             .orElseThrow(() -> new IllegalArgumentException("Rol no encontrado"));
-        
-        if (rol.permisos != null) {
-            rol.permisos.size();
-            return rol.permisos.stream()
-                .anyMatch(p -> p.getId().equals(permisoId));
-        }
-        
-        return false;
+
+        return rol.permisos != null && rol.permisos.stream()
+            .anyMatch(p -> p.getId().equals(permisoId));
     }
 
     /**
      * Contar usuarios asignados a un rol
      */
     public long contarUsuariosPorRol(Long rolId) {
-        Rol rol = rolRepository.findById(rolId)
-            .orElseThrow(() -> new IllegalArgumentException("Rol no encontrado"));
-        
-        return usuarioRepository.findByRol(rol).size();
+        if (!rolRepository.existsById(rolId)) {
+            throw new IllegalArgumentException("Rol no encontrado");
+        }
+        return usuarioRepository.countByRol_Id(rolId);
+    }
+
+    /**
+     * Cantidad de usuarios de cada rol con un único GROUP BY
+     * Los roles sin usuarios no aparecen en el mapa
+     */
+    public Map<Long, Long> obtenerUsoDeRoles() {
+        Map<Long, Long> uso = new HashMap<>();
+        for (Object[] fila : usuarioRepository.contarUsuariosAgrupadosPorRol()) {
+            uso.put((Long) fila[0], (Long) fila[1]);
+        }
+        return uso;
     }
 
     /**
      * Obtener todos los roles como DTOs (sin problemas de Hibernate)
+     * Servidos desde la instantánea del catálogo, sin consultar la BD
      */
-    @Transactional(readOnly = true)
     public List<RolDTO> obtenerTodosLosRolesDTO() {
-        List<Rol> roles = rolRepository.findAll();
-
-        return roles.stream()
-            .map(rol -> {
-                // Forzar carga de permisos
-                if (rol.permisos != null) {
-                    try {
-                        rol.permisos.size(); // Inicializa la colección lazy
-                    } catch (Exception e) {
-                        System.err.println("⚠️ Error al cargar permisos del rol: " + rol.nombre);
-                    }
-                }
-                return new RolDTO(rol);
-            })
-            .collect(Collectors.toList());
+        return rolCatalog.actual().getRoles();
     }
-}
\ No newline at end of file
+}
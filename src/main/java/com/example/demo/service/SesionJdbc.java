@@ -0,0 +1,177 @@
+package com.example.demo.service;
+
+import org.springframework.session.Session;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Sesión HTTP guardada en la BD (ver RepositorioSesionesJdbc)
+ * Los atributos llegan serializados y se deserializan recién cuando se leen:
+ * un request que solo necesita el contexto de seguridad no paga por el resto
+ */
+public class SesionJdbc implements Session {
+
+    // Clave estable de la fila: el id visible cambia al autenticarse (fijación de sesión)
+    private final String clave;
+    private String id;
+    private final Instant creada;
+    private Instant ultimoAcceso;
+    private Instant ultimoAccesoGuardado;
+    private Duration inactividadMaxima;
+
+    private final Map<String, Object> atributos = new HashMap<>();
+    private final Map<String, byte[]> serializados;
+    private final Function<byte[], Object> deserializador;
+
+    private boolean nueva;
+    private boolean metadatosModificados;
+    private final Set<String> modificados = new HashSet<>();
+
+    SesionJdbc(String clave, String id, Instant creada, Instant ultimoAcceso, Duration inactividadMaxima,
+               Map<String, byte[]> serializados, Function<byte[], Object> deserializador, boolean nueva) {
+        this.clave = clave;
+        this.id = id;
+        this.creada = creada;
+        this.ultimoAcceso = ultimoAcceso;
+        this.ultimoAccesoGuardado = ultimoAcceso;
+        this.inactividadMaxima = inactividadMaxima;
+        this.serializados = new HashMap<>(serializados);
+        this.deserializador = deserializador;
+        this.nueva = nueva;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public String changeSessionId() {
+        id = UUID.randomUUID().toString();
+        metadatosModificados = true;
+        return id;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getAttribute(String nombre) {
+        if (atributos.containsKey(nombre)) {
+            return (T) atributos.get(nombre);
+        }
+        byte[] datos = serializados.remove(nombre);
+        if (datos == null) {
+            return null;
+        }
+        Object valor = deserializador.apply(datos);
+        atributos.put(nombre, valor);
+        return (T) valor;
+    }
+
+    @Override
+    public Set<String> getAttributeNames() {
+        Set<String> nombres = new HashSet<>(atributos.keySet());
+        nombres.addAll(serializados.keySet());
+        return nombres;
+    }
+
+    @Override
+    public void setAttribute(String nombre, Object valor) {
+        if (valor == null) {
+            removeAttribute(nombre);
+            return;
+        }
+        atributos.put(nombre, valor);
+        serializados.remove(nombre);
+        modificados.add(nombre);
+    }
+
+    @Override
+    public void removeAttribute(String nombre) {
+        atributos.remove(nombre);
+        serializados.remove(nombre);
+        modificados.add(nombre);
+    }
+
+    @Override
+    public Instant getCreationTime() {
+        return creada;
+    }
+
+    @Override
+    public void setLastAccessedTime(Instant ultimoAcceso) {
+        this.ultimoAcceso = ultimoAcceso;
+    }
+
+    @Override
+    public Instant getLastAccessedTime() {
+        return ultimoAcceso;
+    }
+
+    @Override
+    public void setMaxInactiveInterval(Duration intervalo) {
+        this.inactividadMaxima = intervalo;
+        metadatosModificados = true;
+    }
+
+    @Override
+    public Duration getMaxInactiveInterval() {
+        return inactividadMaxima;
+    }
+
+    @Override
+    public boolean isExpired() {
+        return isExpired(Instant.now());
+    }
+
+    boolean isExpired(Instant ahora) {
+        return !inactividadMaxima.isNegative() && ultimoAcceso.plus(inactividadMaxima).isBefore(ahora);
+    }
+
+    /**
+     * Momento de expiración en milisegundos (Long.MAX_VALUE si no expira)
+     */
+    long expiraEnMillis() {
+        return inactividadMaxima.isNegative() ? Long.MAX_VALUE : ultimoAcceso.plus(inactividadMaxima).toEpochMilli();
+    }
+
+    String getClave() { return clave; }
+    boolean isNueva() { return nueva; }
+    boolean isMetadatosModificados() { return metadatosModificados; }
+    Set<String> getModificados() { return modificados; }
+    boolean isAccesoModificado() { return !ultimoAcceso.equals(ultimoAccesoGuardado); }
+
+    /**
+     * Valor en memoria de un atributo modificado (null si se quitó)
+     */
+    Object valorModificado(String nombre) {
+        return atributos.get(nombre);
+    }
+
+    /**
+     * Atributo leído de la BD, todavía sin deserializar
+     */
+    void agregarSerializado(String nombre, byte[] datos) {
+        serializados.put(nombre, datos);
+    }
+
+    /**
+     * Todos los atributos ya deserializados (para el alta de la sesión)
+     */
+    Map<String, Object> getAtributos() {
+        return atributos;
+    }
+
+    void marcarGuardada() {
+        nueva = false;
+        metadatosModificados = false;
+        ultimoAccesoGuardado = ultimoAcceso;
+        modificados.clear();
+    }
+}
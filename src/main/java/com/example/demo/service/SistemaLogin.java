@@ -1,12 +1,16 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.PaginaUsuariosDTO;
+import com.example.demo.dto.UsuarioFilaDTO;
 import com.example.demo.model.Rol;
 import com.example.demo.model.Usuario;
 import com.example.demo.repository.RolRepository;
+import com.example.demo.repository.UsuarioJdbcRepository;
 import com.example.demo.repository.UsuarioRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -21,18 +25,37 @@ import java.util.Optional;
 @Service
 public class SistemaLogin {
 
+    private static final int TAMANIO_PAGINA_MAXIMO = 100;
+
     @Autowired
     private UsuarioRepository usuarioRepository;
 
+    @Autowired
+    private UsuarioJdbcRepository usuarioJdbcRepository;
+
     @Autowired
     private RolRepository rolRepository;
 
+    @Autowired
+    private RolCatalog rolCatalog;
+
+    @Autowired
+    private AutoridadesService autoridadesService;
+
+    @Autowired
+    private FiltroNombresUsuario filtroNombresUsuario;
+
     // Método según consigna: registrarUsuario(usuario)
+    // Un solo INSERT: si el nombre ya existe lo rechaza la restricción única (sin consulta previa)
     public boolean registrarUsuario(Usuario usuario) {
-        if (usuarioRepository.existsByNombreUsuario(usuario.getNombreUsuario())) {
+        Optional<Long> id = usuarioJdbcRepository.insertarSiNoExiste(
+            usuario.getNombreUsuario(), usuario.getClave(), usuario.getRol().getId());
+        if (id.isEmpty()) {
             return false;
         }
-        usuarioRepository.save(usuario);
+        usuario.setId(id.get());
+        filtroNombresUsuario.registrarAlta(usuario.getNombreUsuario());
+        rolCatalog.altasRegistradas();
         return true;
     }
 
@@ -45,15 +68,26 @@ public class SistemaLogin {
         if (usuario == null) {
             return "Acceso denegado.";
         }
+        return encabezadoAutorizacion(usuario)
+            + autorizacionDelRol(usuario.getRol().getId(), usuario.getRol().nombre);
+    }
 
+    /**
+     * Parte de autorizar(usuario) propia del usuario
+     */
+    public String encabezadoAutorizacion(Usuario usuario) {
+        return "✓ Usuario autenticado: " + usuario.getNombreUsuario() + "\n";
+    }
+
+    /**
+     * Parte de autorizar(usuario) que solo depende del rol (se cachea con las vistas, ver CacheFragmentosRol)
+     */
+    public String autorizacionDelRol(Long rolId, String nombreRol) {
         StringBuilder resultado = new StringBuilder();
-        resultado.append("✓ Usuario autenticado: ").append(usuario.getNombreUsuario()).append("\n");
-        resultado.append("✓ Rol: ").append(usuario.getRol().nombre).append("\n");
-        resultado.append("✓ Permisos: ").append(usuario.getRol().getNombresPermisos()).append("\n\n");
+        resultado.append("✓ Rol: ").append(nombreRol).append("\n");
+        resultado.append("✓ Permisos: ").append(rolCatalog.actual().permisosEfectivos(rolId)).append("\n\n");
 
         // Polimorfismo: comportamiento diferente según rol
-        String nombreRol = usuario.getRol().nombre;
-        
         if (nombreRol.equals("Administrador del Sistema")) {
             resultado.append("→ Acceso completo al sistema (GESTIÓN TOTAL)");
         } else if (nombreRol.equals("Director")) {
@@ -76,9 +110,18 @@ public class SistemaLogin {
         return rolRepository.findByNombre(nombre);
     }
 
+    /**
+     * Rol protegido para un alta (Personal, Administrador del Sistema...)
+     * El id sale de la caché del catálogo y el rol es una referencia: sin consultas
+     */
+    public Optional<Rol> obtenerRolPorDefecto(String nombre) {
+        return Optional.ofNullable(rolCatalog.idRolProtegido(nombre)).map(rolRepository::getReferenceById);
+    }
+
     // Método auxiliar para verificar permisos específicos
     public boolean tienePermiso(Usuario usuario, String permiso) {
-        return usuario != null && usuario.getRol().tienePermiso(permiso);
+        // Permisos efectivos de la jerarquía, precalculados en el catálogo
+        return usuario != null && rolCatalog.actual().tienePermiso(usuario.getRol().getId(), permiso);
     }
 
     /**
@@ -91,6 +134,15 @@ public class SistemaLogin {
         return usuarioRepository.findByNombreUsuario(nombreUsuario);
     }
 
+    /**
+     * Obtener usuario por ID
+     * @param id ID del usuario
+     * @return Optional con el usuario si existe
+     */
+    public Optional<Usuario> obtenerUsuarioPorId(Long id) {
+        return usuarioRepository.findById(id);
+    }
+
     /**
      * Obtener todos los usuarios del sistema
      * Utilizado para la gestión de usuarios por parte del administrador
@@ -100,6 +152,44 @@ public class SistemaLogin {
         return usuarioRepository.findAll();
     }
 
+    /**
+     * Página del directorio de usuarios, ordenada por nombre (paginación por clave)
+     * @param despuesDe Cursor de la página anterior (PaginaUsuariosDTO.siguiente), null = primera
+     * @param rolId Filtrar por rol (null = todos)
+     * @param orden "asc" o "desc"
+     * @param tamanio Usuarios por página (1 a 100)
+     */
+    public PaginaUsuariosDTO obtenerPaginaUsuarios(String despuesDe, Long rolId, String orden, int tamanio) {
+        if (tamanio < 1 || tamanio > TAMANIO_PAGINA_MAXIMO) {
+            throw new IllegalArgumentException("El tamaño de página debe estar entre 1 y " + TAMANIO_PAGINA_MAXIMO);
+        }
+        boolean descendente;
+        if ("asc".equalsIgnoreCase(orden)) {
+            descendente = false;
+        } else if ("desc".equalsIgnoreCase(orden)) {
+            descendente = true;
+        } else {
+            throw new IllegalArgumentException("Orden inválido: " + orden + " (asc o desc)");
+        }
+
+        // Una fila de más indica si hay otra página, sin COUNT
+        List<UsuarioFilaDTO> filas = usuarioJdbcRepository.listarPagina(
+            despuesDe == null || despuesDe.isEmpty() ? null : despuesDe, rolId, descendente, tamanio + 1);
+        if (filas.size() <= tamanio) {
+            return new PaginaUsuariosDTO(filas, null);
+        }
+        List<UsuarioFilaDTO> pagina = filas.subList(0, tamanio);
+        return new PaginaUsuariosDTO(pagina, pagina.get(tamanio - 1).getNombreUsuario());
+    }
+
+    /**
+     * Contar los usuarios registrados sin cargarlos
+     * @return Cantidad de usuarios
+     */
+    public long contarUsuarios() {
+        return usuarioRepository.count();
+    }
+
     /**
      * Obtener todos los roles disponibles en el sistema
      * Utilizado para mostrar opciones de roles en la gestión de usuarios
@@ -109,6 +199,15 @@ public class SistemaLogin {
         return rolRepository.findAll();
     }
 
+    /**
+     * Obtener un rol por ID
+     * @param id ID del rol
+     * @return Optional con el rol si existe
+     */
+    public Optional<Rol> obtenerRolPorId(Long id) {
+        return rolRepository.findById(id);
+    }
+
     /**
      * Actualizar el rol de un usuario existente
      * Solo debe ser utilizado por administradores del sistema
@@ -127,6 +226,9 @@ public class SistemaLogin {
                 
                 usuario.setRol(nuevoRol);
                 usuarioRepository.save(usuario);
+                rolCatalog.usoModificado();
+                // Las sesiones abiertas del usuario toman el rol nuevo en su próximo request
+                autoridadesService.rolesReasignados(Map.of(usuarioId, nuevoRolId));
                 
                 return true;
             }
@@ -0,0 +1,22 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.EventoInvalidacion;
+
+import java.util.List;
+
+/**
+ * Transporte del bus de invalidación entre nodos
+ * Implementaciones: TransporteTablaCambios (tabla en la BD) y TransporteLoopback (en memoria, para tests)
+ */
+public interface TransporteInvalidacion {
+
+    /**
+     * Enviar un evento a todos los nodos (incluido el propio)
+     */
+    void publicar(EventoInvalidacion evento);
+
+    /**
+     * Eventos nuevos desde la última llamada, en orden de publicación
+     */
+    List<EventoInvalidacion> recibir();
+}
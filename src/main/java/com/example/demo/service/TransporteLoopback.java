@@ -0,0 +1,31 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.EventoInvalidacion;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Transporte en memoria: lo publicado se recibe en el mismo proceso
+ * Sirve para tests y para despliegues de un solo nodo
+ */
+public class TransporteLoopback implements TransporteInvalidacion {
+
+    private final ConcurrentLinkedQueue<EventoInvalidacion> pendientes = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public void publicar(EventoInvalidacion evento) {
+        pendientes.add(evento);
+    }
+
+    @Override
+    public List<EventoInvalidacion> recibir() {
+        List<EventoInvalidacion> eventos = new ArrayList<>();
+        EventoInvalidacion evento;
+        while ((evento = pendientes.poll()) != null) {
+            eventos.add(evento);
+        }
+        return eventos;
+    }
+}
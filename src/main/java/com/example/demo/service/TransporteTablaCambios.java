@@ -0,0 +1,109 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.EventoInvalidacion;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Transporte sobre la tabla cambios_cache (ver db/cambios_cache.sql)
+ * Cada nodo inserta sus cambios y lee los de todos con una marca de agua (último id leído).
+ * Los ids autoincrementales pueden confirmarse fuera de orden, así que cada lectura
+ * vuelve a mirar una ventana de ids por debajo de la marca y descarta los ya vistos.
+ * recibir() la llama un único hilo (el sondeo programado del bus)
+ */
+public class TransporteTablaCambios implements TransporteInvalidacion {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaccionPropia;
+    private final int lote;
+    private final int margen;
+    private final Duration retencion;
+
+    private long marca = -1;
+    private final TreeSet<Long> vistos = new TreeSet<>();
+    private long proximaPurga;
+
+    public TransporteTablaCambios(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                  int lote, int margen, Duration retencion) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.lote = lote;
+        this.margen = margen;
+        this.retencion = retencion;
+        // Transacción propia: se publica desde afterCommit de la transacción que hizo el cambio
+        this.transaccionPropia = new TransactionTemplate(transactionManager);
+        this.transaccionPropia.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public void publicar(EventoInvalidacion evento) {
+        transaccionPropia.executeWithoutResult(status -> jdbcTemplate.update(
+            "INSERT INTO cambios_cache (tipo, entidad_id, version, nodo, creado) VALUES (?, ?, ?, ?, ?)",
+            evento.getTipo().name(), evento.getEntidadId(), evento.getVersion(), evento.getNodo(),
+            new Timestamp(System.currentTimeMillis())));
+    }
+
+    @Override
+    public List<EventoInvalidacion> recibir() {
+        if (marca < 0) {
+            // Al arrancar no se reprocesa la historia: las cachés empiezan vacías
+            Long maximo = jdbcTemplate.queryForObject("SELECT MAX(id) FROM cambios_cache", Long.class);
+            marca = maximo != null ? maximo : 0;
+            vistos.addAll(jdbcTemplate.queryForList(
+                "SELECT id FROM cambios_cache WHERE id > ?", Long.class, marca - margen));
+            return List.of();
+        }
+
+        List<EventoInvalidacion> eventos = new ArrayList<>();
+        jdbcTemplate.query(
+            "SELECT id, tipo, entidad_id, version, nodo FROM cambios_cache WHERE id > ? ORDER BY id LIMIT ?",
+            rs -> {
+                long id = rs.getLong(1);
+                if (vistos.add(id)) {
+                    eventos.add(new EventoInvalidacion(
+                        EventoInvalidacion.Tipo.valueOf(rs.getString(2)),
+                        rs.getObject(3, Long.class),
+                        rs.getLong(4),
+                        rs.getString(5)));
+                    marca = Math.max(marca, id);
+                }
+            },
+            marca - margen, lote + margen);
+
+        // Solo hace falta recordar los ids dentro de la ventana
+        for (Iterator<Long> it = vistos.iterator(); it.hasNext(); ) {
+            if (it.next() > marca - margen) {
+                break;
+            }
+            it.remove();
+        }
+
+        purgarSiCorresponde();
+        return eventos;
+    }
+
+    /**
+     * Marca de agua actual (último id leído)
+     */
+    public long getMarca() {
+        return marca;
+    }
+
+    private void purgarSiCorresponde() {
+        long ahora = System.currentTimeMillis();
+        if (ahora < proximaPurga) {
+            return;
+        }
+        proximaPurga = ahora + retencion.toMillis() / 4;
+        jdbcTemplate.update("DELETE FROM cambios_cache WHERE creado < ?",
+            new Timestamp(ahora - retencion.toMillis()));
+    }
+}
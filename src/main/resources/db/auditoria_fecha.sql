@@ -0,0 +1,3 @@
+-- Índice para los eventos del día (resumen del dashboard, AuditoriaJdbcRepository.resumenDashboard)
+-- Rango sobre fecha_hora en vez de DATE(fecha_hora): usa el índice
+CREATE INDEX idx_auditoria_fecha_hora ON auditoria (fecha_hora);
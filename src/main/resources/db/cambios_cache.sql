@@ -0,0 +1,11 @@
+-- Registro de cambios para el bus de invalidación entre nodos (invalidacion.transporte=tabla)
+-- Cada nodo inserta sus cambios y lee los de los demás por id (marca de agua)
+CREATE TABLE IF NOT EXISTS cambios_cache (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    tipo VARCHAR(20) NOT NULL,
+    entidad_id BIGINT NULL,
+    version BIGINT NOT NULL,
+    nodo VARCHAR(64) NOT NULL,
+    creado TIMESTAMP NOT NULL,
+    INDEX idx_cambios_cache_creado (creado)
+);
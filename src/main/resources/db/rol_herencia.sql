@@ -0,0 +1,26 @@
+-- Jerarquía de roles: rol_id hereda todos los permisos de hereda_de_id
+-- (el esquema se administra a mano: spring.jpa.hibernate.ddl-auto=none)
+CREATE TABLE IF NOT EXISTS rol_herencia (
+    rol_id BIGINT NOT NULL,
+    hereda_de_id BIGINT NOT NULL,
+    PRIMARY KEY (rol_id, hereda_de_id),
+    CONSTRAINT fk_rol_herencia_rol FOREIGN KEY (rol_id) REFERENCES roles (id),
+    CONSTRAINT fk_rol_herencia_padre FOREIGN KEY (hereda_de_id) REFERENCES roles (id)
+);
+
+-- Jerarquía inicial de los roles del sistema (se puede volver a aplicar: no repite aristas)
+INSERT INTO rol_herencia (rol_id, hereda_de_id)
+SELECT hijo.id, padre.id
+FROM roles hijo
+JOIN roles padre ON (hijo.nombre, padre.nombre) IN (
+    ('Supervisor', 'Personal'),
+    ('Jefe de Área', 'Personal'),
+    ('Gerente', 'Jefe de Área'),
+    ('Director', 'Gerente'),
+    ('Administrador del Sistema', 'Director'),
+    ('Administrador del Sistema', 'Supervisor')
+)
+WHERE NOT EXISTS (
+    SELECT 1 FROM rol_herencia existente
+    WHERE existente.rol_id = hijo.id AND existente.hereda_de_id = padre.id
+);
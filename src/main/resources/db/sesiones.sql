@@ -0,0 +1,21 @@
+-- Sesiones HTTP compartidas entre nodos (sesiones.almacen=jdbc)
+-- clave es fija; id es el identificador de la cookie y cambia al autenticarse
+-- Tiempos en milisegundos desde epoch; expira = ultimo_acceso + inactividad_seg
+CREATE TABLE IF NOT EXISTS sesiones (
+    clave CHAR(36) PRIMARY KEY,
+    id CHAR(36) NOT NULL,
+    creada BIGINT NOT NULL,
+    ultimo_acceso BIGINT NOT NULL,
+    inactividad_seg INT NOT NULL,
+    expira BIGINT NOT NULL,
+    UNIQUE KEY uk_sesiones_id (id),
+    INDEX idx_sesiones_expira (expira)
+);
+
+CREATE TABLE IF NOT EXISTS sesion_atributos (
+    sesion_clave CHAR(36) NOT NULL,
+    nombre VARCHAR(200) NOT NULL,
+    valor LONGBLOB NOT NULL,
+    PRIMARY KEY (sesion_clave, nombre),
+    CONSTRAINT fk_sesion_atributos_sesion FOREIGN KEY (sesion_clave) REFERENCES sesiones (clave) ON DELETE CASCADE
+);
@@ -0,0 +1,4 @@
+-- Directorio de usuarios paginado por nombre y filtrado por rol (/admin/usuarios)
+-- El índice único de nombre_usuario cubre el listado sin filtro;
+-- este cubre el filtro por rol sin ordenar en memoria
+CREATE INDEX idx_usuarios_rol_nombre ON usuarios (rol_id, nombre_usuario);
@@ -0,0 +1,157 @@
+package com.example.demo.config;
+
+import com.example.demo.controller.MetricasController;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.sql.Connection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Ruteo por bulkhead con un pool Hikari por compartimento, cada uno sobre su propia
+ * base H2 embebida: la fila de "origen" dice de qué pool salió la conexión
+ */
+class BulkheadRoutingDataSourceTests {
+
+    private final Map<Bulkhead, HikariDataSource> pools = new EnumMap<>(Bulkhead.class);
+    private BulkheadRoutingDataSource routing;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        pools.put(Bulkhead.INTERACTIVO, crearPool("interactivo", 4));
+        pools.put(Bulkhead.AUDITORIA, crearPool("auditoria", 1));
+        pools.put(Bulkhead.LECTURA_MASIVA, crearPool("lectura_masiva", 2));
+
+        routing = new BulkheadRoutingDataSource(new EnumMap<>(pools));
+        routing.afterPropertiesSet();
+        jdbc = new JdbcTemplate(new LazyConnectionDataSourceProxy(routing));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pools.values().forEach(HikariDataSource::close);
+    }
+
+    @Test
+    void cadaAmbitoUsaElPoolDeSuBulkhead() {
+        assertEquals("interactivo", leerOrigen());
+        try (ContextoBulkhead.Ambito ambito = ContextoBulkhead.abrir(Bulkhead.LECTURA_MASIVA)) {
+            assertEquals("lectura_masiva", leerOrigen());
+        }
+        try (ContextoBulkhead.Ambito ambito = ContextoBulkhead.abrir(Bulkhead.AUDITORIA)) {
+            assertEquals("auditoria", leerOrigen());
+        }
+        assertEquals("interactivo", ContextoBulkhead.ejecutar(Bulkhead.INTERACTIVO, this::leerOrigen));
+    }
+
+    @Test
+    void losAmbitosAnidadosRestauranElAnterior() {
+        try (ContextoBulkhead.Ambito exterior = ContextoBulkhead.abrir(Bulkhead.LECTURA_MASIVA)) {
+            try (ContextoBulkhead.Ambito interior = ContextoBulkhead.abrir(Bulkhead.AUDITORIA)) {
+                assertEquals("auditoria", leerOrigen());
+            }
+            assertEquals(Bulkhead.LECTURA_MASIVA, ContextoBulkhead.actual());
+            assertEquals("lectura_masiva", leerOrigen());
+        }
+        assertNull(ContextoBulkhead.actual());
+        assertEquals("interactivo", leerOrigen());
+    }
+
+    @Test
+    void unPoolSaturadoNoBloqueaALosDemasYSeReportaPorSeparado() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try (ContextoBulkhead.Ambito ambito = ContextoBulkhead.abrir(Bulkhead.AUDITORIA);
+             Connection tomada = routing.getConnection()) {
+            // AUDITORIA tiene una sola conexión: otro hilo queda esperando su pool
+            Future<String> enEspera = pool.submit(() ->
+                ContextoBulkhead.ejecutar(Bulkhead.AUDITORIA, this::leerOrigen));
+            esperarHasta(() -> saturacion(Bulkhead.AUDITORIA).get("esperando").equals(1));
+
+            try (ContextoBulkhead.Ambito masiva = ContextoBulkhead.abrir(Bulkhead.LECTURA_MASIVA)) {
+                assertEquals("lectura_masiva", leerOrigen());
+            }
+            assertEquals("interactivo", ContextoBulkhead.ejecutar(Bulkhead.INTERACTIVO, this::leerOrigen));
+
+            assertEquals(1, saturacion(Bulkhead.AUDITORIA).get("activas"));
+            assertEquals(1.0, saturacion(Bulkhead.AUDITORIA).get("uso"));
+            assertEquals(0, saturacion(Bulkhead.INTERACTIVO).get("activas"));
+            assertEquals(0, saturacion(Bulkhead.LECTURA_MASIVA).get("esperando"));
+
+            tomada.close();
+            assertEquals("auditoria", enEspera.get(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void elEndpointDeMetricasReportaCadaPool() throws Exception {
+        MetricasController controller = new MetricasController();
+        ReflectionTestUtils.setField(controller, "bulkheadRoutingDataSource", routing);
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+        leerOrigen();
+        ContextoBulkhead.ejecutar(Bulkhead.AUDITORIA, this::leerOrigen);
+
+        mockMvc.perform(get("/admin/metricas/bulkheads"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.INTERACTIVO.maximo").value(4))
+            .andExpect(jsonPath("$.AUDITORIA.maximo").value(1))
+            .andExpect(jsonPath("$.AUDITORIA.activas").value(0))
+            .andExpect(jsonPath("$.AUDITORIA.total").value(1))
+            .andExpect(jsonPath("$.LECTURA_MASIVA.maximo").value(2))
+            .andExpect(jsonPath("$.LECTURA_MASIVA.esperando").value(0));
+    }
+
+    private String leerOrigen() {
+        return jdbc.queryForObject("SELECT nombre FROM origen", String.class);
+    }
+
+    private Map<String, Object> saturacion(Bulkhead bulkhead) {
+        return routing.obtenerSaturacion().get(bulkhead.name());
+    }
+
+    private static void esperarHasta(BooleanSupplier condicion) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 5_000;
+        while (!condicion.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < limite, "La condición no se cumplió a tiempo");
+            Thread.sleep(10);
+        }
+    }
+
+    private static HikariDataSource crearPool(String nombre, int maximo) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setJdbcUrl("jdbc:h2:mem:" + nombre + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        pool.setUsername("sa");
+        pool.setPassword("");
+        pool.setPoolName("bulkhead-" + nombre);
+        pool.setMaximumPoolSize(maximo);
+        pool.setMinimumIdle(0);
+        pool.setConnectionTimeout(5_000);
+        JdbcTemplate jdbc = new JdbcTemplate(pool);
+        jdbc.execute("CREATE TABLE origen (nombre VARCHAR(20))");
+        jdbc.update("INSERT INTO origen (nombre) VALUES (?)", nombre);
+        return pool;
+    }
+}
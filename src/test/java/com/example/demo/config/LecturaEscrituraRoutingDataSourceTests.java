@@ -0,0 +1,124 @@
+package com.example.demo.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Ruteo primaria/réplica con dos bases H2 embebidas
+ * Cada base tiene una fila distinta en "origen" para saber de dónde se leyó
+ */
+class LecturaEscrituraRoutingDataSourceTests {
+
+    private EmbeddedDatabase primaria;
+    private EmbeddedDatabase replica;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate lectura;
+    private TransactionTemplate escritura;
+
+    @BeforeEach
+    void setUp() {
+        primaria = crearBase("primaria");
+        replica = crearBase("replica");
+
+        GuardiaLecturaPropia guardia = new GuardiaLecturaPropia(Duration.ofMillis(200));
+        LecturaEscrituraRoutingDataSource routing = new LecturaEscrituraRoutingDataSource(primaria, replica, guardia);
+        routing.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+
+        DataSourceTransactionManager txManager = new DataSourceTransactionManager(dataSource);
+        jdbc = new JdbcTemplate(dataSource);
+        escritura = new TransactionTemplate(txManager);
+        lectura = new TransactionTemplate(txManager);
+        lectura.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        primaria.shutdown();
+        replica.shutdown();
+    }
+
+    @Test
+    void lecturasVanALaReplicaYEscriturasALaPrimaria() {
+        assertEquals("replica", lectura.execute(status -> leerOrigen()));
+        assertEquals("primaria", escritura.execute(status -> leerOrigen()));
+    }
+
+    @Test
+    void despuesDeEscribirElUsuarioLeeDeLaPrimariaDuranteLaVentana() throws InterruptedException {
+        autenticar("ana");
+        escritura.executeWithoutResult(status -> jdbc.update("UPDATE origen SET contador = contador + 1"));
+
+        assertEquals("primaria", lectura.execute(status -> leerOrigen()));
+
+        // Otro usuario no queda pegado a la primaria
+        autenticar("beto");
+        assertEquals("replica", lectura.execute(status -> leerOrigen()));
+
+        // Vencida la ventana, vuelve a la réplica
+        Thread.sleep(300);
+        autenticar("ana");
+        assertEquals("replica", lectura.execute(status -> leerOrigen()));
+    }
+
+    @Test
+    void unaLecturaPreviaEnElMismoHiloNoDesviaLaEscrituraALaReplica() {
+        // Sin open-in-view cada transacción pide su conexión: leer primero no deja la réplica tomada
+        assertEquals("replica", lectura.execute(status -> leerOrigen()));
+        escritura.executeWithoutResult(status -> jdbc.update("UPDATE origen SET contador = contador + 1"));
+
+        assertEquals(1, contador(primaria));
+        assertEquals(0, contador(replica));
+    }
+
+    @Test
+    void unaEscrituraRevertidaNoActivaLaGuardia() {
+        autenticar("ana");
+        escritura.executeWithoutResult(status -> {
+            jdbc.update("UPDATE origen SET contador = contador + 1");
+            status.setRollbackOnly();
+        });
+
+        assertEquals("replica", lectura.execute(status -> leerOrigen()));
+    }
+
+    private String leerOrigen() {
+        return jdbc.queryForObject("SELECT nombre FROM origen", String.class);
+    }
+
+    private int contador(EmbeddedDatabase base) {
+        return new JdbcTemplate(base).queryForObject("SELECT contador FROM origen", Integer.class);
+    }
+
+    private void autenticar(String usuario) {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(usuario, null));
+    }
+
+    private EmbeddedDatabase crearBase(String nombre) {
+        EmbeddedDatabase base = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .setName(nombre)
+            .generateUniqueName(false)
+            .build();
+        JdbcTemplate template = new JdbcTemplate(base);
+        template.execute("CREATE TABLE origen (nombre VARCHAR(20), contador INT)");
+        template.update("INSERT INTO origen VALUES (?, 0)", nombre);
+        return base;
+    }
+}
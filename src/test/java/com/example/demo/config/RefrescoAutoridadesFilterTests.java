@@ -0,0 +1,177 @@
+package com.example.demo.config;
+
+import com.example.demo.dto.PrincipalSesion;
+import com.example.demo.repository.UsuarioRepository;
+import com.example.demo.service.AutoridadesService;
+import com.example.demo.service.BusInvalidacion;
+import com.example.demo.service.RolCatalog;
+import com.example.demo.service.TransporteLoopback;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Refresco de autoridades de sesiones abiertas: sin cambios no se toca la sesión,
+ * un cambio de rol se aplica sin ir a la BD y los cambios recordados se olvidan
+ * pasada la vida de una sesión
+ */
+class RefrescoAutoridadesFilterTests {
+
+    private static final Long USUARIO_ID = 7L;
+
+    private final AtomicInteger lecturasRol = new AtomicInteger();
+    private RolCatalog rolCatalog;
+    private AutoridadesService autoridadesService;
+    private RefrescoAutoridadesFilter filtro;
+
+    @BeforeEach
+    void setUp() {
+        rolCatalog = new RolCatalog();
+
+        BusInvalidacion bus = new BusInvalidacion();
+        ReflectionTestUtils.setField(bus, "transporte", new TransporteLoopback());
+        ReflectionTestUtils.setField(bus, "nodoConfigurado", "nodo-a");
+        bus.iniciar();
+
+        // Solo el rol de la BD importa aquí: en la BD el usuario ya tiene el rol 3
+        UsuarioRepository usuarios = (UsuarioRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] {UsuarioRepository.class}, (proxy, metodo, argumentos) -> {
+                if (metodo.getName().equals("findRolIdById")) {
+                    lecturasRol.incrementAndGet();
+                    return Optional.of(3L);
+                }
+                if (metodo.getName().equals("toString")) {
+                    return "UsuarioRepository de prueba";
+                }
+                throw new UnsupportedOperationException(metodo.getName());
+            });
+
+        // Autoridades por rol sin catálogo: basta con que distingan los roles
+        autoridadesService = new AutoridadesService() {
+            @Override
+            public List<GrantedAuthority> autoridades(Long rolId) {
+                return PrincipalSesion.internar(List.of("ROLE_R" + rolId));
+            }
+        };
+        ReflectionTestUtils.setField(autoridadesService, "rolCatalog", rolCatalog);
+        ReflectionTestUtils.setField(autoridadesService, "usuarioRepository", usuarios);
+        ReflectionTestUtils.setField(autoridadesService, "busInvalidacion", bus);
+        ReflectionTestUtils.setField(autoridadesService, "retencionReasignaciones", Duration.ofMinutes(30));
+        autoridadesService.iniciar();
+
+        filtro = new RefrescoAutoridadesFilter(autoridadesService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void sesionAlDiaNoSeTocaNiSeGuarda() throws Exception {
+        Authentication autenticacion = sesion(2L, rolCatalog.versionAutoridades());
+        MockHttpServletRequest request = new MockHttpServletRequest();
+
+        filtro.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertSame(autenticacion, SecurityContextHolder.getContext().getAuthentication());
+        assertNull(request.getSession(false));
+        assertEquals(0, lecturasRol.get());
+    }
+
+    @Test
+    void cambioDeRolLocalSeAplicaSinLeerLaBd() throws Exception {
+        long versionLogin = rolCatalog.versionAutoridades();
+        autoridadesService.rolesReasignados(Map.of(USUARIO_ID, 3L));
+
+        // Dos sesiones del mismo usuario abiertas antes del cambio: las dos lo ven
+        for (int i = 0; i < 2; i++) {
+            sesion(2L, versionLogin);
+            MockHttpServletRequest request = new MockHttpServletRequest();
+            filtro.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+            PrincipalSesion refrescado = principalActual();
+            assertEquals(3L, refrescado.getRolId());
+            assertEquals(rolCatalog.versionAutoridades(), refrescado.getVersionAutoridades());
+            assertEquals(List.of("ROLE_R3"), refrescado.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+            SecurityContext guardado = (SecurityContext) request.getSession()
+                .getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY);
+            assertSame(refrescado, guardado.getAuthentication().getPrincipal());
+        }
+        assertEquals(0, lecturasRol.get());
+    }
+
+    @Test
+    void loginPosteriorAlCambioNoLoVuelveAAplicar() throws Exception {
+        autoridadesService.rolesReasignados(Map.of(USUARIO_ID, 3L));
+        long versionLogin = rolCatalog.versionAutoridades();
+        // Después otro cambio ajeno avanza la versión: el rol leído en el login sigue valiendo
+        autoridadesService.rolesReasignados(Map.of(99L, 1L));
+
+        sesion(5L, versionLogin);
+        filtro.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertEquals(5L, principalActual().getRolId());
+        assertEquals(0, lecturasRol.get());
+    }
+
+    @Test
+    void losCambiosViejosSeOlvidanYLasSesionesAnterioresReleenLaBd() throws Exception {
+        long versionLogin = rolCatalog.versionAutoridades();
+        autoridadesService.rolesReasignados(Map.of(USUARIO_ID, 3L));
+        long versionPosterior = rolCatalog.versionAutoridades();
+
+        ReflectionTestUtils.setField(autoridadesService, "retencionReasignaciones", Duration.ZERO);
+        assertEquals(1, autoridadesService.barrerReasignaciones());
+        assertTrue(((Map<?, ?>) ReflectionTestUtils.getField(autoridadesService, "rolesReasignados")).isEmpty());
+
+        // Sellada antes del cambio olvidado: relee su rol de la BD
+        sesion(2L, versionLogin);
+        filtro.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), new MockFilterChain());
+        assertEquals(3L, principalActual().getRolId());
+        assertEquals(1, lecturasRol.get());
+
+        // Sellada después: su rol ya incluye el cambio (refresca por otro cambio posterior)
+        rolCatalog.autoridadesCambiadas();
+        sesion(3L, versionPosterior);
+        filtro.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), new MockFilterChain());
+        assertEquals(3L, principalActual().getRolId());
+        assertEquals(1, lecturasRol.get());
+    }
+
+    private Authentication sesion(Long rolId, long version) {
+        List<GrantedAuthority> autoridades = autoridadesService.autoridades(rolId);
+        PrincipalSesion principal = new PrincipalSesion(USUARIO_ID, "ana", rolId, version, autoridades, null);
+        Authentication autenticacion = UsernamePasswordAuthenticationToken.authenticated(principal, null, autoridades);
+        SecurityContext contexto = SecurityContextHolder.createEmptyContext();
+        contexto.setAuthentication(autenticacion);
+        SecurityContextHolder.setContext(contexto);
+        return autenticacion;
+    }
+
+    private PrincipalSesion principalActual() {
+        return (PrincipalSesion) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    }
+}
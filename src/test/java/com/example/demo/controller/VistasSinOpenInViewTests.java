@@ -0,0 +1,125 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.Auditoria;
+import com.example.demo.model.Permiso;
+import com.example.demo.model.Rol;
+import com.example.demo.model.Usuario;
+import com.example.demo.repository.AuditoriaRepository;
+import com.example.demo.repository.PermisoRepository;
+import com.example.demo.repository.RolRepository;
+import com.example.demo.repository.UsuarioRepository;
+import com.example.demo.service.RolCatalog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+import static org.hamcrest.Matchers.containsString;
+
+/**
+ * Las vistas completas se renderizan sin open-in-view ni enable_lazy_load_no_trans
+ * Una asociación lazy que la plantilla recorra fuera de transacción lanza
+ * LazyInitializationException durante el renderizado y el request no devuelve 200
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:vistas;MODE=MySQL;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.open-in-view=false",
+    "spring.jpa.properties.hibernate.enable_lazy_load_no_trans=false",
+    "spring.security.oauth2.client.registration.google.client-id=test",
+    "spring.security.oauth2.client.registration.google.client-secret=test",
+    "seguridad.bcrypt.calibrar=false"
+})
+@AutoConfigureMockMvc
+class VistasSinOpenInViewTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RolRepository rolRepository;
+
+    @Autowired
+    private PermisoRepository permisoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private AuditoriaRepository auditoriaRepository;
+
+    @Autowired
+    private RolCatalog rolCatalog;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        // Tabla administrada a mano (db/rol_herencia.sql), fuera del esquema de JPA
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS rol_herencia (rol_id BIGINT NOT NULL, " +
+            "hereda_de_id BIGINT NOT NULL, PRIMARY KEY (rol_id, hereda_de_id))");
+        if (usuarioRepository.count() > 0) {
+            return;
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Permiso total = permisoRepository.save(new Permiso("GESTIÓN_TOTAL"));
+            Permiso lectura = permisoRepository.save(new Permiso("LECTURA"));
+            Rol admin = rolRepository.save(new Rol("Administrador del Sistema", List.of(total, lectura)));
+            rolRepository.save(new Rol("Personal", List.of(lectura)));
+
+            Usuario usuario = usuarioRepository.save(new Usuario("admin", "hash", admin));
+            auditoriaRepository.save(new Auditoria(usuario, "LOGIN_EXITOSO", "/login",
+                "127.0.0.1", "Login de prueba", Auditoria.Resultado.EXITOSO));
+        });
+        rolCatalog.publicar();
+    }
+
+    @Test
+    void dashboardSeRenderiza() throws Exception {
+        // El formulario de logout se renderiza con el response ya enviado en parte: el token CSRF
+        // no puede crear la sesión ahí (un usuario real ya la tiene desde el login)
+        mockMvc.perform(get("/dashboard").with(user("admin").roles("ADMIN")).with(csrf()))
+            .andExpect(status().isOk())
+            .andExpect(view().name("dashboard"))
+            .andExpect(content().string(containsString("LOGIN_EXITOSO")))
+            .andExpect(content().string(containsString("GESTIÓN_TOTAL")));
+    }
+
+    @Test
+    void auditoriaSeRenderiza() throws Exception {
+        mockMvc.perform(get("/auditoria").with(user("admin").roles("ADMIN")))
+            .andExpect(status().isOk())
+            .andExpect(view().name("auditoria"))
+            .andExpect(content().string(containsString("LOGIN_EXITOSO")));
+    }
+
+    @Test
+    void gestionDeRolesSeRenderiza() throws Exception {
+        mockMvc.perform(get("/admin/roles-permisos").with(user("admin").roles("ADMIN")))
+            .andExpect(status().isOk())
+            .andExpect(view().name("roles-permisos"))
+            .andExpect(content().string(containsString("Personal")))
+            .andExpect(content().string(containsString("LECTURA")));
+    }
+}
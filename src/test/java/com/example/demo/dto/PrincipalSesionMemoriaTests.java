@@ -0,0 +1,196 @@
+package com.example.demo.dto;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Memoria por sesión del principal: el de antes (User / DefaultOAuth2User con los
+ * atributos del proveedor y autoridades propias) contra PrincipalSesion
+ * Imprime heap retenido y tamaño serializado de 10.000 sesiones
+ */
+class PrincipalSesionMemoriaTests {
+
+    private static final int SESIONES = 10_000;
+    private static final List<String> NOMBRES_AUTORIDADES = List.of(
+        "ROLE_GERENTE", "PERM_LECTURA", "PERM_EDICION", "PERM_APROBACION", "PERM_INFORMES");
+
+    @Test
+    void laSesionSerializadaConservaElPrincipalYComparteLasAutoridades() throws Exception {
+        PrincipalSesion principal = new PrincipalSesion(7L, "ana", 4L, 3,
+            PrincipalSesion.internar(NOMBRES_AUTORIDADES), "hash");
+        principal.eraseCredentials();
+
+        PrincipalSesion copia = (PrincipalSesion) deserializar(serializar(principal));
+
+        assertEquals("ana", copia.getName());
+        assertEquals(7L, copia.getUsuarioId());
+        assertEquals(4L, copia.getRolId());
+        assertEquals(3, copia.getVersionAutoridades());
+        assertNull(copia.getPassword());
+        assertSame(principal.getAuthorities(), copia.getAuthorities());
+    }
+
+    @Test
+    void elPrincipalOidcConservaSubEmailYNombre() throws Exception {
+        PrincipalSesion principal = PrincipalSesion.deProveedor(8L, "ana@example.com", 4L, 3,
+            PrincipalSesion.internar(NOMBRES_AUTORIDADES),
+            Map.of("sub", "1001", "email", "ana@example.com", "name", "Ana Pérez", "picture", "https://foto"));
+
+        // También después de serializarse y de refrescar las autoridades
+        PrincipalSesion copia = ((PrincipalSesion) deserializar(serializar(principal)))
+            .conRol(5L, 4, PrincipalSesion.internar(List.of("ROLE_PERSONAL")));
+
+        assertEquals("1001", copia.getSubject());
+        assertEquals("ana@example.com", copia.getEmail());
+        assertEquals("Ana Pérez", copia.getFullName());
+        assertEquals(Map.of("sub", "1001", "email", "ana@example.com", "name", "Ana Pérez"), copia.getClaims());
+        assertEquals(5L, copia.getRolId());
+        assertEquals("ana@example.com", copia.getName());
+    }
+
+    @Test
+    void memoriaPorCadaDiezMilSesiones() throws Exception {
+        long antesOAuth2 = medirHeap(this::sesionOAuth2Anterior);
+        long antesFormulario = medirHeap(this::sesionFormularioAnterior);
+        long despues = medirHeap(this::sesionCompacta);
+        long despuesOidc = medirHeap(this::sesionCompactaOidc);
+
+        long serializadaOAuth2 = serializarSesiones(this::sesionOAuth2Anterior);
+        long serializadaFormulario = serializarSesiones(this::sesionFormularioAnterior);
+        long serializadaCompacta = serializarSesiones(this::sesionCompacta);
+        long serializadaCompactaOidc = serializarSesiones(this::sesionCompactaOidc);
+
+        System.out.println("📏 Heap por " + SESIONES + " sesiones: OAuth2 antes " + kb(antesOAuth2)
+            + ", formulario antes " + kb(antesFormulario) + ", compacta " + kb(despues)
+            + ", compacta OIDC " + kb(despuesOidc));
+        System.out.println("📏 Serializado por " + SESIONES + " sesiones: OAuth2 antes " + kb(serializadaOAuth2)
+            + ", formulario antes " + kb(serializadaFormulario) + ", compacta " + kb(serializadaCompacta)
+            + ", compacta OIDC " + kb(serializadaCompactaOidc));
+
+        // El heap medido con gc() es orientativo; el tamaño serializado es determinista
+        assertTrue(serializadaCompacta < serializadaOAuth2);
+        assertTrue(serializadaCompacta < serializadaFormulario);
+        assertTrue(serializadaCompactaOidc < serializadaOAuth2);
+    }
+
+    // ==================== SESIONES ====================
+
+    private SecurityContextImpl sesionOAuth2Anterior(int i) {
+        List<GrantedAuthority> autoridades = autoridadesPropias();
+        DefaultOAuth2User usuario = new DefaultOAuth2User(autoridades, atributosGoogle(i), "email");
+        return new SecurityContextImpl(new OAuth2AuthenticationToken(usuario, autoridades, "google"));
+    }
+
+    private Map<String, Object> atributosGoogle(int i) {
+        Map<String, Object> atributos = new LinkedHashMap<>();
+        atributos.put("sub", "10" + (769150350006150715L + i));
+        atributos.put("name", "Usuario Número " + i);
+        atributos.put("given_name", "Usuario");
+        atributos.put("family_name", "Número " + i);
+        atributos.put("picture", "https://lh3.googleusercontent.com/a/ACg8ocJ" + i + "_s96-c");
+        atributos.put("email", "usuario" + i + "@gmail.com");
+        atributos.put("email_verified", true);
+        atributos.put("locale", "es");
+        return atributos;
+    }
+
+    private SecurityContextImpl sesionFormularioAnterior(int i) {
+        List<GrantedAuthority> autoridades = autoridadesPropias();
+        User usuario = new User("usuario" + i, "$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3J5Yz5sNnQ9sR1b2c3d4e5f", autoridades);
+        usuario.eraseCredentials();
+        return new SecurityContextImpl(UsernamePasswordAuthenticationToken.authenticated(usuario, null, autoridades));
+    }
+
+    private SecurityContextImpl sesionCompacta(int i) {
+        List<GrantedAuthority> autoridades = PrincipalSesion.internar(NOMBRES_AUTORIDADES);
+        PrincipalSesion principal = new PrincipalSesion((long) i, "usuario" + i, 4L, 1, autoridades, null);
+        return new SecurityContextImpl(UsernamePasswordAuthenticationToken.authenticated(principal, null, autoridades));
+    }
+
+    private SecurityContextImpl sesionCompactaOidc(int i) {
+        List<GrantedAuthority> autoridades = PrincipalSesion.internar(NOMBRES_AUTORIDADES);
+        PrincipalSesion principal = PrincipalSesion.deProveedor((long) i, "usuario" + i + "@gmail.com", 4L, 1,
+            autoridades, atributosGoogle(i));
+        return new SecurityContextImpl(new OAuth2AuthenticationToken(principal, autoridades, "google"));
+    }
+
+    private List<GrantedAuthority> autoridadesPropias() {
+        List<GrantedAuthority> autoridades = new ArrayList<>();
+        for (String nombre : NOMBRES_AUTORIDADES) {
+            autoridades.add(new SimpleGrantedAuthority(new String(nombre)));
+        }
+        return autoridades;
+    }
+
+    // ==================== MEDICIÓN ====================
+
+    private long medirHeap(IntFunction<Object> sesion) {
+        Object[] retenidas = new Object[SESIONES];
+        long inicial = heapUsado();
+        for (int i = 0; i < SESIONES; i++) {
+            retenidas[i] = sesion.apply(i);
+        }
+        long usado = heapUsado() - inicial;
+        assertEquals(SESIONES, retenidas.length);
+        return Math.max(usado, 0);
+    }
+
+    private long heapUsado() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Bytes de las 10.000 sesiones distintas serializadas juntas en una lista
+     */
+    private static long serializarSesiones(IntFunction<Object> sesion) throws IOException {
+        List<Object> sesiones = new ArrayList<>(SESIONES);
+        for (int i = 0; i < SESIONES; i++) {
+            sesiones.add(sesion.apply(i));
+        }
+        return serializar(sesiones).length;
+    }
+
+    private static byte[] serializar(Object objeto) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream salida = new ObjectOutputStream(bytes)) {
+            salida.writeObject(objeto);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserializar(byte[] datos) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream entrada = new ObjectInputStream(new ByteArrayInputStream(datos))) {
+            return entrada.readObject();
+        }
+    }
+
+    private static String kb(long bytes) {
+        return (bytes / 1024) + " KB";
+    }
+}
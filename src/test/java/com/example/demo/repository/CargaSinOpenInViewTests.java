@@ -0,0 +1,125 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.Auditoria;
+import com.example.demo.model.Permiso;
+import com.example.demo.model.Rol;
+import com.example.demo.model.Usuario;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.LazyInitializationException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Lecturas del catálogo sin open-in-view ni enable_lazy_load_no_trans
+ * Los tests corren SIN transacción: cualquier carga lazy que no esté cubierta
+ * por un entity graph lanza LazyInitializationException y el test falla
+ */
+@DataJpaTest(properties = {
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.enable_lazy_load_no_trans=false"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CargaSinOpenInViewTests {
+
+    @Autowired
+    private RolRepository rolRepository;
+
+    @Autowired
+    private PermisoRepository permisoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private AuditoriaRepository auditoriaRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics estadisticas;
+
+    @BeforeEach
+    void setUp() {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        // Borrado en su propia transacción: Hibernate ejecuta los INSERT antes que los DELETE
+        transaccion.executeWithoutResult(status -> {
+            auditoriaRepository.deleteAll();
+            usuarioRepository.deleteAll();
+            rolRepository.deleteAll();
+            permisoRepository.deleteAll();
+        });
+        transaccion.executeWithoutResult(status -> {
+            Permiso lectura = permisoRepository.save(new Permiso("LECTURA"));
+            Permiso edicion = permisoRepository.save(new Permiso("EDICION"));
+            Rol jefe = rolRepository.save(new Rol("Jefe de Área", List.of(lectura, edicion)));
+            rolRepository.save(new Rol("Personal", List.of(lectura)));
+
+            Usuario usuario = usuarioRepository.save(new Usuario("ana", "hash", jefe));
+            auditoriaRepository.save(new Auditoria(usuario, "LOGIN", "/login",
+                "127.0.0.1", null, Auditoria.Resultado.EXITOSO));
+        });
+
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        estadisticas = sessionFactory.getStatistics();
+        estadisticas.setStatisticsEnabled(true);
+        estadisticas.clear();
+    }
+
+    @Test
+    void catalogoCompletoEnUnaConsulta() {
+        List<Rol> roles = rolRepository.findAllConPermisos();
+
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+        assertEquals(2, roles.size());
+        roles.forEach(rol -> assertTrue(Hibernate.isInitialized(rol.permisos)));
+        Rol jefe = roles.stream().filter(rol -> rol.nombre.equals("Jefe de Área")).findFirst().orElseThrow();
+        assertEquals(List.of("EDICION", "LECTURA"), jefe.getNombresPermisos().stream().sorted().toList());
+    }
+
+    @Test
+    void usuarioConRolYPermisosEnUnaConsulta() {
+        Usuario usuario = usuarioRepository.findConPermisosByNombreUsuario("ana").orElseThrow();
+
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+        assertTrue(usuario.getRol().tienePermiso("EDICION"));
+    }
+
+    @Test
+    void auditoriaTraeUsuarioYRol() {
+        Auditoria evento = auditoriaRepository.findAllByOrderByFechaHoraDesc(PageRequest.of(0, 10))
+            .getContent().get(0);
+
+        assertTrue(Hibernate.isInitialized(evento.getUsuario()));
+        assertEquals("ana", evento.getUsuario().getNombreUsuario());
+        assertEquals("Jefe de Área", evento.getUsuario().getRol().nombre);
+    }
+
+    @Test
+    void sinGrafoLaCargaLazyFallaFueraDeTransaccion() {
+        // Control: confirma que la carga lazy fuera de transacción está realmente desactivada
+        Rol rol = rolRepository.findByNombre("Personal").orElseThrow();
+
+        assertThrows(LazyInitializationException.class, () -> rol.permisos.size());
+    }
+}
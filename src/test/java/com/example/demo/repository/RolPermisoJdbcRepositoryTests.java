@@ -0,0 +1,157 @@
+package com.example.demo.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Operaciones sobre rol_permisos: resultado y cantidad de sentencias enviadas a la BD
+ * Jerarquía sin la tabla rol_herencia (script sin aplicar) y con el script aplicado
+ */
+class RolPermisoJdbcRepositoryTests {
+
+    private EmbeddedDatabase base;
+    private JdbcTemplate jdbc;
+    private RolPermisoJdbcRepository repository;
+    private final AtomicInteger sentencias = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        base = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .build();
+        jdbc = new JdbcTemplate(base);
+        jdbc.execute("CREATE TABLE rol_permisos (rol_id BIGINT NOT NULL, permiso_id BIGINT NOT NULL, " +
+            "PRIMARY KEY (rol_id, permiso_id))");
+        jdbc.update("INSERT INTO rol_permisos VALUES (1, 10), (1, 11), (1, 12), (2, 11), (3, 11)");
+
+        repository = new RolPermisoJdbcRepository();
+        ReflectionTestUtils.setField(repository, "jdbcTemplate", new JdbcTemplate(new ContadorDataSource(base)));
+        sentencias.set(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        base.shutdown();
+    }
+
+    @Test
+    void eliminarPermisoEsUnSoloDelete() {
+        int eliminadas = repository.eliminarPermisoDeTodosLosRoles(11L);
+
+        assertEquals(3, eliminadas);
+        assertEquals(1, sentencias.get());
+        assertEquals(0, contar("SELECT COUNT(*) FROM rol_permisos WHERE permiso_id = 11"));
+        assertEquals(2, contar("SELECT COUNT(*) FROM rol_permisos"));
+    }
+
+    @Test
+    void sinCambiosSoloLeeLasAsignaciones() {
+        int cambios = repository.sincronizarPermisos(1L, Set.of(10L, 11L, 12L));
+
+        assertEquals(0, cambios);
+        assertEquals(1, sentencias.get());
+    }
+
+    @Test
+    void altasYBajasUsanUnDeleteYUnBatch() {
+        int cambios = repository.sincronizarPermisos(1L, Set.of(11L, 13L, 14L, 15L));
+
+        assertEquals(5, cambios); // bajas: 10, 12 / altas: 13, 14, 15
+        assertEquals(3, sentencias.get()); // SELECT + DELETE ... IN + batch INSERT
+        assertEquals(List.of(11L, 13L, 14L, 15L), jdbc.queryForList(
+            "SELECT permiso_id FROM rol_permisos WHERE rol_id = 1 ORDER BY permiso_id", Long.class));
+        assertEquals(1, contar("SELECT COUNT(*) FROM rol_permisos WHERE rol_id = 2"));
+    }
+
+    @Test
+    void vaciarUnRolEsUnSelectYUnDelete() {
+        int cambios = repository.sincronizarPermisos(1L, Set.of());
+
+        assertEquals(3, cambios);
+        assertEquals(2, sentencias.get());
+        assertEquals(0, contar("SELECT COUNT(*) FROM rol_permisos WHERE rol_id = 1"));
+    }
+
+    @Test
+    void sinLaTablaDeHerenciaLosRolesNoHeredanYSoloFallanLasAltas() {
+        assertTrue(repository.obtenerHerencias().isEmpty());
+        assertEquals(0, repository.eliminarHerenciasDeRol(1L));
+        assertFalse(repository.quitarHerencia(2L, 1L));
+
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+            () -> repository.agregarHerencia(2L, 1L));
+        assertTrue(error.getMessage().contains("db/rol_herencia.sql"));
+    }
+
+    @Test
+    void elScriptDeHerenciaSePuedeAplicarDosVecesSinReiniciar() {
+        assertTrue(repository.obtenerHerencias().isEmpty());
+
+        jdbc.execute("CREATE TABLE roles (id BIGINT PRIMARY KEY, nombre VARCHAR(100) NOT NULL)");
+        jdbc.update("INSERT INTO roles VALUES (1, 'Personal'), (2, 'Supervisor'), (3, 'Jefe de Área')");
+        ResourceDatabasePopulator script = new ResourceDatabasePopulator(new ClassPathResource("db/rol_herencia.sql"));
+        script.setSqlScriptEncoding("UTF-8");
+        script.execute(base);
+        script.execute(base);
+
+        assertEquals(Map.of(2L, Set.of(1L), 3L, Set.of(1L)), repository.obtenerHerencias());
+        assertEquals(2, contar("SELECT COUNT(*) FROM rol_herencia"));
+    }
+
+    private int contar(String sql) {
+        return jdbc.queryForObject(sql, Integer.class);
+    }
+
+    /**
+     * DataSource que cuenta las sentencias preparadas o creadas en sus conexiones
+     */
+    private class ContadorDataSource extends DelegatingDataSource {
+
+        ContadorDataSource(EmbeddedDatabase destino) {
+            super(destino);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection conexion = super.getConnection();
+            return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    String nombre = method.getName();
+                    if (nombre.equals("prepareStatement") || nombre.equals("createStatement")
+                            || nombre.equals("prepareCall")) {
+                        sentencias.incrementAndGet();
+                    }
+                    try {
+                        return method.invoke(conexion, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.UsuarioFilaDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Directorio paginado por clave: recorrer todas las páginas devuelve cada usuario
+ * una vez, en orden, con o sin filtro por rol
+ */
+class UsuarioJdbcRepositoryTests {
+
+    private EmbeddedDatabase base;
+    private UsuarioJdbcRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        base = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .build();
+        JdbcTemplate jdbc = new JdbcTemplate(base);
+        jdbc.execute("CREATE TABLE roles (id BIGINT PRIMARY KEY, nombre VARCHAR(100) NOT NULL)");
+        jdbc.execute("CREATE TABLE usuarios (id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+            "nombre_usuario VARCHAR(100) NOT NULL UNIQUE, clave VARCHAR(100) NOT NULL, rol_id BIGINT NOT NULL)");
+        jdbc.update("INSERT INTO roles VALUES (1, 'Personal'), (2, 'Supervisor')");
+        for (int i = 0; i < 25; i++) {
+            jdbc.update("INSERT INTO usuarios (nombre_usuario, clave, rol_id) VALUES (?, 'x', ?)",
+                String.format("usuario%02d", i), i % 5 == 0 ? 2 : 1);
+        }
+
+        repository = new UsuarioJdbcRepository();
+        ReflectionTestUtils.setField(repository, "jdbcTemplate", jdbc);
+    }
+
+    @AfterEach
+    void tearDown() {
+        base.shutdown();
+    }
+
+    @Test
+    void recorreTodasLasPaginasEnOrden() {
+        List<String> nombres = recorrer(null, false, 10);
+
+        assertEquals(25, nombres.size());
+        assertEquals("usuario00", nombres.get(0));
+        assertEquals("usuario24", nombres.get(24));
+        assertEquals(nombres.stream().sorted().toList(), nombres);
+    }
+
+    @Test
+    void ordenDescendenteYFiltroPorRol() {
+        List<String> nombres = recorrer(2L, true, 2);
+
+        assertEquals(List.of("usuario20", "usuario15", "usuario10", "usuario05", "usuario00"), nombres);
+    }
+
+    @Test
+    void laFilaTraeElNombreDelRol() {
+        UsuarioFilaDTO fila = repository.listarPagina(null, 2L, false, 1).get(0);
+
+        assertEquals("usuario00", fila.getNombreUsuario());
+        assertEquals("Supervisor", fila.getRolNombre());
+        assertTrue(fila.getId() > 0);
+    }
+
+    private List<String> recorrer(Long rolId, boolean descendente, int tamanio) {
+        List<String> nombres = new ArrayList<>();
+        String despuesDe = null;
+        List<UsuarioFilaDTO> pagina;
+        do {
+            pagina = repository.listarPagina(despuesDe, rolId, descendente, tamanio);
+            pagina.forEach(fila -> nombres.add(fila.getNombreUsuario()));
+            if (!pagina.isEmpty()) {
+                despuesDe = pagina.get(pagina.size() - 1).getNombreUsuario();
+            }
+        } while (pagina.size() == tamanio);
+        return nombres;
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PrincipalSesion;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DefaultAuthenticationEventPublisher;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.oauth2.client.authentication.OAuth2LoginAuthenticationToken;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationExchange;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationResponse;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Un registro de auditoría por login, con los ProviderManager armados como en
+ * SecurityConfig: el de la cadena de filtros (contraseña y OIDC) tiene como padre
+ * al global, y los dos publican eventos de autenticación
+ */
+class AuditoriaLoginListenerTests {
+
+    private static final BCryptPasswordEncoder ENCODER = new BCryptPasswordEncoder(4);
+
+    private final List<String> registrados = new CopyOnWriteArrayList<>();
+    private AnnotationConfigApplicationContext contexto;
+    private AuthenticationManager autenticacion;
+    private ClientRegistration registro;
+
+    @BeforeEach
+    void setUp() {
+        // Espía: anota cada registro de login en lugar de escribirlo
+        AuditoriaService auditoria = new AuditoriaService() {
+            @Override
+            public void registrarLoginExitoso(Long usuarioId, String nombreUsuario, HttpServletRequest request) {
+                registrados.add("LOGIN_EXITOSO " + nombreUsuario);
+            }
+
+            @Override
+            public void registrarLoginOAuth2(Long usuarioId, String nombreUsuario, String provider,
+                                             HttpServletRequest request) {
+                registrados.add("OAUTH2_LOGIN " + nombreUsuario + " " + provider);
+            }
+
+            @Override
+            public void registrarLoginFallido(String nombreUsuario, HttpServletRequest request, String motivo) {
+                registrados.add("LOGIN_FALLIDO " + nombreUsuario);
+            }
+        };
+        contexto = new AnnotationConfigApplicationContext();
+        contexto.getBeanFactory().registerSingleton("auditoriaService", auditoria);
+        contexto.register(AuditoriaLoginListener.class);
+        contexto.refresh();
+        DefaultAuthenticationEventPublisher eventos = new DefaultAuthenticationEventPublisher(contexto);
+
+        registro = ClientRegistration.withRegistrationId("google")
+            .clientId("cliente")
+            .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+            .redirectUri("{baseUrl}/login/oauth2/code/{registrationId}")
+            .authorizationUri("https://proveedor.example.com/auth")
+            .tokenUri("https://proveedor.example.com/token")
+            .build();
+
+        // Global (AuthenticationConfiguration): el UserDetailsService de la aplicación
+        ProviderManager global = new ProviderManager(proveedorClave());
+        global.setAuthenticationEventPublisher(eventos);
+        // Cadena de filtros: userDetailsService(...) y oauth2Login() con padre global
+        ProviderManager cadena = new ProviderManager(List.of(proveedorClave(), proveedorOidc()), global);
+        cadena.setAuthenticationEventPublisher(eventos);
+        autenticacion = cadena;
+    }
+
+    @AfterEach
+    void tearDown() {
+        contexto.close();
+    }
+
+    @Test
+    void loginConClaveRegistraUnSoloLoginExitoso() {
+        autenticacion.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("ana", "secreta"));
+
+        assertEquals(List.of("LOGIN_EXITOSO ana"), registrados);
+    }
+
+    @Test
+    void loginOidcRegistraUnSoloOauth2Login() {
+        OAuth2AuthorizationRequest pedido = OAuth2AuthorizationRequest.authorizationCode()
+            .authorizationUri("https://proveedor.example.com/auth")
+            .clientId("cliente")
+            .redirectUri("https://app.example.com/login/oauth2/code/google")
+            .state("estado")
+            .build();
+        OAuth2AuthorizationResponse respuesta = OAuth2AuthorizationResponse.success("codigo")
+            .redirectUri("https://app.example.com/login/oauth2/code/google")
+            .state("estado")
+            .build();
+
+        autenticacion.authenticate(new OAuth2LoginAuthenticationToken(registro,
+            new OAuth2AuthorizationExchange(pedido, respuesta)));
+
+        assertEquals(List.of("OAUTH2_LOGIN ana@example.com google"), registrados);
+    }
+
+    @Test
+    void claveIncorrectaRegistraUnSoloLoginFallido() {
+        // Falla en la cadena y otra vez en el padre: publica solo el último
+        assertThrows(BadCredentialsException.class, () ->
+            autenticacion.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("ana", "otra")));
+
+        assertEquals(List.of("LOGIN_FALLIDO ana"), registrados);
+    }
+
+    private static DaoAuthenticationProvider proveedorClave() {
+        UserDetailsService usuarios = nombre -> {
+            if (!nombre.equals("ana")) {
+                throw new UsernameNotFoundException(nombre);
+            }
+            return principal(7L, "ana", ENCODER.encode("secreta"));
+        };
+        DaoAuthenticationProvider proveedor = new DaoAuthenticationProvider(usuarios);
+        proveedor.setPasswordEncoder(ENCODER);
+        return proveedor;
+    }
+
+    /**
+     * Lo que devuelve OidcAuthorizationCodeAuthenticationProvider con CustomOidcUserService,
+     * sin ir al proveedor por el token
+     */
+    private static AuthenticationProvider proveedorOidc() {
+        return new AuthenticationProvider() {
+            @Override
+            public Authentication authenticate(Authentication pedido) {
+                OAuth2LoginAuthenticationToken login = (OAuth2LoginAuthenticationToken) pedido;
+                PrincipalSesion principal = principal(8L, "ana@example.com", null);
+                OAuth2AccessToken token = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, "acceso",
+                    Instant.now(), Instant.now().plusSeconds(60));
+                return new OAuth2LoginAuthenticationToken(login.getClientRegistration(),
+                    login.getAuthorizationExchange(), principal, principal.getAuthorities(), token);
+            }
+
+            @Override
+            public boolean supports(Class<?> tipo) {
+                return OAuth2LoginAuthenticationToken.class.isAssignableFrom(tipo);
+            }
+        };
+    }
+
+    private static PrincipalSesion principal(Long usuarioId, String nombre, String clave) {
+        List<GrantedAuthority> autoridades = PrincipalSesion.internar(List.of("ROLE_USER"));
+        return new PrincipalSesion(usuarioId, nombre, 2L, 0, autoridades, clave);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.EventoInvalidacion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bus de invalidación sobre el transporte loopback: entrega por tipo, en lotes,
+ * ignorando los eventos publicados por el propio nodo
+ */
+class BusInvalidacionTests {
+
+    private TransporteLoopback transporte;
+    private BusInvalidacion bus;
+    private final List<List<EventoInvalidacion>> lotesCatalogo = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        transporte = new TransporteLoopback();
+        bus = new BusInvalidacion();
+        ReflectionTestUtils.setField(bus, "transporte", transporte);
+        ReflectionTestUtils.setField(bus, "nodoConfigurado", "nodo-a");
+        bus.iniciar();
+        bus.suscribir(EventoInvalidacion.Tipo.CATALOGO, lotesCatalogo::add);
+    }
+
+    @Test
+    void entregaLosCambiosDeOtrosNodosEnUnLotePorTipo() {
+        transporte.publicar(new EventoInvalidacion(EventoInvalidacion.Tipo.CATALOGO, 3L, 7, "nodo-b"));
+        transporte.publicar(new EventoInvalidacion(EventoInvalidacion.Tipo.CATALOGO, 4L, 7, "nodo-b"));
+        transporte.publicar(new EventoInvalidacion(EventoInvalidacion.Tipo.USUARIO, 9L, 1, "nodo-b"));
+
+        bus.sondear();
+
+        assertEquals(1, lotesCatalogo.size());
+        assertEquals(List.of(3L, 4L), lotesCatalogo.get(0).stream().map(EventoInvalidacion::getEntidadId).toList());
+        assertEquals(7, lotesCatalogo.get(0).get(0).getVersion());
+    }
+
+    @Test
+    void ignoraLosEventosPropios() {
+        bus.publicar(EventoInvalidacion.Tipo.CATALOGO, null, 2);
+
+        bus.sondear();
+
+        assertTrue(lotesCatalogo.isEmpty());
+        assertEquals(1L, bus.obtenerEstadisticas().get("publicados"));
+    }
+
+    @Test
+    void unSuscriptorQueFallaNoFrenaElSondeo() {
+        bus.suscribir(EventoInvalidacion.Tipo.CATALOGO, lote -> {
+            throw new IllegalStateException("falla");
+        });
+        transporte.publicar(new EventoInvalidacion(EventoInvalidacion.Tipo.CATALOGO, 1L, 1, "nodo-b"));
+
+        bus.sondear();
+
+        assertEquals(1, lotesCatalogo.size());
+        assertEquals(1L, bus.obtenerEstadisticas().get("errores"));
+    }
+}
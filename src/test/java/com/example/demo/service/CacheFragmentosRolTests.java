@@ -0,0 +1,260 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.RolDTO;
+import com.example.demo.model.Permiso;
+import com.example.demo.model.Rol;
+import com.example.demo.model.Usuario;
+import com.example.demo.repository.PermisoRepository;
+import com.example.demo.repository.RolRepository;
+import com.example.demo.repository.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templateresolver.StringTemplateResolver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Fragmentos cacheados por rol: mismo HTML que el markup que estaba en las vistas,
+ * se vuelven a renderizar con cada versión del catálogo (también por cambios de uso)
+ * y no guardan roles eliminados
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:fragmentos;MODE=MySQL;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.open-in-view=false",
+    "spring.security.oauth2.client.registration.google.client-id=test",
+    "spring.security.oauth2.client.registration.google.client-secret=test",
+    "seguridad.bcrypt.calibrar=false"
+})
+class CacheFragmentosRolTests {
+
+    // Markup que tenían dashboard.html y roles-permisos.html antes de pasar a fragmentos/rol.html
+    private static final String PERMISOS_INLINE = """
+        <div class="permisos-container">
+            <span class="permiso-badge" th:each="permiso : ${permisos}" th:text="${permiso}"></span>
+        </div>""";
+    // Solo las ramas de los roles que usa el test: las demás no generan nada
+    private static final String ACCESO_INLINE = """
+        <div class="access-level">
+            <h4>Funcionalidades del Sistema según tu Rol:</h4>
+            <div th:if="${nombreRol == 'Personal'}" class="access-item allowed">
+                <span class="icon">✓</span>
+                <span>Consulta de información (LECTURA)</span>
+            </div>
+            <div th:if="${nombreRol == 'Administrador del Sistema'}">
+                <div class="access-item allowed">
+                    <span class="icon">✓</span>
+                    <span>Gestión completa del sistema (GESTIÓN_TOTAL)</span>
+                </div>
+                <div class="access-item allowed">
+                    <span class="icon">✓</span>
+                    <span>Administración de usuarios y roles</span>
+                </div>
+                <div class="access-item allowed">
+                    <span class="icon">✓</span>
+                    <span>Configuración del sistema</span>
+                </div>
+                <div class="access-item allowed">
+                    <span class="icon">✓</span>
+                    <span>Acceso total a todas las funcionalidades</span>
+                </div>
+            </div>
+        </div>""";
+    private static final String ROL_RESUMEN_INLINE = """
+        <div class="role-header">
+            <span class="role-name" th:text="${rol.nombre}">Nombre del Rol</span>
+            <span th:if="${rol.esProtegido}" class="role-badge protected">
+                Sistema
+            </span>
+            <span th:unless="${rol.esProtegido}" class="role-badge">
+                Personalizado
+            </span>
+        </div>
+        <div class="role-info">
+            <span th:text="${rol.cantidadPermisos} + ' permiso(s) asignado(s)'"></span>
+            <span th:text="' · ' + ${rol.cantidadUsuarios} + ' usuario(s)'"></span>
+        </div>
+        <div class="role-permisos">
+            <span th:each="permiso : ${rol.permisos}"
+                  class="permiso-mini-badge"
+                  th:text="${permiso}">
+                PERMISO
+            </span>
+            <span th:if="${rol.cantidadPermisos == 0}"
+                  style="color: #999; font-size: 13px;">
+                Sin permisos asignados
+            </span>
+        </div>
+        <div class="role-info" th:unless="${#lists.isEmpty(rol.heredaDe)}">
+            <span th:text="'Hereda de: ' + ${#strings.listJoin(rol.heredaDe, ', ')}"></span>
+            <span th:text="' · ' + ${#lists.size(rol.permisosEfectivos)} + ' permiso(s) efectivo(s)'"></span>
+        </div>""";
+
+    @Autowired
+    private CacheFragmentosRol cacheFragmentosRol;
+
+    @Autowired
+    private RolCatalog rolCatalog;
+
+    @Autowired
+    private RolRepository rolRepository;
+
+    @Autowired
+    private PermisoRepository permisoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaccion;
+
+    @BeforeEach
+    void setUp() {
+        // Tabla administrada a mano (db/rol_herencia.sql), fuera del esquema de JPA
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS rol_herencia (rol_id BIGINT NOT NULL, " +
+            "hereda_de_id BIGINT NOT NULL, PRIMARY KEY (rol_id, hereda_de_id))");
+        transaccion = new TransactionTemplate(transactionManager);
+        if (permisoRepository.count() == 0) {
+            transaccion.executeWithoutResult(status -> {
+                Permiso total = permisoRepository.save(new Permiso("GESTIÓN_TOTAL"));
+                Permiso lectura = permisoRepository.save(new Permiso("LECTURA"));
+                Rol admin = rolRepository.save(new Rol("Administrador del Sistema", List.of(total, lectura)));
+                Rol personal = rolRepository.save(new Rol("Personal", List.of(lectura)));
+                usuarioRepository.save(new Usuario("admin", "hash", admin));
+                usuarioRepository.save(new Usuario("ana", "hash", personal));
+            });
+        }
+        rolCatalog.publicar();
+    }
+
+    @Test
+    void elHtmlCacheadoEsElMismoQueElInline() {
+        RolCatalog.Instantanea catalogo = rolCatalog.actual();
+        for (String nombre : List.of("Administrador del Sistema", "Personal")) {
+            RolDTO rol = catalogo.rolPorNombre(nombre);
+
+            String permisos = cacheFragmentosRol.renderizar("permisos", rol.getId());
+            String acceso = cacheFragmentosRol.renderizar("acceso", rol.getId());
+            String resumen = cacheFragmentosRol.renderizar("rolResumen", rol.getId());
+
+            assertEquals(compactar(inline(PERMISOS_INLINE, catalogo, rol)), compactar(permisos), nombre);
+            assertEquals(compactar(inline(ACCESO_INLINE, catalogo, rol)), compactar(acceso), nombre);
+            assertEquals(compactar(inline(ROL_RESUMEN_INLINE, catalogo, rol)), compactar(resumen), nombre);
+            assertTrue(resumen.contains(nombre));
+
+            // Misma versión: sale de la caché
+            assertSame(resumen, cacheFragmentosRol.renderizar("rolResumen", rol.getId()));
+        }
+    }
+
+    @Test
+    void publicarVuelveARenderizar() {
+        Long rolId = crearRol("Auditor", "LECTURA");
+        String antes = cacheFragmentosRol.renderizar("rolResumen", rolId);
+        assertTrue(antes.contains("1 permiso(s) asignado(s)"));
+
+        transaccion.executeWithoutResult(status -> {
+            Rol rol = rolRepository.findById(rolId).orElseThrow();
+            List<Permiso> permisos = new ArrayList<>(rol.getPermisos());
+            permisos.add(permisoRepository.findByNombre("GESTIÓN_TOTAL").orElseThrow());
+            rol.setPermisos(permisos);
+        });
+        rolCatalog.publicar();
+
+        String despues = cacheFragmentosRol.renderizar("rolResumen", rolId);
+        assertNotEquals(antes, despues);
+        assertTrue(despues.contains("2 permiso(s) asignado(s)"));
+        assertTrue(despues.contains("GESTIÓN_TOTAL"));
+    }
+
+    @Test
+    void unCambioDeUsoVuelveARenderizarElConteoDeUsuarios() {
+        Long rolId = crearRol("Soporte", "LECTURA");
+        assertTrue(cacheFragmentosRol.renderizar("rolResumen", rolId).contains("0 usuario(s)"));
+
+        transaccion.executeWithoutResult(status ->
+            usuarioRepository.save(new Usuario("soporte1", "hash", rolRepository.findById(rolId).orElseThrow())));
+        rolCatalog.usoModificado();
+
+        assertTrue(cacheFragmentosRol.renderizar("rolResumen", rolId).contains("1 usuario(s)"));
+    }
+
+    @Test
+    void unRolDesconocidoDevuelveVacio() {
+        assertEquals("", cacheFragmentosRol.renderizar("permisos", 999_999L));
+        assertEquals("", cacheFragmentosRol.renderizar("rolResumen", 999_999L));
+    }
+
+    @Test
+    void losRolesEliminadosSalenDeLaCache() {
+        Long rolId = crearRol("Temporal", "LECTURA");
+        Long personalId = rolCatalog.actual().rolPorNombre("Personal").getId();
+        cacheFragmentosRol.renderizar("permisos", rolId);
+        cacheFragmentosRol.renderizar("rolResumen", rolId);
+        assertTrue(clavesCacheadas().contains("rolResumen#" + rolId));
+
+        transaccion.executeWithoutResult(status -> rolRepository.deleteById(rolId));
+        rolCatalog.publicar();
+        cacheFragmentosRol.renderizar("permisos", personalId);
+
+        assertFalse(clavesCacheadas().contains("permisos#" + rolId));
+        assertFalse(clavesCacheadas().contains("rolResumen#" + rolId));
+        assertEquals("", cacheFragmentosRol.renderizar("rolResumen", rolId));
+    }
+
+    private Long crearRol(String nombre, String permiso) {
+        Long id = transaccion.execute(status -> rolRepository.save(
+            new Rol(nombre, List.of(permisoRepository.findByNombre(permiso).orElseThrow()))).getId());
+        rolCatalog.publicar();
+        return id;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<String> clavesCacheadas() {
+        return ((Map<String, ?>) ReflectionTestUtils.getField(cacheFragmentosRol, "entradas")).keySet();
+    }
+
+    /**
+     * Render del markup tal como estaba en la vista, con las mismas variables
+     */
+    private static String inline(String markup, RolCatalog.Instantanea catalogo, RolDTO rol) {
+        SpringTemplateEngine motor = new SpringTemplateEngine();
+        motor.setTemplateResolver(new StringTemplateResolver());
+        Context contexto = new Context();
+        contexto.setVariable("rol", rol);
+        contexto.setVariable("nombreRol", rol.getNombre());
+        contexto.setVariable("permisos", catalogo.permisosEfectivos(rol.getId()));
+        return motor.process(markup, contexto);
+    }
+
+    // La sangría cambió al mover el markup; el contenido no
+    private static String compactar(String html) {
+        return html.replaceAll("\\s+", " ").replace("> <", "><").trim();
+    }
+}
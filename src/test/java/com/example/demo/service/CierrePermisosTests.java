@@ -0,0 +1,86 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cierre transitivo de permisos: cálculo completo, recálculo incremental y ciclos
+ */
+class CierrePermisosTests {
+
+    // 1 Personal, 2 Supervisor, 3 Jefe de Área, 4 Gerente
+    private final Map<Long, Set<String>> directos = new HashMap<>(Map.of(
+        1L, Set.of("LECTURA"),
+        2L, Set.of("CONTROL"),
+        3L, Set.of("EDICIÓN"),
+        4L, Set.of("APROBACIÓN")
+    ));
+    private final Map<Long, Set<Long>> herencias = new HashMap<>(Map.of(
+        2L, Set.of(1L),
+        3L, Set.of(1L),
+        4L, Set.of(3L)
+    ));
+
+    @Test
+    void calculaElCierreTransitivo() {
+        CierrePermisos cierre = CierrePermisos.calcular(directos, herencias);
+
+        assertEquals(Set.of("LECTURA"), cierre.permisosEfectivos(1L));
+        assertEquals(Set.of("LECTURA", "CONTROL"), cierre.permisosEfectivos(2L));
+        assertEquals(Set.of("LECTURA", "EDICIÓN", "APROBACIÓN"), cierre.permisosEfectivos(4L));
+        assertTrue(cierre.tienePermiso(4L, "LECTURA"));
+        assertFalse(cierre.tienePermiso(4L, "CONTROL"));
+    }
+
+    @Test
+    void elRecalculoIncrementalSoloTocaLosHerederos() {
+        CierrePermisos anterior = CierrePermisos.calcular(directos, herencias);
+
+        directos.put(3L, Set.of("EDICIÓN", "INFORMES"));
+        CierrePermisos nuevo = anterior.actualizar(directos, herencias, Set.of(3L));
+
+        assertEquals(Set.of("LECTURA", "EDICIÓN", "INFORMES", "APROBACIÓN"), nuevo.permisosEfectivos(4L));
+        // Los roles fuera de la rama cambiada conservan el mismo conjunto (no se recalculan)
+        assertSame(anterior.permisosEfectivos(2L), nuevo.permisosEfectivos(2L));
+        assertEquals(CierrePermisos.calcular(directos, herencias).permisosEfectivos(4L), nuevo.permisosEfectivos(4L));
+    }
+
+    @Test
+    void quitarUnaHerenciaRecalculaAlRolYSusHerederos() {
+        CierrePermisos anterior = CierrePermisos.calcular(directos, herencias);
+
+        herencias.put(3L, Set.of());
+        CierrePermisos nuevo = anterior.actualizar(directos, herencias, Set.of(3L));
+
+        assertEquals(Set.of("EDICIÓN"), nuevo.permisosEfectivos(3L));
+        assertEquals(Set.of("EDICIÓN", "APROBACIÓN"), nuevo.permisosEfectivos(4L));
+    }
+
+    @Test
+    void detectaCiclos() {
+        CierrePermisos cierre = CierrePermisos.calcular(directos, herencias);
+
+        assertTrue(cierre.formaCiclo(1L, 4L)); // Gerente ya hereda de Personal
+        assertTrue(cierre.formaCiclo(2L, 2L));
+        assertFalse(cierre.formaCiclo(4L, 2L));
+    }
+
+    @Test
+    void detectaCiclosConAristasQueLaInstantaneaNoVe() {
+        CierrePermisos cierre = CierrePermisos.calcular(directos, herencias);
+        // Otra transacción confirmó "Personal hereda de Supervisor" después de la instantánea
+        Map<Long, Set<Long>> enBase = new HashMap<>(herencias);
+        enBase.put(1L, Set.of(2L));
+
+        assertFalse(cierre.formaCiclo(2L, 4L));
+        assertTrue(CierrePermisos.formaCiclo(enBase, 2L, 4L)); // Gerente → Jefe → Personal → Supervisor
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Aprovisionamiento single-flight del primer login OAuth2: si el que aprovisiona
+ * termina con un Error, los logins que esperaban el mismo alta no quedan colgados
+ */
+class CustomOAuth2UserServiceTests {
+
+    @Test
+    void unErrorAlAprovisionarNoDejaEsperandoALosDemas() throws Exception {
+        // El aprovisionamiento empieza leyendo la versión de autoridades: ahí se demora y falla
+        AutoridadesService autoridades = new AutoridadesService() {
+            @Override
+            public long versionActual() {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new AssertionError("Error grave simulado");
+            }
+        };
+        CustomOAuth2UserService servicio = new CustomOAuth2UserService();
+        ReflectionTestUtils.setField(servicio, "autoridadesService", autoridades);
+        Map<String, Object> atributos = Map.of("email", "ana@example.com", "sub", "1001");
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        Future<?> aprovisiona = pool.submit(() -> servicio.construirPrincipal("google", atributos));
+        Thread.sleep(50); // el segundo login llega con el alta en curso
+        Future<?> espera = pool.submit(() -> servicio.construirPrincipal("google", atributos));
+
+        ExecutionException delQueAprovisiona = assertThrows(ExecutionException.class,
+            () -> aprovisiona.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(AssertionError.class, delQueAprovisiona.getCause());
+        ExecutionException delQueEspera = assertThrows(ExecutionException.class,
+            () -> espera.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(OAuth2AuthenticationException.class, delQueEspera.getCause());
+        pool.shutdown();
+
+        // El turno quedó libre para el próximo login
+        assertTrue(((Map<?, ?>) ReflectionTestUtils.getField(servicio, "aprovisionamientos")).isEmpty());
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.demo.service;
+
+import com.example.demo.config.DecodificadorIdTokenFactory;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.client.oidc.userinfo.OidcUserRequest;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Login OIDC contra un proveedor de identidad local (JWKS y user-info sobre HTTP)
+ * El user-info del proveedor tiene una latencia fija para comparar el p99 de la
+ * resolución del usuario (validar el ID token + claims) con y sin el round-trip
+ */
+class CustomOidcUserServiceTests {
+
+    private static final long LATENCIA_USER_INFO_MS = 10;
+    private static final int LOGINS_MEDIDOS = 200;
+
+    private static HttpServer proveedor;
+    private static RSAKey clave;
+    private static String base;
+    private static final AtomicInteger descargasJwks = new AtomicInteger();
+    private static final AtomicInteger consultasUserInfo = new AtomicInteger();
+
+    private ClientRegistration registro;
+    private DecodificadorIdTokenFactory decodificadores;
+    private CustomOidcUserService servicio;
+
+    @BeforeAll
+    static void iniciarProveedor() throws Exception {
+        clave = new RSAKeyGenerator(2048).keyID("clave-1").generate();
+        proveedor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        proveedor.createContext("/jwks", intercambio -> {
+            descargasJwks.incrementAndGet();
+            responder(intercambio, new JWKSet(clave.toPublicJWK()).toString());
+        });
+        proveedor.createContext("/userinfo", intercambio -> {
+            consultasUserInfo.incrementAndGet();
+            try {
+                Thread.sleep(LATENCIA_USER_INFO_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            responder(intercambio, "{\"sub\":\"1001\",\"email\":\"ana@example.com\",\"name\":\"Ana Pérez\"}");
+        });
+        proveedor.start();
+        base = "http://127.0.0.1:" + proveedor.getAddress().getPort();
+    }
+
+    @AfterAll
+    static void detenerProveedor() {
+        proveedor.stop(0);
+    }
+
+    @BeforeEach
+    void setUp() {
+        registro = ClientRegistration.withRegistrationId("google")
+            .clientId("cliente")
+            .clientSecret("secreto")
+            .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+            .redirectUri("{baseUrl}/login/oauth2/code/{registrationId}")
+            .scope("openid", "email", "profile")
+            .authorizationUri(base + "/auth")
+            .tokenUri(base + "/token")
+            .jwkSetUri(base + "/jwks")
+            .userInfoUri(base + "/userinfo")
+            .userNameAttributeName("sub")
+            .build();
+        decodificadores = new DecodificadorIdTokenFactory(List.of(base));
+        servicio = new CustomOidcUserService();
+        descargasJwks.set(0);
+        consultasUserInfo.set(0);
+    }
+
+    @Test
+    void idTokenCompletoNoConsultaUserInfo() throws Exception {
+        Map<String, Object> claims = resolver(firmar("Ana Pérez"));
+
+        assertEquals("ana@example.com", claims.get("email"));
+        assertEquals("1001", claims.get("sub"));
+        assertEquals(0, consultasUserInfo.get());
+        assertEquals(1L, servicio.obtenerEstadisticas().get("loginsDesdeIdToken"));
+    }
+
+    @Test
+    void idTokenSinNombreCompletaConUserInfo() throws Exception {
+        Map<String, Object> claims = resolver(firmar(null));
+
+        assertEquals("Ana Pérez", claims.get("name"));
+        assertEquals(1, consultasUserInfo.get());
+        assertEquals(1L, servicio.obtenerEstadisticas().get("consultasUserInfo"));
+    }
+
+    @Test
+    void idTokenDeOtroEmisorSeRechaza() throws Exception {
+        String ajeno = firmar("Ana Pérez", "https://otro-proveedor.example.com");
+
+        assertThrows(JwtValidationException.class, () -> resolver(ajeno));
+        assertEquals(0, consultasUserInfo.get());
+    }
+
+    @Test
+    void lasClavesDelProveedorSeDescarganUnaVez() throws Exception {
+        String token = firmar("Ana Pérez");
+        for (int i = 0; i < 50; i++) {
+            resolver(token);
+        }
+
+        assertEquals(1, descargasJwks.get());
+    }
+
+    @Test
+    void p99SinRoundTripEsMenorQueConUserInfo() throws Exception {
+        String completo = firmar("Ana Pérez");
+        String sinNombre = firmar(null);
+        resolver(completo);
+        resolver(sinNombre);
+
+        long p99SinRoundTrip = p99(completo);
+        long p99ConUserInfo = p99(sinNombre);
+        System.out.println("⏱️ Login OIDC p99: solo ID token " + p99SinRoundTrip / 1000 + " µs, con user-info "
+            + p99ConUserInfo / 1000 + " µs");
+
+        assertTrue(p99SinRoundTrip < p99ConUserInfo);
+        assertTrue(p99ConUserInfo >= LATENCIA_USER_INFO_MS * 1_000_000);
+    }
+
+    private long p99(String token) throws Exception {
+        long[] duraciones = new long[LOGINS_MEDIDOS];
+        for (int i = 0; i < LOGINS_MEDIDOS; i++) {
+            long inicio = System.nanoTime();
+            resolver(token);
+            duraciones[i] = System.nanoTime() - inicio;
+        }
+        Arrays.sort(duraciones);
+        return duraciones[(int) Math.ceil(LOGINS_MEDIDOS * 0.99) - 1];
+    }
+
+    /**
+     * Lo que hace el login después de canjear el código: validar el ID token y resolver los claims
+     */
+    private Map<String, Object> resolver(String tokenFirmado) {
+        Jwt jwt = decodificadores.createDecoder(registro).decode(tokenFirmado);
+        OidcIdToken idToken = new OidcIdToken(jwt.getTokenValue(), jwt.getIssuedAt(), jwt.getExpiresAt(), jwt.getClaims());
+        Instant ahora = Instant.now();
+        OAuth2AccessToken acceso = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, "acceso",
+            ahora, ahora.plusSeconds(60), Set.of("openid", "email", "profile"));
+        return servicio.resolverClaims(new OidcUserRequest(registro, acceso, idToken));
+    }
+
+    private static String firmar(String nombre) throws Exception {
+        return firmar(nombre, base);
+    }
+
+    private static String firmar(String nombre, String emisor) throws Exception {
+        Instant ahora = Instant.now();
+        JWTClaimsSet.Builder claims = new JWTClaimsSet.Builder()
+            .issuer(emisor)
+            .subject("1001")
+            .audience("cliente")
+            .issueTime(Date.from(ahora))
+            .expirationTime(Date.from(ahora.plusSeconds(300)))
+            .claim("email", "ana@example.com");
+        if (nombre != null) {
+            claims.claim("name", nombre);
+        }
+        SignedJWT jwt = new SignedJWT(
+            new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(clave.getKeyID()).type(JOSEObjectType.JWT).build(),
+            claims.build());
+        jwt.sign(new RSASSASigner(clave));
+        return jwt.serialize();
+    }
+
+    private static void responder(HttpExchange intercambio, String json) throws IOException {
+        byte[] cuerpo = json.getBytes(StandardCharsets.UTF_8);
+        intercambio.getResponseHeaders().add("Content-Type", "application/json");
+        intercambio.sendResponseHeaders(200, cuerpo.length);
+        try (OutputStream salida = intercambio.getResponseBody()) {
+            salida.write(cuerpo);
+        }
+    }
+}
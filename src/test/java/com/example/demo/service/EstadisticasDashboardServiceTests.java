@@ -0,0 +1,195 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.EstadisticasDashboardDTO;
+import com.example.demo.repository.AuditoriaJdbcRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Estadísticas del dashboard: una consulta con todo, caché por TTL
+ * y 50 requests concurrentes que comparten un único recálculo
+ */
+class EstadisticasDashboardServiceTests {
+
+    private EmbeddedDatabase base;
+    private JdbcTemplate jdbc;
+    private EstadisticasDashboardService servicio;
+    private final AtomicInteger consultas = new AtomicInteger();
+    private volatile boolean errorGrave;
+
+    @BeforeEach
+    void setUp() {
+        base = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .build();
+        jdbc = new JdbcTemplate(base);
+        jdbc.execute("CREATE TABLE usuarios (id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+            "nombre_usuario VARCHAR(100) NOT NULL UNIQUE)");
+        jdbc.execute("CREATE TABLE auditoria (id BIGINT AUTO_INCREMENT PRIMARY KEY, usuario_id BIGINT NOT NULL, " +
+            "accion VARCHAR(100) NOT NULL, recurso VARCHAR(255), fecha_hora TIMESTAMP NOT NULL, " +
+            "ip_address VARCHAR(45), resultado VARCHAR(20) NOT NULL)");
+        jdbc.update("INSERT INTO usuarios (nombre_usuario) VALUES ('ana'), ('beto'), ('carla')");
+
+        Timestamp ayer = Timestamp.valueOf(LocalDate.now().minusDays(1).atTime(12, 0));
+        for (int i = 0; i < 5; i++) {
+            insertarEvento(1, "LOGIN_EXITOSO", ayer);
+        }
+        Timestamp hoy = Timestamp.valueOf(LocalDate.now().atStartOfDay().plusMinutes(1));
+        for (int i = 0; i < 12; i++) {
+            insertarEvento(2, "ACCESO_DASHBOARD", new Timestamp(hoy.getTime() + i * 1000L));
+        }
+
+        AuditoriaJdbcRepository repository = new AuditoriaJdbcRepository();
+        ReflectionTestUtils.setField(repository, "jdbcTemplate", new JdbcTemplate(new LentoDataSource(base)));
+
+        servicio = new EstadisticasDashboardService();
+        ReflectionTestUtils.setField(servicio, "auditoriaJdbcRepository", repository);
+        ReflectionTestUtils.setField(servicio, "ttlMs", 60_000L);
+        consultas.set(0);
+        errorGrave = false;
+    }
+
+    @AfterEach
+    void tearDown() {
+        base.shutdown();
+    }
+
+    @Test
+    void calculaTodoEnUnaConsulta() {
+        EstadisticasDashboardDTO estadisticas = servicio.obtener();
+
+        assertEquals(1, consultas.get());
+        assertEquals(12, estadisticas.getEventosHoy());
+        assertEquals(17, estadisticas.getTotalEventos());
+        assertEquals(3, estadisticas.getUsuarios());
+        assertEquals(10, estadisticas.getUltimosEventos().size());
+        assertEquals("beto", estadisticas.getUltimosEventos().get(0).getNombreUsuario());
+        assertTrue(estadisticas.getUltimosEventos().get(0).getFechaHora()
+            .isAfter(estadisticas.getUltimosEventos().get(9).getFechaHora()));
+    }
+
+    @Test
+    void sinEventosHoyIgualDevuelveLosConteos() {
+        jdbc.update("DELETE FROM auditoria WHERE fecha_hora >= ?", Timestamp.valueOf(LocalDate.now().atStartOfDay()));
+
+        EstadisticasDashboardDTO estadisticas = servicio.obtener();
+
+        assertEquals(0, estadisticas.getEventosHoy());
+        assertEquals(5, estadisticas.getTotalEventos());
+        assertEquals(3, estadisticas.getUsuarios());
+        assertTrue(estadisticas.getUltimosEventos().isEmpty());
+    }
+
+    @Test
+    void dentroDelTtlNoVuelveAConsultar() {
+        EstadisticasDashboardDTO primera = servicio.obtener();
+        EstadisticasDashboardDTO segunda = servicio.obtener();
+        assertSame(primera, segunda);
+        assertEquals(1, consultas.get());
+
+        ReflectionTestUtils.setField(servicio, "ttlMs", 0L);
+        servicio.obtener();
+        assertEquals(2, consultas.get());
+    }
+
+    @Test
+    void requestsConcurrentesCompartenUnRecalculo() throws Exception {
+        int requests = 50;
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(requests);
+        List<Future<EstadisticasDashboardDTO>> tareas = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            tareas.add(pool.submit(() -> {
+                largada.await();
+                return servicio.obtener();
+            }));
+        }
+        largada.countDown();
+        EstadisticasDashboardDTO primera = tareas.get(0).get();
+        for (Future<EstadisticasDashboardDTO> tarea : tareas) {
+            assertSame(primera, tarea.get());
+        }
+        pool.shutdown();
+
+        assertEquals(1, consultas.get());
+        assertEquals(1L, servicio.obtenerEstadisticas().get("calculos"));
+    }
+
+    @Test
+    void unErrorEnElCalculoNoDejaEsperandoALosDemas() throws Exception {
+        errorGrave = true;
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        Future<EstadisticasDashboardDTO> calcula = pool.submit(servicio::obtener);
+        Thread.sleep(50); // el segundo llega con el cálculo en curso
+        Future<EstadisticasDashboardDTO> espera = pool.submit(servicio::obtener);
+
+        ExecutionException delQueCalcula = assertThrows(ExecutionException.class, () -> calcula.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(AssertionError.class, delQueCalcula.getCause());
+        ExecutionException delQueEspera = assertThrows(ExecutionException.class, () -> espera.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, delQueEspera.getCause());
+        assertEquals(1L, servicio.obtenerEstadisticas().get("esperas"));
+        pool.shutdown();
+
+        // El turno quedó libre: el próximo request recalcula
+        errorGrave = false;
+        assertEquals(12, servicio.obtener().getEventosHoy());
+    }
+
+    private void insertarEvento(long usuarioId, String accion, Timestamp fechaHora) {
+        jdbc.update("INSERT INTO auditoria (usuario_id, accion, recurso, fecha_hora, ip_address, resultado) " +
+            "VALUES (?, ?, '/dashboard', ?, '127.0.0.1', 'EXITOSO')", usuarioId, accion, fechaHora);
+    }
+
+    /**
+     * DataSource que cuenta las conexiones pedidas y demora cada una,
+     * para que los requests concurrentes se encuentren con el recálculo en curso
+     */
+    private class LentoDataSource extends DelegatingDataSource {
+
+        LentoDataSource(EmbeddedDatabase destino) {
+            super(destino);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            consultas.incrementAndGet();
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (errorGrave) {
+                throw new AssertionError("Error grave simulado");
+            }
+            return super.getConnection();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Filtro de Bloom escalable: sin falsos negativos, tasa de falsos positivos
+ * cerca de la pedida aun después de crecer, y altas concurrentes sin pérdidas
+ */
+class FiltroBloomTests {
+
+    private static final double TASA = 0.01;
+
+    @Test
+    void noTieneFalsosNegativosYRespetaLaTasa() {
+        FiltroBloom filtro = new FiltroBloom(20_000, TASA);
+        for (int i = 0; i < 20_000; i++) {
+            filtro.agregar("usuario" + i);
+        }
+
+        for (int i = 0; i < 20_000; i++) {
+            assertTrue(filtro.puedeContener("usuario" + i));
+        }
+        double observada = tasaObservada(filtro);
+        System.out.println("🌸 Tasa observada " + observada + ", estimada " + filtro.tasaFalsosPositivosEstimada()
+            + ", " + filtro.getBytes() / 1024 + " KB");
+        assertTrue(observada <= TASA * 2, "Tasa observada: " + observada);
+    }
+
+    @Test
+    void creceSinPerderLaTasaAlSuperarLaCapacidad() {
+        FiltroBloom filtro = new FiltroBloom(1_000, TASA);
+        for (int i = 0; i < 30_000; i++) {
+            filtro.agregar("usuario" + i);
+        }
+
+        assertTrue(filtro.getTramos() > 1);
+        for (int i = 0; i < 30_000; i++) {
+            assertTrue(filtro.puedeContener("usuario" + i));
+        }
+        assertTrue(tasaObservada(filtro) <= TASA * 2, "Tasa observada: " + tasaObservada(filtro));
+        assertTrue(filtro.tasaFalsosPositivosEstimada() <= TASA * 2);
+    }
+
+    @Test
+    void altasConcurrentesNoSePierden() throws Exception {
+        FiltroBloom filtro = new FiltroBloom(1_000, TASA);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int hilo = 0; hilo < 8; hilo++) {
+            int base = hilo * 5_000;
+            tareas.add(pool.submit(() -> {
+                for (int i = base; i < base + 5_000; i++) {
+                    filtro.agregar("usuario" + i);
+                }
+            }));
+        }
+        for (Future<?> tarea : tareas) {
+            tarea.get();
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 40_000; i++) {
+            assertTrue(filtro.puedeContener("usuario" + i));
+        }
+    }
+
+    @Test
+    void agregarDosVecesNoCuentaDosElementos() {
+        FiltroBloom filtro = new FiltroBloom(100, TASA);
+        filtro.agregar("ana");
+        filtro.agregar("ana");
+
+        assertEquals(1, filtro.getElementos());
+    }
+
+    private double tasaObservada(FiltroBloom filtro) {
+        int falsos = 0;
+        int pruebas = 100_000;
+        for (int i = 0; i < pruebas; i++) {
+            if (filtro.puedeContener("ausente" + i)) {
+                falsos++;
+            }
+        }
+        return (double) falsos / pruebas;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Filtro de nombres de usuario con la misma igualdad que la collation de la BD:
+ * un nombre con otras mayúsculas, sin acentos o con letras expandidas no se descarta
+ */
+class FiltroNombresUsuarioTests {
+
+    private EmbeddedDatabase base;
+    private FiltroNombresUsuario filtro;
+
+    @BeforeEach
+    void setUp() {
+        base = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .build();
+        JdbcTemplate jdbc = new JdbcTemplate(base);
+        jdbc.execute("CREATE TABLE usuarios (id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+            "nombre_usuario VARCHAR(100) NOT NULL UNIQUE)");
+        jdbc.update("INSERT INTO usuarios (nombre_usuario) VALUES ('ana'), ('José'), ('MARÍA'), ('Straße'), ('Ærøskøbing')");
+
+        BusInvalidacion bus = new BusInvalidacion();
+        ReflectionTestUtils.setField(bus, "transporte", new TransporteLoopback());
+        ReflectionTestUtils.setField(bus, "nodoConfigurado", "nodo-a");
+        bus.iniciar();
+
+        filtro = new FiltroNombresUsuario();
+        ReflectionTestUtils.setField(filtro, "jdbcTemplate", jdbc);
+        ReflectionTestUtils.setField(filtro, "busInvalidacion", bus);
+        ReflectionTestUtils.setField(filtro, "indiceNombresUsuario", new IndiceNombresUsuario());
+        ReflectionTestUtils.setField(filtro, "capacidadInicial", 1_000L);
+        ReflectionTestUtils.setField(filtro, "tasaFalsosPositivos", 0.01);
+        ReflectionTestUtils.setField(filtro, "lote", 2);
+        ReflectionTestUtils.setField(filtro, "margenIds", 100L);
+        filtro.iniciar();
+        filtro.cargar();
+    }
+
+    @AfterEach
+    void tearDown() {
+        base.shutdown();
+    }
+
+    @Test
+    void nombresCargadosSeEncuentranSinMayusculasNiAcentos() {
+        for (String nombre : List.of("ana", "ANA", "Ana", "José", "Jose", "JOSE", "maría", "Maria")) {
+            assertTrue(filtro.puedeExistir(nombre), nombre);
+        }
+    }
+
+    @Test
+    void letrasQueLaCollationExpandeSeEncuentran() {
+        // utf8mb4_0900_ai_ci: "ß" = "ss", "æ" = "ae", "ø" = "o"
+        for (String nombre : List.of("strasse", "STRASSE", "straße", "aeroskobing", "AEROSKØBING")) {
+            assertTrue(filtro.puedeExistir(nombre), nombre);
+        }
+        filtro.registrarAlta("ssabine");
+        assertTrue(filtro.puedeExistir("ßabine"));
+    }
+
+    @Test
+    void nombresQueNoSePleganAAsciiNoSeDescartan() {
+        // Ninguno está cargado, pero la BD podría igualarlos con otros nombres
+        for (String nombre : List.of("þóra", "Ωmega", "Юлия")) {
+            assertTrue(filtro.puedeExistir(nombre), nombre);
+        }
+        assertFalse(filtro.puedeExistir("pedro"));
+    }
+
+    @Test
+    void altasLocalesSeEncuentranSinMayusculasNiAcentos() {
+        filtro.registrarAlta("Beto");
+        filtro.registrarAltas(List.of("Ñandú", "carla"));
+
+        for (String nombre : List.of("beto", "BETO", "ñandu", "NANDU", "Carla")) {
+            assertTrue(filtro.puedeExistir(nombre), nombre);
+        }
+    }
+}
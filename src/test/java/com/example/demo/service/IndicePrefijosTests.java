@@ -0,0 +1,127 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Índice de prefijos: sin mayúsculas ni acentos, sin repetidos, altas sueltas,
+ * relecturas que no copian el arreglo principal y búsquedas en microsegundos con 100.000 nombres
+ */
+class IndicePrefijosTests {
+
+    @Test
+    void buscaSinMayusculasNiAcentos() {
+        IndicePrefijos indice = new IndicePrefijos();
+        indice.agregarTodos(List.of("José", "JOSEFINA", "joaquin", "maría", "Jose"));
+
+        assertEquals(List.of("Jose", "José", "JOSEFINA"), indice.buscarPrefijo("jose", 10));
+        assertEquals(List.of("maría"), indice.buscarPrefijo("MARI", 10));
+        assertEquals(List.of("joaquin", "Jose"), indice.buscarPrefijo("jo", 2));
+        assertTrue(indice.buscarPrefijo("pedro", 10).isEmpty());
+    }
+
+    @Test
+    void expandeLasLetrasQueLaCollationIgualaADos() {
+        IndicePrefijos indice = new IndicePrefijos();
+        indice.agregarTodos(List.of("Straße", "Cæsar", "Œuvre"));
+
+        assertEquals(List.of("Straße"), indice.buscarPrefijo("strass", 10));
+        assertEquals(List.of("Cæsar"), indice.buscarPrefijo("CAES", 10));
+        assertEquals(List.of("Œuvre"), indice.buscarPrefijo("oeu", 10));
+        assertEquals("strasse", IndicePrefijos.normalizar("STRAẞE"));
+    }
+
+    @Test
+    void altasRepetidasQuedanUnaVez() {
+        IndicePrefijos indice = new IndicePrefijos();
+        indice.agregarTodos(List.of("ana", "ana", "beto"));
+        indice.agregar("ana");
+        indice.agregarTodos(List.of("beto", "carla"));
+
+        assertEquals(3, indice.tamanio());
+        assertEquals(List.of("ana"), indice.buscarPrefijo("a", 10));
+    }
+
+    @Test
+    void altasSueltasSeBuscanEnOrdenAntesYDespuesDeMezclarse() {
+        IndicePrefijos indice = new IndicePrefijos();
+        List<String> nombres = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            nombres.add("usuario" + i);
+        }
+        indice.agregarTodos(nombres.subList(0, 1_000));
+        // Más altas sueltas que el delta: se mezcla con el principal al menos una vez
+        for (int i = 1_999; i >= 1_000; i--) {
+            indice.agregar(nombres.get(i));
+            indice.agregar(nombres.get(i - 1_000));
+        }
+
+        assertEquals(2_000, indice.tamanio());
+        assertEquals(List.of("usuario1", "usuario10", "usuario100", "usuario1000", "usuario1001"),
+            indice.buscarPrefijo("USUARIO1", 5));
+        assertEquals(List.of("usuario1999"), indice.buscarPrefijo("usuario1999", 10));
+        List<String> todos = indice.buscarPrefijo("usuario", 3_000);
+        assertEquals(2_000, todos.size());
+        List<String> ordenados = new ArrayList<>(todos);
+        ordenados.sort(null);
+        assertEquals(ordenados, todos);
+    }
+
+    @Test
+    void relecturasChicasNoCopianElArregloPrincipal() {
+        IndicePrefijos indice = new IndicePrefijos();
+        List<String> nombres = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            nombres.add("usuario" + i);
+        }
+        indice.agregarTodos(nombres);
+        Object principal = principal(indice);
+
+        // Como cargarDesde(maximoId - margenIds) tras cada ALTA_USUARIO de otro nodo:
+        // los últimos 100 nombres otra vez más el alta nueva
+        for (int alta = 0; alta < 50; alta++) {
+            List<String> relectura = new ArrayList<>(nombres.subList(nombres.size() - 100, nombres.size()));
+            relectura.add("nuevo" + alta);
+            indice.agregarTodos(relectura);
+            nombres.add("nuevo" + alta);
+        }
+
+        assertSame(principal, principal(indice));
+        assertEquals(100_050, indice.tamanio());
+        assertEquals(List.of("nuevo0", "nuevo1", "nuevo10"), indice.buscarPrefijo("NUEVO", 3));
+    }
+
+    @Test
+    void respondeEnMicrosegundosConCienMilNombres() {
+        IndicePrefijos indice = new IndicePrefijos();
+        List<String> nombres = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            nombres.add("usuario" + i);
+        }
+        indice.agregarTodos(nombres);
+
+        int busquedas = 100_000;
+        int encontrados = 0;
+        long inicio = System.nanoTime();
+        for (int i = 0; i < busquedas; i++) {
+            encontrados += indice.buscarPrefijo("Usuario" + (1_000 + i % 1_000), 10).size();
+        }
+        double microsPromedio = (System.nanoTime() - inicio) / 1000.0 / busquedas;
+        System.out.println("🔎 " + busquedas + " búsquedas de prefijo sobre " + indice.tamanio() + " nombres: "
+            + microsPromedio + " µs en promedio, ~" + indice.getBytesAproximados() / 1024 + " KB");
+
+        assertEquals(busquedas * 10, encontrados);
+        assertTrue(microsPromedio < 100, "Búsqueda demasiado lenta: " + microsPromedio + " µs");
+    }
+
+    private static Object principal(IndicePrefijos indice) {
+        return ReflectionTestUtils.getField(ReflectionTestUtils.getField(indice, "actual"), "principal");
+    }
+}
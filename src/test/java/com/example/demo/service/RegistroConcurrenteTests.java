@@ -0,0 +1,195 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.EventoInvalidacion;
+import com.example.demo.model.Rol;
+import com.example.demo.model.Usuario;
+import com.example.demo.repository.UsuarioJdbcRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Registro con un solo INSERT apoyado en la restricción única:
+ * 1.000 registros en paralelo sobre nombres repetidos, exactamente un alta por nombre
+ * y un solo evento de invalidación por alta
+ */
+class RegistroConcurrenteTests {
+
+    private static final int REGISTROS = 1_000;
+    private static final int NOMBRES_DISTINTOS = 100;
+    private static final int HILOS = 32;
+
+    private EmbeddedDatabase base;
+    private JdbcTemplate jdbc;
+    private SistemaLogin sistema;
+    private final AtomicInteger sentencias = new AtomicInteger();
+    private final Map<EventoInvalidacion.Tipo, AtomicInteger> eventos = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        base = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .build();
+        jdbc = new JdbcTemplate(base);
+        jdbc.execute("CREATE TABLE usuarios (id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+            "nombre_usuario VARCHAR(100) NOT NULL UNIQUE, clave VARCHAR(100) NOT NULL, rol_id BIGINT NOT NULL)");
+
+        // Con invalidacion.transporte=tabla cada evento es un INSERT en cambios_cache (en su
+        // propia transacción): acá se cuentan los eventos, no las sentencias de ese transporte
+        BusInvalidacion bus = new BusInvalidacion();
+        ReflectionTestUtils.setField(bus, "transporte", new TransporteLoopback() {
+            @Override
+            public void publicar(EventoInvalidacion evento) {
+                eventos.computeIfAbsent(evento.getTipo(), tipo -> new AtomicInteger()).incrementAndGet();
+                super.publicar(evento);
+            }
+        });
+        ReflectionTestUtils.setField(bus, "nodoConfigurado", "nodo-a");
+        bus.iniciar();
+
+        FiltroNombresUsuario filtro = new FiltroNombresUsuario();
+        ReflectionTestUtils.setField(filtro, "busInvalidacion", bus);
+        ReflectionTestUtils.setField(filtro, "indiceNombresUsuario", new IndiceNombresUsuario());
+        ReflectionTestUtils.setField(filtro, "capacidadInicial", 1_000L);
+        ReflectionTestUtils.setField(filtro, "tasaFalsosPositivos", 0.01);
+        filtro.iniciar();
+
+        RolCatalog rolCatalog = new RolCatalog();
+        ReflectionTestUtils.setField(rolCatalog, "busInvalidacion", bus);
+
+        UsuarioJdbcRepository usuarioJdbcRepository = new UsuarioJdbcRepository();
+        ReflectionTestUtils.setField(usuarioJdbcRepository, "jdbcTemplate", new JdbcTemplate(new ContadorDataSource(base)));
+
+        sistema = new SistemaLogin();
+        ReflectionTestUtils.setField(sistema, "usuarioJdbcRepository", usuarioJdbcRepository);
+        ReflectionTestUtils.setField(sistema, "filtroNombresUsuario", filtro);
+        ReflectionTestUtils.setField(sistema, "rolCatalog", rolCatalog);
+        sentencias.set(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        base.shutdown();
+    }
+
+    @Test
+    void nombreRepetidoSeRechazaSinConsultaPrevia() {
+        assertTrue(sistema.registrarUsuario(usuario("ana")));
+        assertFalse(sistema.registrarUsuario(usuario("ana")));
+
+        assertEquals(2, sentencias.get()); // un INSERT por intento, sin SELECT
+        assertEquals(Map.of(EventoInvalidacion.Tipo.ALTA_USUARIO, 1), publicados()); // un evento por alta
+        assertEquals(1, contar("SELECT COUNT(*) FROM usuarios WHERE nombre_usuario = 'ana'"));
+    }
+
+    @Test
+    void registrosConcurrentesCreanUnUsuarioPorNombre() throws Exception {
+        Map<String, AtomicInteger> altasPorNombre = new ConcurrentHashMap<>();
+        AtomicInteger rechazados = new AtomicInteger();
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(HILOS);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int i = 0; i < REGISTROS; i++) {
+            String nombre = "usuario" + (i % NOMBRES_DISTINTOS);
+            tareas.add(pool.submit(() -> {
+                largada.await();
+                if (sistema.registrarUsuario(usuario(nombre))) {
+                    altasPorNombre.computeIfAbsent(nombre, n -> new AtomicInteger()).incrementAndGet();
+                } else {
+                    rechazados.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        long inicio = System.nanoTime();
+        largada.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get();
+        }
+        long duracionMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+        pool.shutdown();
+        System.out.println("⏱️ " + REGISTROS + " registros concurrentes en " + duracionMs + " ms ("
+            + REGISTROS * 1000L / duracionMs + " registros/s, " + sentencias.get() + " sentencias)");
+
+        assertEquals(NOMBRES_DISTINTOS, altasPorNombre.size());
+        altasPorNombre.values().forEach(altas -> assertEquals(1, altas.get()));
+        assertEquals(REGISTROS - NOMBRES_DISTINTOS, rechazados.get());
+        assertEquals(NOMBRES_DISTINTOS, contar("SELECT COUNT(*) FROM usuarios"));
+        assertEquals(REGISTROS, sentencias.get()); // un round-trip por registro
+        assertEquals(Map.of(EventoInvalidacion.Tipo.ALTA_USUARIO, NOMBRES_DISTINTOS), publicados());
+        assertTrue(duracionMs < 30_000, "Registro concurrente demasiado lento: " + duracionMs + " ms");
+    }
+
+    private Usuario usuario(String nombre) {
+        Rol personal = new Rol();
+        personal.setId(1L);
+        return new Usuario(nombre, "hash", personal);
+    }
+
+    private Map<EventoInvalidacion.Tipo, Integer> publicados() {
+        Map<EventoInvalidacion.Tipo, Integer> publicados = new HashMap<>();
+        eventos.forEach((tipo, cantidad) -> publicados.put(tipo, cantidad.get()));
+        return publicados;
+    }
+
+    private int contar(String sql) {
+        return jdbc.queryForObject(sql, Integer.class);
+    }
+
+    /**
+     * DataSource que cuenta las sentencias preparadas o creadas en sus conexiones
+     */
+    private class ContadorDataSource extends DelegatingDataSource {
+
+        ContadorDataSource(EmbeddedDatabase destino) {
+            super(destino);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection conexion = super.getConnection();
+            return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    String nombre = method.getName();
+                    if (nombre.equals("prepareStatement") || nombre.equals("createStatement")
+                            || nombre.equals("prepareCall")) {
+                        sentencias.incrementAndGet();
+                    }
+                    try {
+                        return method.invoke(conexion, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+        }
+    }
+}
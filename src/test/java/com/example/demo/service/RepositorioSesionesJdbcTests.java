@@ -0,0 +1,147 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Almacén de sesiones JDBC sobre H2: atributos perezosos, write-behind del
+ * último acceso, cambio de id y barrido por tramos
+ */
+class RepositorioSesionesJdbcTests {
+
+    private EmbeddedDatabase base;
+    private JdbcTemplate jdbc;
+    private RepositorioSesionesJdbc repositorio;
+
+    @BeforeEach
+    void setUp() {
+        base = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .build();
+        jdbc = new JdbcTemplate(base);
+        jdbc.execute("CREATE TABLE sesiones (clave CHAR(36) PRIMARY KEY, id CHAR(36) NOT NULL UNIQUE, " +
+            "creada BIGINT NOT NULL, ultimo_acceso BIGINT NOT NULL, inactividad_seg INT NOT NULL, expira BIGINT NOT NULL)");
+        jdbc.execute("CREATE TABLE sesion_atributos (sesion_clave CHAR(36) NOT NULL, nombre VARCHAR(200) NOT NULL, " +
+            "valor BLOB NOT NULL, PRIMARY KEY (sesion_clave, nombre))");
+
+        repositorio = new RepositorioSesionesJdbc(jdbc, new DataSourceTransactionManager(base),
+            Duration.ofMinutes(30), Duration.ofMillis(10), 2, getClass().getClassLoader());
+        Contador.DESERIALIZADOS.set(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        base.shutdown();
+    }
+
+    @Test
+    void soloDeserializaLosAtributosQueSeLeen() {
+        SesionJdbc sesion = repositorio.createSession();
+        sesion.setAttribute("usuario", "ana");
+        sesion.setAttribute("pesado", new Contador());
+        repositorio.save(sesion);
+
+        SesionJdbc leida = repositorio.findById(sesion.getId());
+
+        assertEquals(Set.of("usuario", "pesado"), leida.getAttributeNames());
+        assertEquals("ana", leida.getAttribute("usuario"));
+        assertEquals(0, Contador.DESERIALIZADOS.get());
+        leida.getAttribute("pesado");
+        assertEquals(1, Contador.DESERIALIZADOS.get());
+    }
+
+    @Test
+    void elUltimoAccesoSeEscribeEnLote() {
+        SesionJdbc sesion = repositorio.createSession();
+        repositorio.save(sesion);
+        long guardado = ultimoAcceso(sesion.getId());
+
+        SesionJdbc leida = repositorio.findById(sesion.getId());
+        Instant acceso = Instant.ofEpochMilli(guardado).plusSeconds(60);
+        leida.setLastAccessedTime(acceso);
+        repositorio.save(leida);
+
+        assertEquals(guardado, ultimoAcceso(sesion.getId())); // sin escritura en el request
+        assertEquals(acceso, repositorio.findById(sesion.getId()).getLastAccessedTime()); // el nodo ya lo ve
+
+        assertEquals(1, repositorio.escribirAccesos());
+        assertEquals(acceso.toEpochMilli(), ultimoAcceso(sesion.getId()));
+        assertEquals(0, repositorio.escribirAccesos());
+    }
+
+    @Test
+    void cambiarElIdConservaLosAtributos() {
+        SesionJdbc sesion = repositorio.createSession();
+        sesion.setAttribute("usuario", "ana");
+        repositorio.save(sesion);
+        String idAnterior = sesion.getId();
+
+        SesionJdbc leida = repositorio.findById(idAnterior);
+        String idNuevo = leida.changeSessionId();
+        leida.removeAttribute("usuario");
+        leida.setAttribute("rol", "Gerente");
+        repositorio.save(leida);
+
+        assertNotEquals(idAnterior, idNuevo);
+        assertNull(repositorio.findById(idAnterior));
+        SesionJdbc renovada = repositorio.findById(idNuevo);
+        assertEquals(Set.of("rol"), renovada.getAttributeNames());
+        assertEquals("Gerente", renovada.getAttribute("rol"));
+    }
+
+    @Test
+    void barreLasSesionesVencidasPorTramos() {
+        for (int i = 0; i < 5; i++) {
+            SesionJdbc vencida = repositorio.createSession();
+            vencida.setLastAccessedTime(Instant.now().minus(Duration.ofHours(1)));
+            vencida.setAttribute("i", i);
+            repositorio.save(vencida);
+        }
+        SesionJdbc vigente = repositorio.createSession();
+        vigente.setAttribute("i", 99);
+        repositorio.save(vigente);
+
+        assertEquals(5, repositorio.barrerVencidas());
+
+        assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM sesiones", Integer.class));
+        assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM sesion_atributos", Integer.class));
+        assertEquals(99, (Integer) repositorio.findById(vigente.getId()).getAttribute("i"));
+    }
+
+    private long ultimoAcceso(String id) {
+        return jdbc.queryForObject("SELECT ultimo_acceso FROM sesiones WHERE id = ?", Long.class, id);
+    }
+
+    /**
+     * Atributo que cuenta cuántas veces se deserializó
+     */
+    static class Contador implements Serializable {
+        static final AtomicInteger DESERIALIZADOS = new AtomicInteger();
+
+        @Serial
+        private void readObject(ObjectInputStream entrada) throws IOException, ClassNotFoundException {
+            entrada.defaultReadObject();
+            DESERIALIZADOS.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.EventoInvalidacion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Transporte sobre la tabla cambios_cache: marca de agua y ids confirmados fuera de orden
+ */
+class TransporteTablaCambiosTests {
+
+    private EmbeddedDatabase base;
+    private JdbcTemplate jdbc;
+    private TransporteTablaCambios nodoA;
+    private TransporteTablaCambios nodoB;
+
+    @BeforeEach
+    void setUp() {
+        base = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .build();
+        jdbc = new JdbcTemplate(base);
+        jdbc.execute("CREATE TABLE cambios_cache (id BIGINT AUTO_INCREMENT PRIMARY KEY, tipo VARCHAR(20) NOT NULL, " +
+            "entidad_id BIGINT NULL, version BIGINT NOT NULL, nodo VARCHAR(64) NOT NULL, creado TIMESTAMP NOT NULL)");
+
+        DataSourceTransactionManager transacciones = new DataSourceTransactionManager(base);
+        nodoA = new TransporteTablaCambios(jdbc, transacciones, 500, 100, Duration.ofMinutes(60));
+        nodoB = new TransporteTablaCambios(jdbc, transacciones, 500, 100, Duration.ofMinutes(60));
+    }
+
+    @AfterEach
+    void tearDown() {
+        base.shutdown();
+    }
+
+    @Test
+    void noReprocesaLaHistoriaAlArrancar() {
+        nodoA.publicar(new EventoInvalidacion(EventoInvalidacion.Tipo.CATALOGO, 1L, 1, "a"));
+
+        assertTrue(nodoB.recibir().isEmpty()); // primera lectura: solo fija la marca
+        nodoA.publicar(new EventoInvalidacion(EventoInvalidacion.Tipo.CATALOGO, null, 2, "a"));
+
+        List<EventoInvalidacion> eventos = nodoB.recibir();
+        assertEquals(1, eventos.size());
+        assertNull(eventos.get(0).getEntidadId());
+        assertEquals(2, eventos.get(0).getVersion());
+        assertTrue(nodoB.recibir().isEmpty());
+    }
+
+    @Test
+    void recuperaIdsConfirmadosPorDebajoDeLaMarca() {
+        nodoB.recibir();
+        jdbc.update("INSERT INTO cambios_cache (id, tipo, entidad_id, version, nodo, creado) " +
+            "VALUES (10, 'USUARIO', 5, 1, 'a', CURRENT_TIMESTAMP)");
+        assertEquals(1, nodoB.recibir().size());
+        assertEquals(10, nodoB.getMarca());
+
+        // Una transacción que tomó el id 8 confirma después de que se leyó el 10
+        jdbc.update("INSERT INTO cambios_cache (id, tipo, entidad_id, version, nodo, creado) " +
+            "VALUES (8, 'USUARIO', 6, 1, 'a', CURRENT_TIMESTAMP)");
+
+        List<EventoInvalidacion> eventos = nodoB.recibir();
+        assertEquals(1, eventos.size());
+        assertEquals(6L, eventos.get(0).getEntidadId());
+        assertTrue(nodoB.recibir().isEmpty());
+    }
+}